@@ -0,0 +1,12 @@
+import java.sql.SQLException;
+
+// Where farmer-facing advice is read from and experts' advice is written to.
+// The app uses the MySQL-backed JdbcAdviceStore; InMemoryAdviceStore stands in
+// for it in benchmarks and load tests.
+interface AdviceStore {
+
+    // Returns the advice text for the pair, or null if no expert has added any.
+    String findAdvice(String district, String crop) throws SQLException;
+
+    void addAdvice(String district, String crop, String advice, int expertId) throws SQLException;
+}
@@ -0,0 +1,736 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Micro-benchmarks for the routing (Dijkstra and contraction hierarchy),
+// distance, sorting, advice lookup, crop suitability, sowing calendar,
+// weather lookup, kiosk bundle, event log and district-partitioned store hot
+// paths. Each benchmark is warmed up, then run for a number of fixed-length
+// iterations; the per-iteration ns/op figures are summarised and written as
+// JSON (one result per line) so two runs can be diffed with --compare.
+//
+// By default every benchmark runs in a JVM of its own. In a shared JVM the
+// workload.run() call site sees every workload that ran before, stops being
+// inlined, and the figures then depend on run order and --filter.
+//
+//   java -cp bin Benchmarks [--quick] [--filter <text>] [--out <file.json>] [--no-fork]
+//   java -cp bin Benchmarks --compare <baseline.json> <candidate.json>
+public class Benchmarks {
+
+    interface Workload {
+        long run();
+    }
+
+    interface SqlWorkload {
+        long run() throws SQLException;
+    }
+
+    static class Result {
+        final String name;
+        final String params;
+        final double nsPerOp;
+        final double stddev;
+        final double min;
+        final double max;
+        final int iterations;
+
+        Result(String name, String params, double[] samples) {
+            this.name = name;
+            this.params = params;
+            this.iterations = samples.length;
+            double sum = 0, lo = Double.MAX_VALUE, hi = 0;
+            for (double s : samples) {
+                sum += s;
+                lo = Math.min(lo, s);
+                hi = Math.max(hi, s);
+            }
+            this.nsPerOp = sum / samples.length;
+            double var = 0;
+            for (double s : samples) {
+                var += (s - nsPerOp) * (s - nsPerOp);
+            }
+            this.stddev = Math.sqrt(var / samples.length);
+            this.min = lo;
+            this.max = hi;
+        }
+
+        String key() {
+            return name + params;
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT,
+                "{\"benchmark\": \"%s\", \"params\": \"%s\", \"nsPerOp\": %.3f, \"stddev\": %.3f, "
+                    + "\"min\": %.3f, \"max\": %.3f, \"iterations\": %d}",
+                name, params, nsPerOp, stddev, min, max, iterations);
+        }
+    }
+
+    // Consumed by every workload so the JIT cannot drop the measured work.
+    static volatile long sink;
+
+    private final int warmupIterations;
+    private final int measureIterations;
+    private final long iterationNanos;
+    private final String filter;
+    // In a forked JVM: the one benchmark to run, or list labels only.
+    private final String only;
+    private final boolean listOnly;
+    private final List<Result> results = new ArrayList<>();
+
+    static final String[] GROUPS = {
+        "distance", "routing", "sorting", "advice", "suitability",
+        "sowing", "weather", "bundle", "eventLog", "partition"
+    };
+
+    Benchmarks(boolean quick, String filter) {
+        this(quick, filter, null, false);
+    }
+
+    Benchmarks(boolean quick, String filter, String only, boolean listOnly) {
+        this.warmupIterations = quick ? 2 : 5;
+        this.measureIterations = quick ? 3 : 10;
+        this.iterationNanos = (quick ? 100 : 300) * 1_000_000L;
+        this.filter = filter;
+        this.only = only;
+        this.listOnly = listOnly;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 3 && args[0].equals("--compare")) {
+            compare(Paths.get(args[1]), Paths.get(args[2]));
+            return;
+        }
+
+        boolean quick = false;
+        boolean fork = true;
+        boolean list = false;
+        String filter = null;
+        String group = null;
+        String only = null;
+        String out = "bench-results/benchmarks-"
+            + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--quick": quick = true; break;
+                case "--filter": filter = args[++i]; break;
+                case "--out": out = args[++i]; break;
+                case "--no-fork": fork = false; break;
+                // Used by the parent to drive a forked JVM.
+                case "--group": group = args[++i]; break;
+                case "--label": only = args[++i]; break;
+                case "--list": list = true; break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    return;
+            }
+        }
+
+        if (group != null) {
+            Benchmarks benchmarks = new Benchmarks(quick, filter, only, list);
+            benchmarks.runGroup(group);
+            if (!list) {
+                write(Paths.get(out), benchmarks.json());
+            }
+            return;
+        }
+        if (fork) {
+            write(Paths.get(out), forkAll(quick, filter));
+        } else {
+            Benchmarks benchmarks = new Benchmarks(quick, filter);
+            benchmarks.runAll();
+            write(Paths.get(out), benchmarks.json());
+        }
+        System.out.println("Results written to " + out);
+    }
+
+    void runAll() {
+        for (String group : GROUPS) {
+            runGroup(group);
+        }
+    }
+
+    void runGroup(String group) {
+        switch (group) {
+            case "distance": distanceBenchmarks(); break;
+            case "routing": routingBenchmarks(); break;
+            case "sorting": sortingBenchmarks(); break;
+            case "advice": adviceBenchmarks(); break;
+            case "suitability": suitabilityBenchmarks(); break;
+            case "sowing": sowingCalendarBenchmarks(); break;
+            case "weather": weatherBenchmarks(); break;
+            case "bundle": bundleBenchmarks(); break;
+            case "eventLog": eventLogBenchmarks(); break;
+            case "partition": partitionBenchmarks(); break;
+            default: throw new IllegalArgumentException("Unknown benchmark group: " + group);
+        }
+    }
+
+    private static final String LABEL_PREFIX = "benchmark: ";
+
+    // Lists each group's benchmarks in one JVM, then runs every benchmark in
+    // a fresh one and collects its result line from a temporary file.
+    private static List<String> forkAll(boolean quick, String filter) throws IOException, InterruptedException {
+        List<String> json = new ArrayList<>();
+        for (String group : GROUPS) {
+            List<String> labels = new ArrayList<>();
+            for (String line : fork(quick, filter, "--group", group, "--list")) {
+                if (line.startsWith(LABEL_PREFIX)) {
+                    labels.add(line.substring(LABEL_PREFIX.length()));
+                } else {
+                    System.out.println(line);
+                }
+            }
+            for (String label : labels) {
+                Path out = Files.createTempFile("benchmark", ".json");
+                try {
+                    for (String line : fork(quick, filter, "--group", group, "--label", label, "--out", out.toString())) {
+                        System.out.println(line);
+                    }
+                    for (String line : Files.readAllLines(out, StandardCharsets.UTF_8)) {
+                        if (RESULT_LINE.matcher(line).find()) {
+                            line = line.trim();
+                            json.add(line.endsWith(",") ? line.substring(0, line.length() - 1) : line);
+                        }
+                    }
+                } finally {
+                    Files.deleteIfExists(out);
+                }
+            }
+        }
+        return json;
+    }
+
+    // Runs this class in a child JVM with the parent's JVM options and
+    // class path, returning what it printed.
+    private static List<String> fork(boolean quick, String filter, String... args)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Benchmarks.class.getName());
+        if (quick) {
+            command.add("--quick");
+        }
+        if (filter != null) {
+            command.add("--filter");
+            command.add(filter);
+        }
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader r = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        int exit = process.waitFor();
+        if (exit != 0) {
+            lines.forEach(System.err::println);
+            throw new IOException("Benchmark JVM exited with " + exit + ": " + String.join(" ", args));
+        }
+        return lines;
+    }
+
+    private void distanceBenchmarks() {
+        Random random = new Random(42);
+        int n = 1024;
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = 28.7 + random.nextDouble() * 2.7;
+            lons[i] = 77.6 + random.nextDouble() * 3.4;
+        }
+        int[] cursor = {0};
+        run("calculateDistance", "", () -> {
+            int i = cursor[0]++ & (n - 1);
+            int j = (i * 31 + 7) & (n - 1);
+            return (long) Graph.calculateDistance(lats[i], lons[i], lats[j], lons[j]);
+        });
+    }
+
+    private void routingBenchmarks() {
+        for (int size : new int[] {100, 1000, 5000}) {
+            Graph graph = syntheticGraph(size, 42);
+            Location[] nodes = graph.adjacencyList.keySet().toArray(new Location[0]);
+            Random random = new Random(7);
+            run("findNearestCenters", "nodes=" + size, () ->
+                graph.nearestCenters(nodes[random.nextInt(nodes.length)], 5).size());
+        }
+
+        // The statewide DataGenerator network, by contraction hierarchy.
+        ContractionHierarchy routes = ContractionHierarchy.build(new DataGenerator(42, 1230, 20).buildGraph(null));
+        Location[] nodes = routes.nodes;
+        Random random = new Random(7);
+        run("routes.nearestCentres", "nodes=" + nodes.length, () ->
+            routes.nearestCentres(nodes[random.nextInt(nodes.length)], 5).size());
+        run("routes.minutes", "nodes=" + nodes.length, () ->
+            (long) routes.minutes(nodes[random.nextInt(nodes.length)], nodes[random.nextInt(nodes.length)]));
+    }
+
+    private void sortingBenchmarks() {
+        for (int size : new int[] {1000, 4000}) {
+            String[] random = randomWords(size, 42);
+            String[] sorted = random.clone();
+            Arrays.sort(sorted, String.CASE_INSENSITIVE_ORDER);
+
+            // Each op sorts a fresh copy; copyOnly is the baseline to subtract.
+            run("quickSort.copyOnly", "n=" + size, () -> random.clone().length);
+            run("quickSort", "n=" + size + ",input=random", () -> {
+                String[] a = random.clone();
+                Sorting.quickSort(a, 0, a.length - 1);
+                return a[0].length();
+            });
+            run("quickSort", "n=" + size + ",input=sorted", () -> {
+                String[] a = sorted.clone();
+                Sorting.quickSort(a, 0, a.length - 1);
+                return a[0].length();
+            });
+            run("partition", "n=" + size + ",input=random", () -> {
+                String[] a = random.clone();
+                return Sorting.partition(a, 0, a.length - 1);
+            });
+            // Median-of-3 pivoting is there for this case.
+            run("partition", "n=" + size + ",input=sorted", () -> {
+                String[] a = sorted.clone();
+                return Sorting.partition(a, 0, a.length - 1);
+            });
+        }
+    }
+
+    private void adviceBenchmarks() {
+        String[] districts = Districts.NAMES;
+        String[] crops = Crops.NAMES;
+        InMemoryAdviceStore store = new InMemoryAdviceStore();
+        for (String district : districts) {
+            for (String crop : crops) {
+                store.addAdvice(district, crop, "Sow " + crop + " in " + district + " after soil testing.", 1);
+            }
+        }
+        int[] cursor = {0};
+        // InMemoryAdviceStore is a ConcurrentHashMap, not a database.
+        run("adviceLookup", "store=concurrentHashMap", () -> {
+            int i = cursor[0]++;
+            String advice = store.findAdvice(districts[i % districts.length], crops[i % crops.length]);
+            return advice == null ? 0 : advice.length();
+        });
+    }
+
+    // One op is a full recompute: every crop scored at every site, then ranked.
+    private void suitabilityBenchmarks() {
+        for (int villages : new int[] {16_000, 250_000}) {
+            SiteTable sites = SiteTable.synthetic(villages, 42);
+            run("suitability.rank", "sites=" + sites.size + ",top=3", () ->
+                SuitabilityEngine.rank(sites, 3).crops.length);
+        }
+    }
+
+    private void sowingCalendarBenchmarks() {
+        SowingCalendar calendar;
+        try {
+            calendar = SowingCalendar.load(Paths.get("data", "sowing-calendar.csv"));
+        } catch (IOException e) {
+            System.out.println("Skipping sowing calendar benchmarks: " + e.getMessage());
+            return;
+        }
+        LocalDate[] dates = new LocalDate[366];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = LocalDate.of(2024, 1, 1).plusDays(i);
+        }
+        int[] cursor = {0};
+        run("sowing.sowableWithin", "days=14", () -> {
+            int i = cursor[0]++;
+            return calendar.sowableWithin(i % Districts.COUNT, i % 3, dates[i % dates.length], 14).size();
+        });
+        run("sowing.daysUntilOpen", "", () -> {
+            int i = cursor[0]++;
+            return calendar.daysUntilOpen(i % Districts.COUNT, 0, i % 3, dates[i % dates.length]);
+        });
+    }
+
+    private void weatherBenchmarks() {
+        WeatherGrid grid;
+        try {
+            Path file = Files.createTempFile("forecast", ".cawx");
+            file.toFile().deleteOnExit();
+            WeatherGrid.writeSynthetic(file, 10, 42);
+            grid = WeatherGrid.open(file);
+        } catch (IOException e) {
+            System.out.println("Skipping weather benchmarks: " + e.getMessage());
+            return;
+        }
+        Random random = new Random(42);
+        int n = 1024;
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = 28.7 + random.nextDouble() * 2.7;
+            lons[i] = 77.6 + random.nextDouble() * 3.4;
+        }
+        int[] cursor = {0};
+        run("weather.point", "", () -> {
+            int i = cursor[0]++;
+            return (long) grid.value(i % grid.days, WeatherGrid.RAINFALL, lats[i & (n - 1)], lons[i & (n - 1)]);
+        });
+        SiteTable sites = SiteTable.synthetic(16_000, 42);
+        float[] out = new float[sites.size];
+        run("weather.evaluate", "sites=" + sites.size, () -> {
+            grid.evaluate(sites, 0, WeatherGrid.TMAX, out);
+            return (long) out[0];
+        });
+    }
+
+    // Advice and centres served from a mapped bundle, and a diff between two
+    // versions that differ in a single advice text. Opening is not looped
+    // here because every open leaves a mapping until the next GC; see the
+    // startup.bundle.open histogram instead.
+    private void bundleBenchmarks() {
+        int size = 5000;
+        Graph graph = syntheticGraph(size, 42);
+        List<String[]> advice = new ArrayList<>();
+        for (String district : Districts.NAMES) {
+            for (String crop : Crops.NAMES) {
+                advice.add(new String[] {district, crop, "Sow " + crop + " in " + district + " after soil testing."});
+            }
+        }
+        byte[] v1 = BundleExporter.export(1, graph, advice, Collections.emptyMap());
+        advice.set(7, new String[] {advice.get(7)[0], advice.get(7)[1], "Delay sowing by a week."});
+        byte[] v2 = BundleExporter.export(2, graph, advice, Collections.emptyMap());
+        KioskBundle bundle;
+        try {
+            Path file = Files.createTempFile("kiosk", ".cabn");
+            file.toFile().deleteOnExit();
+            BundleExporter.write(file, v1);
+            bundle = KioskBundle.open(file);
+        } catch (IOException e) {
+            System.out.println("Skipping bundle benchmarks: " + e.getMessage());
+            return;
+        }
+
+        String[] crops = Crops.NAMES;
+        int[] cursor = {0};
+        run("adviceLookup", "store=bundle", () -> {
+            int i = cursor[0]++;
+            String text = bundle.advice(Districts.NAMES[i % Districts.COUNT], crops[i % crops.length]);
+            return text == null ? 0 : text.length();
+        });
+        Random random = new Random(7);
+        run("bundle.nearestCentres", "nodes=" + size, () -> {
+            int start = random.nextInt(bundle.nodeCount());
+            return bundle.centresFrom(bundle.latitude(start), bundle.longitude(start), start, 5, null).length;
+        });
+        run("bundle.diff", "bytes=" + v1.length, () -> BundleDelta.diff(v1, v2).length);
+    }
+
+    // The cost a handler pays to publish an audit event. The writer drains
+    // to a temporary directory meanwhile; events it cannot keep up with are
+    // dropped, and the drop count is printed so the figure can be judged.
+    private void eventLogBenchmarks() {
+        if (!selected("eventLog.publish")) {
+            return;
+        }
+        Path dir;
+        try {
+            dir = Files.createTempDirectory("events");
+        } catch (IOException e) {
+            System.out.println("Skipping event log benchmarks: " + e.getMessage());
+            return;
+        }
+        EventLog log = EventLog.start(dir);
+        long dropped = Metrics.counter("eventlog.dropped").sum();
+        int[] cursor = {0};
+        long startNanos = System.nanoTime();
+        run("eventLog.publish", "", () -> {
+            int i = cursor[0]++;
+            log.publish(EventLog.Type.CENTRES_LOOKUP, EventLog.Outcome.OK, i % Districts.COUNT, i, 5, startNanos,
+                30.3f, 78.0f);
+            return i;
+        });
+        log.close();
+        System.out.printf("  (%,d events dropped while the ring was full)%n",
+            Metrics.counter("eventlog.dropped").sum() - dropped);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+            Files.delete(dir);
+        } catch (IOException e) {
+            System.out.println("Could not remove " + dir + ": " + e.getMessage());
+        }
+    }
+
+    // Dehradun holds the same 20,000 farmers and 2,000 advice rows while the
+    // rest of the state grows tenfold, to 1,000,000 farmers and 100,000
+    // advice rows. Each workload runs against the district partitions and,
+    // as a control, against the unpartitioned in-memory stores with the same
+    // data. A lookup by name has no district, so the partitioned store fans
+    // it out to every partition.
+    private void partitionBenchmarks() {
+        if (!selected("districtStore.")) {
+            return;
+        }
+        int districtFarmers = 20_000;
+        int districtAdvice = 2_000;
+        int dehradun = Districts.id("Dehradun");
+        String[] dehradunCrops = new String[districtAdvice];
+        for (int k = 0; k < districtAdvice; k++) {
+            dehradunCrops[k] = variety(k);
+        }
+        ExecutorService fanOut = PartitionedFarmerStore.fanOutExecutor();
+        try {
+            for (int statewide : new int[] {100_000, 1_000_000}) {
+                for (boolean partitioned : new boolean[] {true, false}) {
+                    FarmerStore farmers = partitioned ? PartitionedFarmerStore.inMemory(fanOut)
+                        : new InMemoryFarmerStore();
+                    AdviceStore advice = partitioned ? PartitionedAdviceStore.inMemory() : new InMemoryAdviceStore();
+                    Random random = new Random(42);
+                    int[] dehradunIds = new int[districtFarmers];
+                    String[] dehradunAadhaar = new String[districtFarmers];
+                    String[] dehradunNames = new String[districtFarmers];
+                    int inDehradun = 0;
+                    for (int i = 0; i < statewide; i++) {
+                        // Every statewide / districtFarmers-th farmer is in Dehradun.
+                        boolean local = i % (statewide / districtFarmers) == 0 && inDehradun < districtFarmers;
+                        int district = local ? dehradun
+                            : (dehradun + 1 + random.nextInt(Districts.COUNT - 1)) % Districts.COUNT;
+                        String aadhaar = DataGenerator.aadhaarFor(i);
+                        Farmer farmer = farmers.register("Farmer " + i, aadhaar, Districts.NAMES[district], "Village");
+                        if (local) {
+                            dehradunIds[inDehradun] = farmer.id;
+                            dehradunNames[inDehradun] = farmer.name;
+                            dehradunAadhaar[inDehradun++] = aadhaar;
+                        }
+                    }
+                    for (int k = 0; k < districtAdvice; k++) {
+                        advice.addAdvice("Dehradun", dehradunCrops[k], "Sow " + dehradunCrops[k] + " after soil testing.", 1);
+                    }
+                    for (int k = 0; k < statewide / 10 - districtAdvice; k++) {
+                        String district = Districts.NAMES[(dehradun + 1 + k % (Districts.COUNT - 1)) % Districts.COUNT];
+                        String crop = variety(k / (Districts.COUNT - 1));
+                        advice.addAdvice(district, crop, "Sow " + crop + " after soil testing.", 1);
+                    }
+
+                    String params = "store=" + (partitioned ? "partitioned" : "flat") + ",statewide=" + statewide;
+                    int[] cursor = {0};
+                    run("districtStore.pageByDistrict", params, sql(() -> {
+                        int i = cursor[0]++;
+                        return farmers.pageByDistrict("Dehradun", dehradunIds[i % (districtFarmers - 500)], 500).size();
+                    }));
+                    run("districtStore.findAdvice", params, sql(() -> {
+                        int i = cursor[0]++;
+                        String text = advice.findAdvice("Dehradun", dehradunCrops[i % districtAdvice]);
+                        return text == null ? 0 : text.length();
+                    }));
+                    run("districtStore.findByAadhaar", params, sql(() -> {
+                        int i = cursor[0]++;
+                        return farmers.findByAadhaar(dehradunAadhaar[i % districtFarmers]).id;
+                    }));
+                    run("districtStore.findByName", params, sql(() -> {
+                        int i = cursor[0]++;
+                        return farmers.findByName(dehradunNames[i % districtFarmers]).id;
+                    }));
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("Skipping partition benchmarks: " + e.getMessage());
+        } finally {
+            fanOut.shutdown();
+        }
+    }
+
+    // A distinct crop key per advice row, e.g. "Wheat 12".
+    private static String variety(int k) {
+        return Crops.NAMES[k % Crops.COUNT] + " " + k / Crops.COUNT;
+    }
+
+    // The in-memory stores never fail, but they share the SQLException
+    // signature of the JDBC ones.
+    private static Workload sql(SqlWorkload workload) {
+        return () -> {
+            try {
+                return workload.run();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    // Whether any benchmark named with this prefix can pass the filter, for
+    // benchmarks whose setup is too costly to run when they are skipped.
+    private boolean selected(String prefix) {
+        return filter == null || prefix.contains(filter) || filter.startsWith(prefix);
+    }
+
+    private void run(String name, String params, Workload workload) {
+        String label = params.isEmpty() ? name : name + " [" + params + "]";
+        if (filter != null && !label.contains(filter) || only != null && !label.equals(only)) {
+            return;
+        }
+        if (listOnly) {
+            System.out.println(LABEL_PREFIX + label);
+            return;
+        }
+        int batch = batchSize(workload);
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(workload, batch);
+        }
+        double[] samples = new double[measureIterations];
+        for (int i = 0; i < measureIterations; i++) {
+            samples[i] = iteration(workload, batch);
+        }
+        Result result = new Result(name, params, samples);
+        results.add(result);
+        System.out.printf("%-50s %14.1f ns/op  (+/- %.1f)%n", label, result.nsPerOp, result.stddev);
+    }
+
+    // Ops per clock read: enough that a batch runs for BATCH_NANOS, so the
+    // ~25-40 ns of System.nanoTime() is noise even for ops that cost less.
+    private static final long BATCH_NANOS = 20_000;
+
+    private static int batchSize(Workload workload) {
+        int batch = 1;
+        long acc = 0;
+        while (batch < 1 << 20) {
+            long start = System.nanoTime();
+            for (int k = 0; k < batch; k++) {
+                acc += workload.run();
+            }
+            if (System.nanoTime() - start >= BATCH_NANOS) {
+                break;
+            }
+            batch *= 2;
+        }
+        sink = acc;
+        return batch;
+    }
+
+    // Every result is summed into sink, so the JIT can neither drop an op
+    // nor fold it away; workloads vary their input per op for the same reason.
+    private double iteration(Workload workload, int batch) {
+        long ops = 0;
+        long acc = 0;
+        long start = System.nanoTime();
+        long deadline = start + iterationNanos;
+        long now;
+        do {
+            for (int k = 0; k < batch; k++) {
+                acc += workload.run();
+            }
+            ops += batch;
+            now = System.nanoTime();
+        } while (now < deadline);
+        sink = acc;
+        return (double) (now - start) / ops;
+    }
+
+    private List<String> json() {
+        List<String> json = new ArrayList<>();
+        for (Result result : results) {
+            json.add(result.toJson());
+        }
+        return json;
+    }
+
+    private static void write(Path out, List<String> results) throws IOException {
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8))) {
+            w.println("{");
+            w.printf("  \"timestamp\": \"%s\",%n", LocalDateTime.now());
+            w.printf("  \"java\": \"%s\",%n", System.getProperty("java.version"));
+            w.println("  \"results\": [");
+            for (int i = 0; i < results.size(); i++) {
+                w.print("    " + results.get(i));
+                w.println(i < results.size() - 1 ? "," : "");
+            }
+            w.println("  ]");
+            w.println("}");
+        }
+    }
+
+    private static final Pattern RESULT_LINE = Pattern.compile(
+        "\"benchmark\": \"([^\"]*)\", \"params\": \"([^\"]*)\", \"nsPerOp\": ([0-9.]+)");
+
+    private static Map<String, Double> read(Path file) throws IOException {
+        Map<String, Double> nsPerOp = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            Matcher m = RESULT_LINE.matcher(line);
+            if (m.find()) {
+                String params = m.group(2);
+                nsPerOp.put(m.group(1) + (params.isEmpty() ? "" : " [" + params + "]"),
+                    Double.parseDouble(m.group(3)));
+            }
+        }
+        return nsPerOp;
+    }
+
+    static void compare(Path baseline, Path candidate) throws IOException {
+        Map<String, Double> before = read(baseline);
+        Map<String, Double> after = read(candidate);
+        System.out.printf("%-50s %14s %14s %9s%n", "benchmark", "baseline ns", "candidate ns", "change");
+        for (Map.Entry<String, Double> e : before.entrySet()) {
+            Double now = after.get(e.getKey());
+            if (now == null) {
+                System.out.printf("%-50s %14.1f %14s%n", e.getKey(), e.getValue(), "-");
+            } else {
+                System.out.printf("%-50s %14.1f %14.1f %+8.1f%%%n",
+                    e.getKey(), e.getValue(), now, (now - e.getValue()) / e.getValue() * 100);
+            }
+        }
+    }
+
+    // Random locations across the Uttarakhand bounding box, ~10% of them
+    // government centres, each joined to its predecessor (so the graph is
+    // connected) and to two random earlier nodes.
+    static Graph syntheticGraph(int size, long seed) {
+        Random random = new Random(seed);
+        Graph graph = new Graph();
+        Location[] nodes = new Location[size];
+        for (int i = 0; i < size; i++) {
+            boolean center = random.nextInt(10) == 0;
+            nodes[i] = new Location(
+                (center ? "Centre " : "Node ") + i,
+                28.7 + random.nextDouble() * 2.7,
+                77.6 + random.nextDouble() * 3.4,
+                center ? "GOVT_CENTER" : "VILLAGE",
+                "", "", "");
+            graph.addLocation(nodes[i]);
+            if (i > 0) {
+                graph.addRoad(nodes[i], nodes[i - 1]);
+                for (int k = 0; k < 2 && i > 1; k++) {
+                    graph.addRoad(nodes[i], nodes[random.nextInt(i - 1)]);
+                }
+            }
+        }
+        return graph;
+    }
+
+    private static String[] randomWords(int size, long seed) {
+        Random random = new Random(seed);
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            char[] chars = new char[4 + random.nextInt(8)];
+            for (int c = 0; c < chars.length; c++) {
+                chars[c] = (char) ((random.nextBoolean() ? 'a' : 'A') + random.nextInt(26));
+            }
+            words[i] = new String(chars);
+        }
+        return words;
+    }
+}
@@ -0,0 +1,325 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Sends an expert's advice to every farmer registered in a district. A pager
+// thread walks the district with keyset queries and cuts the recipients into
+// batches on a bounded queue; when the queue is full the pager waits, so a
+// slow gateway throttles the database reads instead of filling the heap.
+// Worker threads send the batches through the gateway, retrying failed
+// batches with exponential backoff. Keyset paging reaches each farmer once,
+// and every message is keyed by advice and farmer: the key is a hash of the
+// district and text plus the farmer id, so it is the same after a restart
+// and a gateway that honours it (FileMessageGateway does) sends a given
+// advice to a farmer once, even when it is retried or posted again. The same
+// advice posted again while its broadcast is still running joins that
+// broadcast; once it has finished, a new post reaches only farmers the
+// gateway has not sent it to. Callers get a future, so the expert UI never
+// waits on delivery. close() lets running broadcasts finish, then closes the
+// gateway.
+//
+//   java -cp bin BroadcastDispatcher [--farmers 50000] [--workers 4] [--batch 500]
+//        [--failure-rate 0.05] [--outbox /tmp/outbox.log]
+class BroadcastDispatcher {
+    private static final LatencyHistogram SEND = Metrics.histogram("broadcast.send");
+    private static final LatencyHistogram TOTAL = Metrics.histogram("broadcast.total");
+
+    private static final int PAGE_SIZE = 2000;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+
+    static final class Summary {
+        final long broadcastId;
+        final String district;
+        final int recipients;
+        final int sent;
+        final int failed;
+        // Recipients the gateway had already sent this advice to.
+        final int alreadySent;
+        final long elapsedNanos;
+
+        Summary(long broadcastId, String district, int recipients, int sent, int failed, int alreadySent,
+                long elapsedNanos) {
+            this.broadcastId = broadcastId;
+            this.district = district;
+            this.recipients = recipients;
+            this.sent = sent;
+            this.failed = failed;
+            this.alreadySent = alreadySent;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        double messagesPerSecond() {
+            return elapsedNanos == 0 ? 0 : sent / (elapsedNanos / 1e9);
+        }
+
+        public String toString() {
+            return String.format("broadcast %d to %s: %,d recipients, %,d sent, %,d failed, %,d already sent, "
+                    + "%.2f s (%,.0f msg/s)", broadcastId, district, recipients, sent, failed, alreadySent,
+                elapsedNanos / 1e9, messagesPerSecond());
+        }
+    }
+
+    private final class Broadcast {
+        final long id = nextBroadcastId.incrementAndGet();
+        final String key;
+        final String adviceId;
+        final String district;
+        final String text;
+        final long startNanos = System.nanoTime();
+        final CompletableFuture<Summary> done = new CompletableFuture<>();
+        final AtomicInteger pendingBatches = new AtomicInteger();
+        final AtomicInteger recipients = new AtomicInteger();
+        final AtomicInteger sent = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger alreadySent = new AtomicInteger();
+        volatile boolean pagingDone;
+        volatile Exception pagingError;
+
+        Broadcast(String key, String district, String text) {
+            this.key = key;
+            this.adviceId = adviceId(key);
+            this.district = district;
+            this.text = text;
+        }
+
+        synchronized void maybeComplete() {
+            if (!pagingDone || pendingBatches.get() > 0 || done.isDone()) {
+                return;
+            }
+            long elapsed = System.nanoTime() - startNanos;
+            TOTAL.record(elapsed);
+            // Out of running before done completes, so a repeat post either
+            // joins this broadcast or starts a new one.
+            running.remove(key, this);
+            if (pagingError != null) {
+                done.completeExceptionally(pagingError);
+            } else {
+                done.complete(new Summary(id, district, recipients.get(), sent.get(), failed.get(), alreadySent.get(), elapsed));
+            }
+        }
+    }
+
+    private static final class Batch {
+        final Broadcast broadcast;
+        final List<MessageGateway.Message> messages;
+
+        Batch(Broadcast broadcast, List<MessageGateway.Message> messages) {
+            this.broadcast = broadcast;
+            this.messages = messages;
+        }
+    }
+
+    private final FarmerStore farmerStore;
+    private final MessageGateway gateway;
+    private final int batchSize;
+    private final BlockingQueue<Batch> queue;
+    private final ExecutorService pager;
+    private final AtomicLong nextBroadcastId = new AtomicLong();
+    private final Map<String, Broadcast> running = new ConcurrentHashMap<>();
+
+    BroadcastDispatcher(FarmerStore farmerStore, MessageGateway gateway, int workers, int batchSize) {
+        this.farmerStore = farmerStore;
+        this.gateway = gateway;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(workers * 4);
+        this.pager = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "broadcast-pager");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int w = 0; w < workers; w++) {
+            Thread worker = new Thread(this::work, "broadcast-worker-" + w);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    CompletableFuture<Summary> broadcast(String district, String crop, String advice) {
+        String text = crop + " advice for " + district + ": " + advice;
+        String key = district + '\u0000' + text;
+        Broadcast fresh = new Broadcast(key, district, text);
+        Broadcast existing = running.putIfAbsent(key, fresh);
+        if (existing != null) {
+            Metrics.increment("broadcast.joinedRequests");
+            return existing.done;
+        }
+        try {
+            pager.execute(() -> page(fresh));
+        } catch (RejectedExecutionException e) {
+            running.remove(key, fresh);
+            fresh.done.completeExceptionally(new IllegalStateException("Broadcast dispatcher is closed"));
+        }
+        return fresh.done;
+    }
+
+    // First 16 hex digits of the SHA-256 of district and text.
+    static String adviceId(String districtAndText) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(districtAndText.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(16);
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Stops taking broadcasts, waits up to CLOSE_TIMEOUT_MILLIS for the
+    // running ones to be delivered, then closes the gateway.
+    void close() {
+        pager.shutdown();
+        try {
+            CompletableFuture.allOf(running.values().stream().map(b -> b.done).toArray(CompletableFuture[]::new))
+                .get(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.out.println("Broadcasts still running at close: " + running.size());
+        }
+        try {
+            gateway.close();
+        } catch (IOException e) {
+            System.out.println("Could not close message gateway: " + e.getMessage());
+        }
+    }
+
+    private void page(Broadcast broadcast) {
+        try {
+            List<MessageGateway.Message> batch = new ArrayList<>(batchSize);
+            int afterId = 0;
+            List<Farmer> page;
+            do {
+                page = farmerStore.pageByDistrict(broadcast.district, afterId, PAGE_SIZE);
+                for (Farmer farmer : page) {
+                    afterId = farmer.id;
+                    broadcast.recipients.incrementAndGet();
+                    batch.add(new MessageGateway.Message(broadcast.adviceId + "-" + farmer.id, farmer.id,
+                        farmer.name, farmer.village, broadcast.text));
+                    if (batch.size() == batchSize) {
+                        enqueue(broadcast, batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            } while (page.size() == PAGE_SIZE);
+            if (!batch.isEmpty()) {
+                enqueue(broadcast, batch);
+            }
+        } catch (SQLException | InterruptedException e) {
+            Metrics.increment("broadcast.pagingErrors");
+            broadcast.pagingError = e;
+        } finally {
+            broadcast.pagingDone = true;
+            broadcast.maybeComplete();
+        }
+    }
+
+    private void enqueue(Broadcast broadcast, List<MessageGateway.Message> messages) throws InterruptedException {
+        broadcast.pendingBatches.incrementAndGet();
+        queue.put(new Batch(broadcast, messages));
+    }
+
+    private void work() {
+        while (true) {
+            Batch batch;
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                int sent = deliver(batch.messages);
+                if (sent >= 0) {
+                    batch.broadcast.sent.addAndGet(sent);
+                    batch.broadcast.alreadySent.addAndGet(batch.messages.size() - sent);
+                    Metrics.counter("broadcast.sent").add(sent);
+                    Metrics.counter("broadcast.alreadySent").add(batch.messages.size() - sent);
+                } else {
+                    batch.broadcast.failed.addAndGet(batch.messages.size());
+                    Metrics.counter("broadcast.failed").add(batch.messages.size());
+                }
+            } finally {
+                batch.broadcast.pendingBatches.decrementAndGet();
+                batch.broadcast.maybeComplete();
+            }
+        }
+    }
+
+    // How many messages the gateway sent once it accepts the batch, or -1
+    // after MAX_ATTEMPTS.
+    private int deliver(List<MessageGateway.Message> messages) {
+        long backoff = RETRY_BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            long startNanos = System.nanoTime();
+            try {
+                return gateway.send(messages);
+            } catch (IOException | RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    System.out.println("Broadcast batch dropped after " + attempt + " attempts: " + e.getMessage());
+                    return -1;
+                }
+            } finally {
+                SEND.recordSince(startNanos);
+            }
+            Metrics.increment("broadcast.retries");
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+            backoff *= 2;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int farmers = 50_000;
+        int workers = 4;
+        int batchSize = 500;
+        double failureRate = 0.05;
+        String outbox = "broadcast-outbox.log";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--farmers": farmers = Integer.parseInt(args[++i]); break;
+                case "--workers": workers = Integer.parseInt(args[++i]); break;
+                case "--batch": batchSize = Integer.parseInt(args[++i]); break;
+                case "--failure-rate": failureRate = Double.parseDouble(args[++i]); break;
+                case "--outbox": outbox = args[++i]; break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    return;
+            }
+        }
+
+        // Every farmer is placed in Almora so the whole population is one broadcast.
+        InMemoryFarmerStore store = new InMemoryFarmerStore();
+        Random random = new Random(42);
+        for (int i = 0; i < farmers; i++) {
+            store.register(DataGenerator.personName(random), DataGenerator.aadhaarFor(i), "Almora", "Village " + (i % 500));
+        }
+
+        BroadcastDispatcher dispatcher = new BroadcastDispatcher(store,
+            new FileMessageGateway(Paths.get(outbox), failureRate), workers, batchSize);
+        // Stamped so that a rerun against the same outbox is new advice.
+        String advice = "Aphid outbreak reported; inspect fields and spray neem oil. (" + java.time.Instant.now() + ")";
+        CompletableFuture<Summary> first = dispatcher.broadcast("Almora", "Wheat", advice);
+        CompletableFuture<Summary> repeat = dispatcher.broadcast("Almora", "Wheat", advice);
+        System.out.println(first.get());
+        System.out.println("Repeated request joined the running broadcast: " + (first == repeat));
+        System.out.println("Posted again after it finished: "
+            + dispatcher.broadcast("Almora", "Wheat", advice).get());
+        dispatcher.close();
+        System.out.print(Metrics.dump());
+    }
+}
@@ -0,0 +1,19 @@
+import java.sql.SQLException;
+
+// Serves advice from a kiosk bundle. The bundle is a read-only snapshot, so
+// experts cannot add advice on a kiosk running from one.
+class BundleAdviceStore implements AdviceStore {
+    private final KioskBundle bundle;
+
+    BundleAdviceStore(KioskBundle bundle) {
+        this.bundle = bundle;
+    }
+
+    public String findAdvice(String district, String crop) {
+        return bundle.advice(district, crop);
+    }
+
+    public void addAdvice(String district, String crop, String advice, int expertId) throws SQLException {
+        throw new SQLException("This kiosk runs from a read-only data bundle; add advice on the central system.");
+    }
+}
@@ -0,0 +1,228 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+// Binary deltas between two kiosk bundles, so a daily update over a slow link
+// carries only the bytes that changed. The old bundle is cut into BLOCK-byte
+// blocks indexed by a rolling checksum; the new bundle is scanned one byte at
+// a time for blocks the kiosk already has, and every match is verified and
+// extended both ways. What is left is sent literally.
+//
+// Delta layout (little-endian):
+//
+//        0  4  magic "CADL"
+//        4  4  format version (1)
+//        8  8  data version of the old bundle
+//       16  8  data version of the new bundle
+//       24  4  CRC32 of the whole old bundle
+//       28  4  CRC32 of the whole new bundle
+//       32  4  length of the new bundle
+//       36     operations, each a one-byte code:
+//                1 COPY     int offset, int length (bytes of the old bundle)
+//                2 LITERAL  int length, then length bytes
+//                0 END
+//
+//   java -cp bin BundleDelta diff <old.cabn> <new.cabn> <out.cadl>
+//   java -cp bin BundleDelta apply <bundle.cabn> <delta.cadl> [<out.cabn>]
+final class BundleDelta {
+
+    private static final int MAGIC = 0x4C444143;  // "CADL" read little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 36;
+    private static final int BLOCK = 32;
+
+    private static final byte END = 0;
+    private static final byte COPY = 1;
+    private static final byte LITERAL = 2;
+
+    private BundleDelta() {
+    }
+
+    static byte[] diff(byte[] from, byte[] to) {
+        // Block start offsets grouped by weak checksum, as a chained hash table.
+        int blocks = from.length / BLOCK;
+        int buckets = Integer.highestOneBit(Math.max(1, blocks) * 2);
+        int[] head = new int[buckets];
+        int[] next = new int[blocks];
+        Arrays.fill(head, -1);
+        for (int b = blocks - 1; b >= 0; b--) {
+            int bucket = mix(weak(from, b * BLOCK)) & (buckets - 1);
+            next[b] = head[bucket];
+            head[bucket] = b;
+        }
+
+        ByteBuffer out = header(from, to, 64 + to.length / 8);
+        int literalStart = 0;
+        int i = 0;
+        int a = 0, s = 0;  // rolling sums over to[i, i + BLOCK)
+        boolean rolling = false;
+        while (i + BLOCK <= to.length && blocks > 0) {
+            if (!rolling) {
+                a = 0;
+                s = 0;
+                for (int k = 0; k < BLOCK; k++) {
+                    a += to[i + k] & 0xFF;
+                    s += a;
+                }
+                rolling = true;
+            }
+            int match = -1;
+            for (int b = head[mix((s << 16) | (a & 0xFFFF)) & (buckets - 1)]; b >= 0; b = next[b]) {
+                if (equal(from, b * BLOCK, to, i, BLOCK)) {
+                    match = b * BLOCK;
+                    break;
+                }
+            }
+            if (match < 0) {
+                int leaving = to[i] & 0xFF;
+                if (i + BLOCK < to.length) {
+                    a += (to[i + BLOCK] & 0xFF) - leaving;
+                    s += a - BLOCK * leaving;
+                }
+                i++;
+                continue;
+            }
+
+            int start = i, source = match;
+            while (start > literalStart && source > 0 && from[source - 1] == to[start - 1]) {
+                start--;
+                source--;
+            }
+            int end = i + BLOCK, sourceEnd = match + BLOCK;
+            while (end < to.length && sourceEnd < from.length && from[sourceEnd] == to[end]) {
+                end++;
+                sourceEnd++;
+            }
+            out = literal(out, to, literalStart, start);
+            out = room(out, 9);
+            out.put(COPY).putInt(source).putInt(end - start);
+            i = end;
+            literalStart = end;
+            rolling = false;
+        }
+        out = literal(out, to, literalStart, to.length);
+        out = room(out, 1);
+        out.put(END);
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    static byte[] apply(byte[] from, byte[] delta) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(delta).order(ByteOrder.LITTLE_ENDIAN);
+        if (delta.length < HEADER_BYTES || in.getInt(0) != MAGIC || in.getInt(4) != VERSION) {
+            throw new IOException("Not a version " + VERSION + " bundle delta");
+        }
+        if (crc(from, from.length) != in.getInt(24)) {
+            throw new IOException("Delta is for bundle version " + in.getLong(8)
+                + ", which does not match the bundle on disk");
+        }
+        byte[] to = new byte[in.getInt(32)];
+        int written = 0;
+        in.position(HEADER_BYTES);
+        try {
+            for (byte op = in.get(); op != END; op = in.get()) {
+                int length;
+                if (op == COPY) {
+                    int offset = in.getInt();
+                    length = in.getInt();
+                    System.arraycopy(from, offset, to, written, length);
+                } else if (op == LITERAL) {
+                    length = in.getInt();
+                    in.get(to, written, length);
+                } else {
+                    throw new IOException("Corrupt delta: unknown operation " + op);
+                }
+                written += length;
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt delta: " + e, e);
+        }
+        if (written != to.length || crc(to, to.length) != in.getInt(28)) {
+            throw new IOException("Delta produced a bundle that fails its checksum");
+        }
+        return to;
+    }
+
+    private static ByteBuffer header(byte[] from, byte[] to, int capacity) {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + capacity).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putLong(dataVersion(from)).putLong(dataVersion(to))
+            .putInt(crc(from, from.length)).putInt(crc(to, to.length)).putInt(to.length);
+        return out;
+    }
+
+    private static long dataVersion(byte[] bundle) {
+        return bundle.length < KioskBundle.HEADER_BYTES ? 0
+            : ByteBuffer.wrap(bundle).order(ByteOrder.LITTLE_ENDIAN).getLong(8);
+    }
+
+    private static ByteBuffer literal(ByteBuffer out, byte[] to, int from, int end) {
+        if (end > from) {
+            out = room(out, 5 + end - from);
+            out.put(LITERAL).putInt(end - from).put(to, from, end - from);
+        }
+        return out;
+    }
+
+    private static ByteBuffer room(ByteBuffer out, int bytes) {
+        if (out.remaining() >= bytes) {
+            return out;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        out.flip();
+        return grown.put(out);
+    }
+
+    // The rsync weak checksum of data[at, at + BLOCK): the byte sum in the
+    // low 16 bits and the sum of running sums in the high 16.
+    private static int weak(byte[] data, int at) {
+        int a = 0, s = 0;
+        for (int k = 0; k < BLOCK; k++) {
+            a += data[at + k] & 0xFF;
+            s += a;
+        }
+        return (s << 16) | (a & 0xFFFF);
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equal(byte[] x, int xAt, byte[] y, int yAt, int length) {
+        for (int k = 0; k < length; k++) {
+            if (x[xAt + k] != y[yAt + k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int crc(byte[] data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        return (int) crc.getValue();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 4 && args[0].equals("diff")) {
+            byte[] from = Files.readAllBytes(Paths.get(args[1]));
+            byte[] to = Files.readAllBytes(Paths.get(args[2]));
+            long startNanos = System.nanoTime();
+            byte[] delta = diff(from, to);
+            BundleExporter.write(Paths.get(args[3]), delta);
+            System.out.printf("Wrote %s: %,d bytes for a %,d byte bundle (%.2f%%) in %d ms%n", args[3],
+                delta.length, to.length, 100.0 * delta.length / to.length, (System.nanoTime() - startNanos) / 1_000_000);
+        } else if ((args.length == 3 || args.length == 4) && args[0].equals("apply")) {
+            Path bundle = Paths.get(args[1]);
+            byte[] updated = apply(Files.readAllBytes(bundle), Files.readAllBytes(Paths.get(args[2])));
+            Path out = args.length == 4 ? Paths.get(args[3]) : bundle;
+            BundleExporter.write(out, updated);
+            System.out.println("Updated " + out + " to version " + dataVersion(updated));
+        } else {
+            System.err.println("Usage: BundleDelta diff <old> <new> <delta> | apply <bundle> <delta> [<out>]");
+        }
+    }
+}
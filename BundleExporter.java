@@ -0,0 +1,275 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.List;
+
+// Writes a kiosk bundle (layout in KioskBundle) from the live database, or
+// from the CSV files DataGenerator writes. Output is deterministic: the same
+// data and version give the same bytes, so BundleDelta only has to ship what
+// actually changed. Strings are laid out with names and addresses first and
+// advice texts last, so an edited advice text moves few references.
+//
+//   java -cp "bin:lib/*" BundleExporter [--out data/kiosk.cabn] [--version <n>] [--prices prices.csv]
+//   java -cp bin BundleExporter --from-csv data/generated [--out ...] [--version <n>] [--prices ...]
+final class BundleExporter {
+
+    // A growable little-endian buffer.
+    static final class Output {
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        private ByteBuffer room(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+            return buffer;
+        }
+
+        Output putShort(int v) { room(2).putShort((short) v); return this; }
+        Output putInt(int v) { room(4).putInt(v); return this; }
+        Output putLong(long v) { room(8).putLong(v); return this; }
+        Output putFloat(float v) { room(4).putFloat(v); return this; }
+        Output putDouble(double v) { room(8).putDouble(v); return this; }
+        Output put(byte[] bytes) { room(bytes.length).put(bytes); return this; }
+
+        int position() {
+            return buffer.position();
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+    }
+
+    private final Output strings = new Output();
+    private final Map<String, Integer> refs = new HashMap<>();
+
+    private BundleExporter() {
+    }
+
+    // Offset of s in the string heap, adding it on first use.
+    private int ref(String s) {
+        if (s == null) {
+            return -1;
+        }
+        Integer ref = refs.get(s);
+        if (ref == null) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("String of " + bytes.length + " bytes is too long for a bundle");
+            }
+            ref = strings.position();
+            strings.putShort(bytes.length).put(bytes);
+            refs.put(s, ref);
+        }
+        return ref;
+    }
+
+    // advice holds {district, crop, text} rows, at most one per pair.
+    static byte[] export(long version, Graph graph, List<String[]> advice, Map<String, Double> prices) {
+        return new BundleExporter().build(version, graph, advice, prices);
+    }
+
+    private byte[] build(long version, Graph graph, List<String[]> advice, Map<String, Double> prices) {
+        List<Location> nodes = new ArrayList<>(graph.adjacencyList.keySet());
+        nodes.sort(Comparator.<Location, String>comparing(l -> l.type).thenComparing(l -> l.name)
+            .thenComparingDouble(l -> l.latitude).thenComparingDouble(l -> l.longitude));
+        Map<Location, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            index.put(nodes.get(i), i);
+        }
+        List<String[]> sortedAdvice = new ArrayList<>(advice);
+        sortedAdvice.sort(Comparator.<String[], String>comparing(a -> a[0]).thenComparing(a -> a[1]));
+        List<String> crops = new ArrayList<>(prices.keySet());
+        Collections.sort(crops);
+
+        // Interned in the order they should sit in the heap.
+        int centreType = ref("GOVT_CENTER");
+        for (Location l : nodes) {
+            ref(l.name);
+            ref(l.type);
+            ref(l.address);
+            ref(l.contact);
+            ref(l.services);
+        }
+        crops.forEach(this::ref);
+        for (String[] a : sortedAdvice) {
+            ref(a[0]);
+            ref(a[1]);
+        }
+        for (String[] a : sortedAdvice) {
+            ref(a[2]);
+        }
+
+        Output body = new Output();
+        section(body, KioskBundle.STRINGS, strings.toByteArray());
+
+        Output out = new Output();
+        out.putInt(nodes.size()).putInt(centreType);
+        for (Location l : nodes) {
+            out.putDouble(l.latitude).putDouble(l.longitude).putInt(ref(l.name)).putInt(ref(l.type))
+                .putInt(ref(l.address)).putInt(ref(l.contact)).putInt(ref(l.services)).putFloat((float) l.elevation);
+        }
+        section(body, KioskBundle.NODES, out.toByteArray());
+
+        out = new Output();
+        int edgeCount = 0;
+        for (Location l : nodes) {
+            out.putInt(edgeCount);
+            edgeCount += graph.adjacencyList.get(l).size();
+        }
+        out.putInt(edgeCount);
+        for (Location l : nodes) {
+            List<Edge> sorted = new ArrayList<>(graph.adjacencyList.get(l));
+            sorted.sort(Comparator.<Edge>comparingInt(e -> index.get(e.destination)).thenComparingDouble(e -> e.minutes));
+            for (Edge e : sorted) {
+                out.putInt(index.get(e.destination)).putFloat((float) e.minutes);
+            }
+        }
+        section(body, KioskBundle.EDGES, out.toByteArray());
+
+        out = new Output();
+        out.putInt(crops.size());
+        for (String crop : crops) {
+            out.putInt(ref(crop)).putDouble(prices.get(crop));
+        }
+        section(body, KioskBundle.PRICES, out.toByteArray());
+
+        int slots = 1;
+        while (slots < sortedAdvice.size() * 2) {
+            slots <<= 1;
+        }
+        int[] table = new int[slots];
+        Arrays.fill(table, -1);
+        for (int r = 0; r < sortedAdvice.size(); r++) {
+            int slot = KioskBundle.adviceHash(sortedAdvice.get(r)[0], sortedAdvice.get(r)[1]) & (slots - 1);
+            while (table[slot] >= 0) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            table[slot] = r;
+        }
+        out = new Output();
+        out.putInt(slots);
+        for (int record : table) {
+            out.putInt(record);
+        }
+        out.putInt(sortedAdvice.size());
+        for (String[] a : sortedAdvice) {
+            out.putInt(ref(a[0])).putInt(ref(a[1])).putInt(ref(a[2]));
+        }
+        section(body, KioskBundle.ADVICE, out.toByteArray());
+
+        byte[] sections = body.toByteArray();
+        Output file = new Output();
+        file.putInt(KioskBundle.MAGIC).putInt(KioskBundle.FORMAT_VERSION).putLong(version)
+            .putInt(0).putInt(5).put(sections);
+        byte[] bytes = file.toByteArray();
+        ByteBuffer header = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(16, KioskBundle.checksum(header, KioskBundle.HEADER_BYTES, bytes.length));
+        return bytes;
+    }
+
+    private static void section(Output body, int type, byte[] payload) {
+        body.putInt(type).putInt(payload.length).put(payload);
+    }
+
+    // Written under a temporary name and moved into place, so a kiosk never
+    // opens a half-written bundle.
+    static void write(Path file, byte[] bytes) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Like the advice lookup, the first advice stored for a pair wins.
+    private static void addAdvice(Map<String, String[]> advice, String district, String crop, String text) {
+        advice.putIfAbsent(district + '\u0000' + crop, new String[] {district, crop, text});
+    }
+
+    static List<String[]> adviceFromDatabase() throws SQLException {
+        String sql = Boolean.getBoolean("cropadvisor.partitioned")
+            ? "SELECT d.name, a.crop, a.advice FROM advice_by_district a JOIN districts d ON d.id = a.district_id "
+                + "ORDER BY a.id"
+            : "SELECT district, crop, advice FROM advice ORDER BY id";
+        Map<String, String[]> advice = new LinkedHashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) {
+                addAdvice(advice, rs.getString(1), rs.getString(2), rs.getString(3));
+            }
+        }
+        return new ArrayList<>(advice.values());
+    }
+
+    static List<String[]> adviceFromCsv(Path file) throws IOException {
+        Map<String, String[]> advice = new LinkedHashMap<>();
+        RoadNetwork.forEachRow(file, row -> addAdvice(advice, row.get("district"), row.get("crop"), row.get("advice")));
+        return new ArrayList<>(advice.values());
+    }
+
+    // A "crop,price" file (price per quintal).
+    static Map<String, Double> pricesFromCsv(Path file) throws IOException {
+        Map<String, Double> prices = new HashMap<>();
+        RoadNetwork.forEachRow(file, row -> prices.put(row.get("crop"), Double.parseDouble(row.get("price"))));
+        return prices;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path out = Paths.get("data", "kiosk.cabn");
+        Path csvDir = null;
+        Path pricesFile = null;
+        long version = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out": out = Paths.get(args[++i]); break;
+                case "--from-csv": csvDir = Paths.get(args[++i]); break;
+                case "--prices": pricesFile = Paths.get(args[++i]); break;
+                case "--version": version = Long.parseLong(args[++i]); break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    return;
+            }
+        }
+
+        long startNanos = System.nanoTime();
+        Graph graph;
+        List<String[]> advice;
+        if (csvDir != null) {
+            graph = RoadNetwork.fromCsv(csvDir);
+            advice = adviceFromCsv(csvDir.resolve("advice.csv"));
+        } else {
+            graph = RoadNetwork.synthesized(Districts.NAMES);
+            advice = adviceFromDatabase();
+        }
+        Map<String, Double> prices = pricesFile == null ? Collections.emptyMap() : pricesFromCsv(pricesFile);
+
+        byte[] bytes = export(version, graph, advice, prices);
+        write(out, bytes);
+        int roads = 0;
+        for (List<Edge> edges : graph.adjacencyList.values()) {
+            roads += edges.size();
+        }
+        System.out.printf("Wrote %s: version %d, %,d nodes, %,d road edges, %,d advice, %,d prices, %,d bytes "
+                + "in %d ms%n", out, version, graph.adjacencyList.size(), roads, advice.size(), prices.size(),
+            bytes.length, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+}
@@ -0,0 +1,758 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.List;
+
+// Shortest travel times over the road graph, answered in microseconds. Nodes
+// are contracted one by one in order of importance; contracting a node adds
+// a shortcut between two of its neighbours wherever the only shortest path
+// between them ran through it. A query then only ever climbs to more
+// important nodes: a forward search from the source and a backward search
+// from the target meet at the top of the hierarchy.
+//
+// For "nearest centres", the backward search from every government centre is
+// run once at build time and its results are left in buckets on the nodes it
+// reaches, so a query is one small upward search that reads the buckets.
+//
+// The hierarchy is immutable. After travel times change (Graph.setTravelTime),
+// recontract() builds a new one with the same node order, which skips the
+// ordering pass; swap it in when it is ready.
+//
+//   java -cp bin ContractionHierarchy [--from-csv data/generated] [--queries 2000]
+final class ContractionHierarchy {
+    private static final LatencyHistogram BUILD = Metrics.histogram("routes.build");
+    private static final LatencyHistogram NEAREST_CENTRES = Metrics.histogram("op.routes.nearestCentres");
+
+    // A witness search gives up after settling this many nodes. A missed
+    // witness only adds a redundant shortcut, never a wrong time.
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    static final class Route {
+        final Location centre;
+        final double minutes;
+
+        Route(Location centre, double minutes) {
+            this.centre = centre;
+            this.minutes = minutes;
+        }
+    }
+
+    final Location[] nodes;
+    final int shortcuts;
+    private final Map<Location, Integer> ids;
+    private final int[] order;
+    // Arcs to more important nodes, by tail.
+    private final int[] upFirst;
+    private final int[] upTo;
+    private final double[] upMinutes;
+    // Arcs from more important nodes, by head (the backward search follows them tail-wards).
+    private final int[] downFirst;
+    private final int[] downFrom;
+    private final double[] downMinutes;
+    // Per node, the centres whose backward search reached it and the time from there.
+    private final Location[] centres;
+    private final int[] bucketFirst;
+    private final int[] bucketCentre;
+    private final double[] bucketMinutes;
+    private final ThreadLocal<Search> scratch;
+
+    private ContractionHierarchy(Location[] nodes, Map<Location, Integer> ids, int[] order, Contractor contractor) {
+        this.nodes = nodes;
+        this.ids = ids;
+        this.order = order;
+        this.shortcuts = contractor.shortcuts;
+        int n = nodes.length;
+        int[] rank = new int[n];
+        for (int k = 0; k < n; k++) {
+            rank[order[k]] = k;
+        }
+
+        upFirst = new int[n + 1];
+        downFirst = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            for (int a = 0; a < contractor.outCount[u]; a++) {
+                int x = contractor.outTo[u][a];
+                if (rank[x] > rank[u]) {
+                    upFirst[u + 1]++;
+                } else {
+                    downFirst[x + 1]++;
+                }
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            upFirst[v + 1] += upFirst[v];
+            downFirst[v + 1] += downFirst[v];
+        }
+        upTo = new int[upFirst[n]];
+        upMinutes = new double[upFirst[n]];
+        downFrom = new int[downFirst[n]];
+        downMinutes = new double[downFirst[n]];
+        int[] upNext = Arrays.copyOf(upFirst, n);
+        int[] downNext = Arrays.copyOf(downFirst, n);
+        for (int u = 0; u < n; u++) {
+            for (int a = 0; a < contractor.outCount[u]; a++) {
+                int x = contractor.outTo[u][a];
+                double w = contractor.outMinutes[u][a];
+                if (rank[x] > rank[u]) {
+                    upTo[upNext[u]] = x;
+                    upMinutes[upNext[u]++] = w;
+                } else {
+                    downFrom[downNext[x]] = u;
+                    downMinutes[downNext[x]++] = w;
+                }
+            }
+        }
+
+        List<Location> centreList = new ArrayList<>();
+        for (Location node : nodes) {
+            if (node.type.equals("GOVT_CENTER")) {
+                centreList.add(node);
+            }
+        }
+        centres = centreList.toArray(new Location[0]);
+        scratch = ThreadLocal.withInitial(() -> new Search(n, centres.length));
+
+        // Backward search from every centre; settled nodes get a bucket entry.
+        Search search = scratch.get();
+        int[][] reached = new int[centres.length][];
+        double[][] reachedMinutes = new double[centres.length][];
+        bucketFirst = new int[n + 1];
+        for (int c = 0; c < centres.length; c++) {
+            search.upward(ids.get(centres[c]), downFirst, downFrom, downMinutes, search.backward);
+            reached[c] = Arrays.copyOf(search.settled, search.settledCount);
+            reachedMinutes[c] = new double[search.settledCount];
+            for (int i = 0; i < search.settledCount; i++) {
+                reachedMinutes[c][i] = search.backward[search.settled[i]];
+                bucketFirst[search.settled[i] + 1]++;
+            }
+            search.reset();
+        }
+        for (int v = 0; v < n; v++) {
+            bucketFirst[v + 1] += bucketFirst[v];
+        }
+        bucketCentre = new int[bucketFirst[n]];
+        bucketMinutes = new double[bucketFirst[n]];
+        int[] bucketNext = Arrays.copyOf(bucketFirst, n);
+        for (int c = 0; c < centres.length; c++) {
+            for (int i = 0; i < reached[c].length; i++) {
+                int v = reached[c][i];
+                bucketCentre[bucketNext[v]] = c;
+                bucketMinutes[bucketNext[v]++] = reachedMinutes[c][i];
+            }
+        }
+    }
+
+    static ContractionHierarchy build(Graph graph) {
+        long startNanos = System.nanoTime();
+        Location[] nodes = graph.adjacencyList.keySet().toArray(new Location[0]);
+        Map<Location, Integer> ids = new IdentityHashMap<>();
+        for (int i = 0; i < nodes.length; i++) {
+            ids.put(nodes[i], i);
+        }
+        Contractor contractor = new Contractor(graph, nodes, ids);
+        int[] order = contractor.contractByPriority();
+        ContractionHierarchy hierarchy = new ContractionHierarchy(nodes, ids, order, contractor);
+        BUILD.recordSince(startNanos);
+        return hierarchy;
+    }
+
+    // A hierarchy for the graph's current travel times, contracting in this
+    // hierarchy's order. Falls back to a full build if nodes were added or
+    // removed since.
+    ContractionHierarchy recontract(Graph graph) {
+        if (graph.adjacencyList.size() != nodes.length || !ids.keySet().containsAll(graph.adjacencyList.keySet())) {
+            return build(graph);
+        }
+        long startNanos = System.nanoTime();
+        Contractor contractor = new Contractor(graph, nodes, ids);
+        for (int v : order) {
+            contractor.contract(v, true);
+        }
+        ContractionHierarchy hierarchy = new ContractionHierarchy(nodes, ids, order, contractor);
+        BUILD.recordSince(startNanos);
+        return hierarchy;
+    }
+
+    // Shortest travel time in minutes, or POSITIVE_INFINITY if to cannot be
+    // reached from from.
+    double minutes(Location from, Location to) {
+        Integer source = ids.get(from);
+        Integer target = ids.get(to);
+        if (source == null || target == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+        Search search = scratch.get();
+        try {
+            return search.meet(source, target, this);
+        } finally {
+            search.reset();
+        }
+    }
+
+    // Government centres by travel time from a node of the graph.
+    List<Route> nearestCentres(Location from, int limit) {
+        long startNanos = System.nanoTime();
+        Integer source = ids.get(from);
+        if (source == null) {
+            return Collections.emptyList();
+        }
+        Search search = scratch.get();
+        try {
+            search.upward(source, upFirst, upTo, upMinutes, search.forward);
+            for (int i = 0; i < search.settledCount; i++) {
+                int v = search.settled[i];
+                double d = search.forward[v];
+                for (int b = bucketFirst[v]; b < bucketFirst[v + 1]; b++) {
+                    int c = bucketCentre[b];
+                    double total = d + bucketMinutes[b];
+                    if (total < search.best[c]) {
+                        if (search.best[c] == Double.POSITIVE_INFINITY) {
+                            search.found[search.foundCount++] = c;
+                        }
+                        search.best[c] = total;
+                    }
+                }
+            }
+            // Insertion into a short sorted list beats sorting every centre found.
+            int count = 0;
+            int[] top = new int[limit];
+            double[] best = search.best;
+            for (int i = 0; i < search.foundCount; i++) {
+                int c = search.found[i];
+                if (count == limit && best[c] >= best[top[count - 1]]) {
+                    continue;
+                }
+                int j = count < limit ? count++ : count - 1;
+                while (j > 0 && best[top[j - 1]] > best[c]) {
+                    top[j] = top[j - 1];
+                    j--;
+                }
+                top[j] = c;
+            }
+            List<Route> routes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                routes.add(new Route(centres[top[i]], best[top[i]]));
+            }
+            return routes;
+        } finally {
+            search.reset();
+            for (int i = 0; i < search.foundCount; i++) {
+                search.best[search.found[i]] = Double.POSITIVE_INFINITY;
+            }
+            search.foundCount = 0;
+            NEAREST_CENTRES.recordSince(startNanos);
+        }
+    }
+
+    // Average number of nodes an upward search settles, a measure of query cost.
+    double averageSearchSpace() {
+        Search search = scratch.get();
+        long total = 0;
+        for (int v = 0; v < nodes.length; v++) {
+            search.upward(v, upFirst, upTo, upMinutes, search.forward);
+            total += search.settledCount;
+            search.reset();
+        }
+        return nodes.length == 0 ? 0 : (double) total / nodes.length;
+    }
+
+    // Per-thread query state. Distance arrays are reset through the list of
+    // touched nodes rather than refilled.
+    private static final class Search {
+        final double[] forward;
+        final double[] backward;
+        final double[] best;
+        final int[] found;
+        int foundCount;
+        int[] settled = new int[64];
+        int settledCount;
+        int[] touched = new int[64];
+        int touchedCount;
+        final MinHeap heap = new MinHeap();
+        final MinHeap otherHeap = new MinHeap();
+
+        Search(int nodes, int centres) {
+            forward = new double[nodes];
+            backward = new double[nodes];
+            best = new double[centres];
+            found = new int[centres];
+            Arrays.fill(forward, Double.POSITIVE_INFINITY);
+            Arrays.fill(backward, Double.POSITIVE_INFINITY);
+            Arrays.fill(best, Double.POSITIVE_INFINITY);
+        }
+
+        // Full Dijkstra from source over one direction of the hierarchy,
+        // recording settled nodes in order.
+        void upward(int source, int[] first, int[] to, double[] minutes, double[] dist) {
+            settledCount = 0;
+            heap.clear();
+            touch(source);
+            dist[source] = 0;
+            heap.add(0, source);
+            while (!heap.isEmpty()) {
+                double d = heap.peekKey();
+                int v = heap.poll();
+                if (d > dist[v]) {
+                    continue;
+                }
+                if (settledCount == settled.length) {
+                    settled = Arrays.copyOf(settled, settledCount * 2);
+                }
+                settled[settledCount++] = v;
+                for (int a = first[v]; a < first[v + 1]; a++) {
+                    int x = to[a];
+                    double next = d + minutes[a];
+                    if (next < dist[x]) {
+                        if (dist[x] == Double.POSITIVE_INFINITY) {
+                            touch(x);
+                        }
+                        dist[x] = next;
+                        heap.add(next, x);
+                    }
+                }
+            }
+        }
+
+        // Bidirectional upward search; stops each side once it can no longer
+        // improve the best meeting point.
+        double meet(int source, int target, ContractionHierarchy h) {
+            heap.clear();
+            otherHeap.clear();
+            touch(source);
+            touch(target);
+            forward[source] = 0;
+            backward[target] = 0;
+            heap.add(0, source);
+            otherHeap.add(0, target);
+            double best = source == target ? 0 : Double.POSITIVE_INFINITY;
+            while (true) {
+                boolean forwardLive = !heap.isEmpty() && heap.peekKey() < best;
+                boolean backwardLive = !otherHeap.isEmpty() && otherHeap.peekKey() < best;
+                if (!forwardLive && !backwardLive) {
+                    return best;
+                }
+                if (forwardLive) {
+                    best = step(heap, forward, backward, h.upFirst, h.upTo, h.upMinutes, best);
+                }
+                if (backwardLive) {
+                    best = step(otherHeap, backward, forward, h.downFirst, h.downFrom, h.downMinutes, best);
+                }
+            }
+        }
+
+        private double step(MinHeap queue, double[] dist, double[] other, int[] first, int[] to, double[] minutes,
+                            double best) {
+            double d = queue.peekKey();
+            int v = queue.poll();
+            if (d > dist[v]) {
+                return best;
+            }
+            best = Math.min(best, d + other[v]);
+            for (int a = first[v]; a < first[v + 1]; a++) {
+                int x = to[a];
+                double next = d + minutes[a];
+                if (next < dist[x]) {
+                    if (forward[x] == Double.POSITIVE_INFINITY && backward[x] == Double.POSITIVE_INFINITY) {
+                        touch(x);
+                    }
+                    dist[x] = next;
+                    queue.add(next, x);
+                }
+            }
+            return best;
+        }
+
+        private void touch(int v) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = v;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                forward[touched[i]] = Double.POSITIVE_INFINITY;
+                backward[touched[i]] = Double.POSITIVE_INFINITY;
+            }
+            touchedCount = 0;
+        }
+    }
+
+    // Binary min-heap of (double key, int value) with lazy deletion by the caller.
+    private static final class MinHeap {
+        private double[] keys = new double[64];
+        private int[] values = new int[64];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double peekKey() {
+            return keys[0];
+        }
+
+        void add(double key, int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[i] = keys[parent];
+                values[i] = values[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int poll() {
+            int top = values[0];
+            double key = keys[--size];
+            int value = values[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (key <= keys[child]) {
+                    break;
+                }
+                keys[i] = keys[child];
+                values[i] = values[child];
+                i = child;
+            }
+            keys[i] = key;
+            values[i] = value;
+            return top;
+        }
+    }
+
+    // The graph as growable arc lists while nodes are contracted. Arcs are
+    // never removed; contracted nodes are skipped instead, and at the end the
+    // lists hold every original arc and shortcut.
+    private static final class Contractor {
+        final int n;
+        int[][] outTo;
+        double[][] outMinutes;
+        int[] outCount;
+        int[][] inFrom;
+        double[][] inMinutes;
+        int[] inCount;
+        final boolean[] contracted;
+        final int[] contractedNeighbours;
+        int shortcuts;
+
+        private final double[] dist;
+        private int[] touched = new int[64];
+        private int touchedCount;
+        private final MinHeap heap = new MinHeap();
+        private int[] pendingFrom = new int[16];
+        private int[] pendingTo = new int[16];
+        private double[] pendingMinutes = new double[16];
+
+        Contractor(Graph graph, Location[] nodes, Map<Location, Integer> ids) {
+            n = nodes.length;
+            outTo = new int[n][];
+            outMinutes = new double[n][];
+            outCount = new int[n];
+            inFrom = new int[n][];
+            inMinutes = new double[n][];
+            inCount = new int[n];
+            for (int v = 0; v < n; v++) {
+                outTo[v] = new int[4];
+                outMinutes[v] = new double[4];
+                inFrom[v] = new int[4];
+                inMinutes[v] = new double[4];
+            }
+            contracted = new boolean[n];
+            contractedNeighbours = new int[n];
+            dist = new double[n];
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+            for (int u = 0; u < n; u++) {
+                for (Edge edge : graph.adjacencyList.get(nodes[u])) {
+                    Integer x = ids.get(edge.destination);
+                    if (x != null && x != u && edge.minutes < Double.POSITIVE_INFINITY) {
+                        addArc(u, x, edge.minutes);
+                    }
+                }
+            }
+        }
+
+        // Adds u -> x, or lowers its time if the arc exists.
+        void addArc(int u, int x, double minutes) {
+            for (int a = 0; a < outCount[u]; a++) {
+                if (outTo[u][a] == x) {
+                    if (minutes < outMinutes[u][a]) {
+                        outMinutes[u][a] = minutes;
+                        for (int b = 0; b < inCount[x]; b++) {
+                            if (inFrom[x][b] == u) {
+                                inMinutes[x][b] = minutes;
+                            }
+                        }
+                    }
+                    return;
+                }
+            }
+            if (outCount[u] == outTo[u].length) {
+                outTo[u] = Arrays.copyOf(outTo[u], outCount[u] * 2);
+                outMinutes[u] = Arrays.copyOf(outMinutes[u], outCount[u] * 2);
+            }
+            outTo[u][outCount[u]] = x;
+            outMinutes[u][outCount[u]++] = minutes;
+            if (inCount[x] == inFrom[x].length) {
+                inFrom[x] = Arrays.copyOf(inFrom[x], inCount[x] * 2);
+                inMinutes[x] = Arrays.copyOf(inMinutes[x], inCount[x] * 2);
+            }
+            inFrom[x][inCount[x]] = u;
+            inMinutes[x][inCount[x]++] = minutes;
+        }
+
+        // Orders nodes by edge difference (shortcuts added minus arcs removed)
+        // plus contracted neighbours, which keeps contraction spread evenly
+        // over the graph. Priorities are recomputed lazily when popped.
+        int[] contractByPriority() {
+            PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) ->
+                a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+            for (int v = 0; v < n; v++) {
+                queue.add(new long[] {priority(v), v});
+            }
+            int[] order = new int[n];
+            int k = 0;
+            while (!queue.isEmpty()) {
+                int v = (int) queue.poll()[1];
+                long priority = priority(v);
+                if (!queue.isEmpty() && priority > queue.peek()[0]) {
+                    queue.add(new long[] {priority, v});
+                    continue;
+                }
+                contract(v, true);
+                order[k++] = v;
+            }
+            return order;
+        }
+
+        private long priority(int v) {
+            int degree = 0;
+            for (int a = 0; a < outCount[v]; a++) {
+                degree += contracted[outTo[v][a]] ? 0 : 1;
+            }
+            for (int a = 0; a < inCount[v]; a++) {
+                degree += contracted[inFrom[v][a]] ? 0 : 1;
+            }
+            return contract(v, false) - degree + contractedNeighbours[v];
+        }
+
+        // Counts, and if apply is set adds, the shortcuts needed to take v
+        // out of the remaining graph.
+        int contract(int v, boolean apply) {
+            int pending = 0;
+            for (int i = 0; i < inCount[v]; i++) {
+                int u = inFrom[v][i];
+                if (contracted[u]) {
+                    continue;
+                }
+                double toV = inMinutes[v][i];
+                double limit = 0;
+                for (int j = 0; j < outCount[v]; j++) {
+                    int x = outTo[v][j];
+                    if (!contracted[x] && x != u) {
+                        limit = Math.max(limit, toV + outMinutes[v][j]);
+                    }
+                }
+                if (limit == 0) {
+                    continue;
+                }
+                witness(u, v, limit);
+                for (int j = 0; j < outCount[v]; j++) {
+                    int x = outTo[v][j];
+                    double via = toV + outMinutes[v][j];
+                    if (!contracted[x] && x != u && dist[x] > via) {
+                        if (pending == pendingFrom.length) {
+                            pendingFrom = Arrays.copyOf(pendingFrom, pending * 2);
+                            pendingTo = Arrays.copyOf(pendingTo, pending * 2);
+                            pendingMinutes = Arrays.copyOf(pendingMinutes, pending * 2);
+                        }
+                        pendingFrom[pending] = u;
+                        pendingTo[pending] = x;
+                        pendingMinutes[pending++] = via;
+                    }
+                }
+                for (int t = 0; t < touchedCount; t++) {
+                    dist[touched[t]] = Double.POSITIVE_INFINITY;
+                }
+                touchedCount = 0;
+            }
+            if (apply) {
+                for (int p = 0; p < pending; p++) {
+                    addArc(pendingFrom[p], pendingTo[p], pendingMinutes[p]);
+                }
+                shortcuts += pending;
+                contracted[v] = true;
+                for (int a = 0; a < outCount[v]; a++) {
+                    contractedNeighbours[outTo[v][a]]++;
+                }
+                for (int a = 0; a < inCount[v]; a++) {
+                    contractedNeighbours[inFrom[v][a]]++;
+                }
+            }
+            return pending;
+        }
+
+        // Bounded Dijkstra from u through the remaining graph without v.
+        private void witness(int u, int v, double limit) {
+            heap.clear();
+            dist[u] = 0;
+            touched[touchedCount++] = u;
+            heap.add(0, u);
+            int settled = 0;
+            while (!heap.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+                double d = heap.peekKey();
+                int y = heap.poll();
+                if (d > dist[y]) {
+                    continue;
+                }
+                if (d > limit) {
+                    break;
+                }
+                settled++;
+                for (int a = 0; a < outCount[y]; a++) {
+                    int z = outTo[y][a];
+                    if (z == v || contracted[z]) {
+                        continue;
+                    }
+                    double next = d + outMinutes[y][a];
+                    if (next < dist[z]) {
+                        if (dist[z] == Double.POSITIVE_INFINITY) {
+                            if (touchedCount == touched.length) {
+                                touched = Arrays.copyOf(touched, touchedCount * 2);
+                            }
+                            touched[touchedCount++] = z;
+                        }
+                        dist[z] = next;
+                        heap.add(next, z);
+                    }
+                }
+            }
+        }
+    }
+
+    // Plain Dijkstra over the graph's travel times, as a check on the hierarchy.
+    static Map<Location, Double> referenceMinutes(Graph graph, Location from) {
+        Map<Location, Double> dist = new HashMap<>();
+        PriorityQueue<Object[]> queue = new PriorityQueue<>(Comparator.comparingDouble(e -> (Double) e[0]));
+        dist.put(from, 0.0);
+        queue.add(new Object[] {0.0, from});
+        while (!queue.isEmpty()) {
+            Object[] top = queue.poll();
+            double d = (Double) top[0];
+            Location v = (Location) top[1];
+            if (d > dist.get(v)) {
+                continue;
+            }
+            for (Edge edge : graph.adjacencyList.get(v)) {
+                double next = d + edge.minutes;
+                if (next < dist.getOrDefault(edge.destination, Double.POSITIVE_INFINITY)) {
+                    dist.put(edge.destination, next);
+                    queue.add(new Object[] {next, edge.destination});
+                }
+            }
+        }
+        return dist;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String csvDir = null;
+        int queries = 2000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--from-csv": csvDir = args[++i]; break;
+                case "--queries": queries = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    return;
+            }
+        }
+        Graph graph = csvDir != null ? RoadNetwork.fromCsv(Paths.get(csvDir))
+            : new DataGenerator(42, 1230, 20).buildGraph(null);
+
+        long startNanos = System.nanoTime();
+        ContractionHierarchy hierarchy = build(graph);
+        System.out.printf("Built hierarchy over %,d nodes in %d ms: %,d shortcuts, %.0f nodes per upward search, "
+                + "%,d bucket entries%n", hierarchy.nodes.length, (System.nanoTime() - startNanos) / 1_000_000,
+            hierarchy.shortcuts, hierarchy.averageSearchSpace(), hierarchy.bucketCentre.length);
+        report(graph, hierarchy, queries);
+
+        // Monsoon: village roads in the hill districts run at a third of their speed.
+        int slowed = 0;
+        for (Map.Entry<Location, List<Edge>> entry : graph.adjacencyList.entrySet()) {
+            for (Edge edge : entry.getValue()) {
+                if (edge.roadClass == TravelTime.RoadClass.VILLAGE_ROAD && entry.getKey().elevation > 1000) {
+                    edge.minutes *= 3;
+                    slowed++;
+                }
+            }
+        }
+        startNanos = System.nanoTime();
+        hierarchy = hierarchy.recontract(graph);
+        System.out.printf("Slowed %,d road directions; recontracted in %d ms%n", slowed,
+            (System.nanoTime() - startNanos) / 1_000_000);
+        report(graph, hierarchy, queries);
+    }
+
+    private static void report(Graph graph, ContractionHierarchy hierarchy, int queries) {
+        Random random = new Random(7);
+        Location[] nodes = hierarchy.nodes;
+        int mismatches = 0;
+        for (int q = 0; q < 20; q++) {
+            Location from = nodes[random.nextInt(nodes.length)];
+            Map<Location, Double> reference = referenceMinutes(graph, from);
+            for (int k = 0; k < 20; k++) {
+                Location to = nodes[random.nextInt(nodes.length)];
+                double expected = reference.getOrDefault(to, Double.POSITIVE_INFINITY);
+                if (Math.abs(hierarchy.minutes(from, to) - expected) > 1e-6 * Math.max(1, expected)) {
+                    mismatches++;
+                }
+            }
+            double[] centreMinutes = reference.entrySet().stream()
+                .filter(e -> e.getKey().type.equals("GOVT_CENTER"))
+                .mapToDouble(Map.Entry::getValue).sorted().limit(5).toArray();
+            List<Route> routes = hierarchy.nearestCentres(from, 5);
+            if (routes.size() != centreMinutes.length) {
+                mismatches++;
+            }
+            for (int k = 0; k < Math.min(routes.size(), centreMinutes.length); k++) {
+                if (Math.abs(routes.get(k).minutes - centreMinutes[k]) > 1e-6 * Math.max(1, centreMinutes[k])
+                        || Math.abs(routes.get(k).minutes - reference.get(routes.get(k).centre)) > 1e-6 * Math.max(1, centreMinutes[k])) {
+                    mismatches++;
+                }
+            }
+        }
+        System.out.println("  checked against Dijkstra: " + mismatches + " mismatches");
+
+        long startNanos = System.nanoTime();
+        for (int q = 0; q < queries; q++) {
+            hierarchy.minutes(nodes[random.nextInt(nodes.length)], nodes[random.nextInt(nodes.length)]);
+        }
+        double pointToPoint = (System.nanoTime() - startNanos) / 1e3 / queries;
+        startNanos = System.nanoTime();
+        for (int q = 0; q < queries; q++) {
+            hierarchy.nearestCentres(nodes[random.nextInt(nodes.length)], 5);
+        }
+        double nearest = (System.nanoTime() - startNanos) / 1e3 / queries;
+        System.out.printf("  point-to-point %.1f us, nearest 5 centres %.1f us%n", pointToPoint, nearest);
+    }
+}
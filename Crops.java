@@ -0,0 +1,29 @@
+import java.util.HashMap;
+import java.util.Map;
+
+// The crops the app gives advice for. A crop's id is its index in NAMES.
+// The event log stores these ids on disk and the suitability tables are laid
+// out in this order, so new crops go at the end.
+final class Crops {
+
+    static final String[] NAMES = {"Wheat", "Rice", "Sugarcane", "Tomato", "Maize"};
+
+    static final int COUNT = NAMES.length;
+
+    private static final Map<String, Integer> IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < COUNT; i++) {
+            IDS.put(NAMES[i], i);
+        }
+    }
+
+    private Crops() {
+    }
+
+    // Returns the crop id for a name, or -1 if it is not one of NAMES.
+    static int id(String name) {
+        Integer id = IDS.get(name);
+        return id == null ? -1 : id;
+    }
+}
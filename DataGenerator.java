@@ -0,0 +1,412 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.List;
+
+// Produces reproducible, Uttarakhand-scale synthetic data for sizing and load
+// tests: villages scattered around each district headquarters, a road network
+// joining them, extra government centres, and large farmers/experts/advice
+// tables. The same seed always yields the same data. CSV output matches the
+// column order of the MySQL tables so it can be loaded with LOAD DATA INFILE.
+//
+//   java -cp bin DataGenerator --out data/generated [--seed 42]
+//        [--villages-per-district 1230] [--centres-per-district 20]
+//        [--farmers 1000000] [--experts 500] [--advice 200000]
+public class DataGenerator {
+
+    // Population share per district, in Districts.NAMES order.
+    static final double[] POPULATION_WEIGHT = {
+        6.2, 3.9, 2.6, 2.6, 16.9, 19.3, 9.5, 6.9, 4.8, 2.4, 6.2, 16.5, 3.3
+    };
+
+    private static final double VILLAGE_SPREAD_DEGREES = 0.22;
+    private static final DateTimeFormatter SQL_DATETIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String[] NAME_PREFIXES = {
+        "Bhim", "Dhar", "Gop", "Kand", "Lal", "Mal", "Nai", "Pal", "Ran", "Sem",
+        "Tal", "Uda", "Chau", "Jhal", "Kot", "Bagh", "Dev", "Har", "Sit", "Ram"
+    };
+    private static final String[] NAME_SUFFIXES = {
+        "gaon", "kot", "dhar", "khal", "pur", "sera", "tal", "pani", "gad", "bagar", "oli", "ana"
+    };
+    private static final String[] FIRST_NAMES = {
+        "Ramesh", "Suresh", "Geeta", "Kamla", "Mohan", "Deepa", "Harish", "Pushpa", "Bhagat", "Kavita",
+        "Govind", "Lakshmi", "Naveen", "Sunita", "Prakash", "Rekha", "Dinesh", "Meena", "Kundan", "Asha"
+    };
+    private static final String[] LAST_NAMES = {
+        "Rawat", "Negi", "Bisht", "Joshi", "Pant", "Bhatt", "Rana", "Chauhan", "Panwar", "Kandpal",
+        "Tiwari", "Bhandari", "Mehra", "Adhikari", "Semwal"
+    };
+    private static final String[] ADVICE_TEMPLATES = {
+        "Sow %s after the first good rain; keep 20 cm row spacing in %s.",
+        "Apply farmyard manure before sowing %s; %s soils are low in organic carbon.",
+        "Watch for aphids on %s this week in %s and spray neem oil if needed.",
+        "Use certified %s seed from the block office in %s.",
+        "Irrigate %s at crown root stage; expect dry spell in %s."
+    };
+
+    static class Village {
+        final int id;
+        final int district;
+        final String name;
+        final double latitude;
+        final double longitude;
+        final int elevation;
+
+        Village(int id, int district, String name, double latitude, double longitude, int elevation) {
+            this.id = id;
+            this.district = district;
+            this.name = name;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.elevation = elevation;
+        }
+    }
+
+    final long seed;
+    final int villagesPerDistrict;
+    final int centresPerDistrict;
+
+    final List<Village> villages = new ArrayList<>();
+    final List<Location> centres = new ArrayList<>();
+    final int[] centreDistricts;
+    // Road edges as pairs of node keys: V<village id>, C<centre index> or D<district id>.
+    final List<String[]> roads = new ArrayList<>();
+
+    private final double[] cumulativeWeight = new double[Districts.COUNT];
+    private final int[] firstVillageOfDistrict = new int[Districts.COUNT + 1];
+
+    DataGenerator(long seed, int villagesPerDistrict, int centresPerDistrict) {
+        this.seed = seed;
+        this.villagesPerDistrict = villagesPerDistrict;
+        this.centresPerDistrict = centresPerDistrict;
+        this.centreDistricts = new int[Districts.COUNT * centresPerDistrict];
+
+        double total = 0;
+        for (int d = 0; d < Districts.COUNT; d++) {
+            total += POPULATION_WEIGHT[d];
+            cumulativeWeight[d] = total;
+        }
+        for (int d = 0; d < Districts.COUNT; d++) {
+            cumulativeWeight[d] /= total;
+        }
+        generateGeography();
+    }
+
+    private void generateGeography() {
+        Random random = new Random(seed);
+        Set<String> usedNames = new HashSet<>();
+
+        for (int d = 0; d < Districts.COUNT; d++) {
+            firstVillageOfDistrict[d] = villages.size();
+            for (int i = 0; i < villagesPerDistrict; i++) {
+                String name = villageName(random, usedNames);
+                double lat = Districts.LATITUDES[d] + random.nextGaussian() * VILLAGE_SPREAD_DEGREES / 2;
+                double lon = Districts.LONGITUDES[d] + random.nextGaussian() * VILLAGE_SPREAD_DEGREES / 2;
+                int elevation = (int) Math.max(150, Districts.ELEVATIONS[d] + random.nextGaussian() * 400);
+                villages.add(new Village(villages.size(), d, name, lat, lon, elevation));
+            }
+        }
+        firstVillageOfDistrict[Districts.COUNT] = villages.size();
+
+        String[][] centreKinds = {
+            {"Krishi Vigyan Kendra", "Crop Research, Training, Soil Testing"},
+            {"Block Agriculture Office", "Subsidies, Schemes, Technical Support"},
+            {"Soil Testing Lab", "Soil Analysis, Fertilizer Recommendations"},
+            {"Horticulture Mobile Unit", "Fruit/Vegetable Cultivation, Plant Protection"},
+            {"Seed Store", "Certified Seed Sales"}
+        };
+        for (int d = 0; d < Districts.COUNT; d++) {
+            for (int i = 0; i < centresPerDistrict; i++) {
+                Village near = villages.get(firstVillageOfDistrict[d] + random.nextInt(villagesPerDistrict));
+                String[] kind = centreKinds[i % centreKinds.length];
+                centreDistricts[centres.size()] = d;
+                centres.add(new Location(
+                    kind[0] + " - " + near.name,
+                    near.latitude + (random.nextDouble() - 0.5) * 0.01,
+                    near.longitude + (random.nextDouble() - 0.5) * 0.01,
+                    "GOVT_CENTER",
+                    near.name + ", " + Districts.NAMES[d],
+                    "1800-180-" + (1000 + random.nextInt(9000)),
+                    kind[1],
+                    near.elevation));
+            }
+        }
+
+        generateRoads(random);
+    }
+
+    // Villages in a district are chained in latitude order (valleys run
+    // roughly north-south) with a few shortcut links; centres and the
+    // headquarters connect to their nearest villages; headquarters within
+    // 100 km of each other are linked as in the app's own network.
+    private void generateRoads(Random random) {
+        for (int d = 0; d < Districts.COUNT; d++) {
+            List<Village> inDistrict = new ArrayList<>(
+                villages.subList(firstVillageOfDistrict[d], firstVillageOfDistrict[d + 1]));
+            inDistrict.sort(Comparator.comparingDouble(v -> v.latitude));
+            for (int i = 1; i < inDistrict.size(); i++) {
+                roads.add(new String[] {"V" + inDistrict.get(i).id, "V" + inDistrict.get(i - 1).id});
+                if (i >= 3 && random.nextInt(3) == 0) {
+                    int back = 2 + random.nextInt(Math.min(i, 10) - 1);
+                    roads.add(new String[] {"V" + inDistrict.get(i).id, "V" + inDistrict.get(i - back).id});
+                }
+            }
+            for (int v : nearestVillages(d, Districts.LATITUDES[d], Districts.LONGITUDES[d], 3)) {
+                roads.add(new String[] {"D" + d, "V" + v});
+            }
+        }
+        for (int c = 0; c < centres.size(); c++) {
+            Location centre = centres.get(c);
+            for (int v : nearestVillages(centreDistricts[c], centre.latitude, centre.longitude, 2)) {
+                roads.add(new String[] {"C" + c, "V" + v});
+            }
+        }
+        for (int i = 0; i < Districts.COUNT; i++) {
+            for (int j = i + 1; j < Districts.COUNT; j++) {
+                double distance = Graph.calculateDistance(
+                    Districts.LATITUDES[i], Districts.LONGITUDES[i],
+                    Districts.LATITUDES[j], Districts.LONGITUDES[j]);
+                if (distance < 100) {
+                    roads.add(new String[] {"D" + i, "D" + j});
+                }
+            }
+        }
+    }
+
+    private int[] nearestVillages(int district, double lat, double lon, int count) {
+        int from = firstVillageOfDistrict[district];
+        int to = firstVillageOfDistrict[district + 1];
+        Integer[] ids = new Integer[to - from];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = from + i;
+        }
+        Arrays.sort(ids, Comparator.comparingDouble(id -> {
+            Village v = villages.get(id);
+            double dLat = v.latitude - lat;
+            double dLon = v.longitude - lon;
+            return dLat * dLat + dLon * dLon;
+        }));
+        int[] nearest = new int[Math.min(count, ids.length)];
+        for (int i = 0; i < nearest.length; i++) {
+            nearest[i] = ids[i];
+        }
+        return nearest;
+    }
+
+    // Builds the full road graph. villageNodes receives the Location created
+    // for each village, indexed by village id.
+    Graph buildGraph(Location[] villageNodes) {
+        Graph graph = new Graph();
+        Map<String, Location> nodes = new HashMap<>();
+        for (int d = 0; d < Districts.COUNT; d++) {
+            Location hq = new Location(Districts.NAMES[d], Districts.LATITUDES[d], Districts.LONGITUDES[d],
+                "DISTRICT", Districts.HEADQUARTERS[d], "", "", Districts.ELEVATIONS[d]);
+            nodes.put("D" + d, hq);
+        }
+        for (Village v : villages) {
+            Location loc = new Location(v.name, v.latitude, v.longitude, "VILLAGE",
+                v.name + ", " + Districts.NAMES[v.district], "", "", v.elevation);
+            nodes.put("V" + v.id, loc);
+            if (villageNodes != null) {
+                villageNodes[v.id] = loc;
+            }
+        }
+        for (int c = 0; c < centres.size(); c++) {
+            nodes.put("C" + c, centres.get(c));
+        }
+        for (Location loc : nodes.values()) {
+            graph.addLocation(loc);
+        }
+        for (String[] road : roads) {
+            graph.addRoad(nodes.get(road[0]), nodes.get(road[1]));
+        }
+        return graph;
+    }
+
+    int randomDistrict(Random random) {
+        double r = random.nextDouble();
+        for (int d = 0; d < Districts.COUNT; d++) {
+            if (r < cumulativeWeight[d]) {
+                return d;
+            }
+        }
+        return Districts.COUNT - 1;
+    }
+
+    Village randomVillage(Random random, int district) {
+        return villages.get(firstVillageOfDistrict[district] + random.nextInt(villagesPerDistrict));
+    }
+
+    // Unique, reproducible 12-digit Aadhaar-style number for the i-th farmer:
+    // multiplication by a prime coprime to 9e11 permutes [0, 9e11).
+    static String aadhaarFor(long i) {
+        long n = 100_000_000_000L + Math.floorMod(i * 982_451_653L, 900_000_000_000L);
+        return Long.toString(n);
+    }
+
+    static String personName(Random random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+            + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    // Random prefix+suffix names, then numbered variants 2-99 of them. Those
+    // run out at about 24,000 names, so after MAX_NAME_ATTEMPTS misses a
+    // name gets a counter suffix from 100 up, which is always new.
+    private static final int MAX_NAME_ATTEMPTS = 100;
+
+    private static String villageName(Random random, Set<String> used) {
+        String name = null;
+        for (int attempt = 0; attempt < MAX_NAME_ATTEMPTS; attempt++) {
+            name = NAME_PREFIXES[random.nextInt(NAME_PREFIXES.length)]
+                + NAME_SUFFIXES[random.nextInt(NAME_SUFFIXES.length)];
+            if (used.add(name)) {
+                return name;
+            }
+            String numbered = name + " " + (2 + random.nextInt(98));
+            if (used.add(numbered)) {
+                return numbered;
+            }
+        }
+        String counted = name + " " + (100 + used.size());
+        used.add(counted);
+        return counted;
+    }
+
+    static String adviceText(Random random, String district, String crop) {
+        return String.format(ADVICE_TEMPLATES[random.nextInt(ADVICE_TEMPLATES.length)], crop, district);
+    }
+
+    // Rainfall and soil use their own random stream so adding them left the
+    // rest of the data for a given seed unchanged.
+    void writeVillages(Path file) throws IOException {
+        Random random = new Random(seed * 31 + 4);
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("id,district,name,latitude,longitude,elevation,rainfall,soil\n");
+            for (Village v : villages) {
+                int rainfall = (int) Math.max(300, SiteTable.DISTRICT_RAINFALL[v.district] + random.nextGaussian() * 200);
+                byte soil = random.nextInt(3) == 0
+                    ? (byte) random.nextInt(SiteTable.SOIL_NAMES.length) : SiteTable.DISTRICT_SOIL[v.district];
+                w.write(v.id + "," + csv(Districts.NAMES[v.district]) + "," + csv(v.name) + ","
+                    + String.format(Locale.ROOT, "%.5f,%.5f", v.latitude, v.longitude) + "," + v.elevation + ","
+                    + rainfall + "," + SiteTable.SOIL_NAMES[soil] + "\n");
+            }
+        }
+    }
+
+    void writeCentres(Path file) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("id,district,name,type,latitude,longitude,address,contact,services,elevation\n");
+            for (int c = 0; c < centres.size(); c++) {
+                Location l = centres.get(c);
+                w.write("C" + c + "," + csv(Districts.NAMES[centreDistricts[c]]) + "," + csv(l.name) + ","
+                    + l.type + "," + String.format(Locale.ROOT, "%.5f,%.5f", l.latitude, l.longitude) + ","
+                    + csv(l.address) + "," + csv(l.contact) + "," + csv(l.services) + "," + (int) l.elevation + "\n");
+            }
+        }
+    }
+
+    void writeRoads(Path file) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("from,to\n");
+            for (String[] road : roads) {
+                w.write(road[0] + "," + road[1] + "\n");
+            }
+        }
+    }
+
+    // Streams farmer rows without holding them in memory.
+    void writeFarmers(Path file, int count) throws IOException {
+        Random random = new Random(seed * 31 + 1);
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("id,name,aadhaar_number,district,village,regdate\n");
+            for (int i = 0; i < count; i++) {
+                int d = randomDistrict(random);
+                Village v = randomVillage(random, d);
+                LocalDateTime regdate = start.plusMinutes(random.nextInt(3 * 365 * 24 * 60));
+                w.write((i + 1) + "," + csv(personName(random)) + "," + aadhaarFor(i) + ","
+                    + csv(Districts.NAMES[d]) + "," + csv(v.name) + "," + regdate.format(SQL_DATETIME) + "\n");
+            }
+        }
+    }
+
+    void writeExperts(Path file, int count) throws IOException {
+        Random random = new Random(seed * 31 + 2);
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("id,name,registration_number\n");
+            for (int i = 0; i < count; i++) {
+                w.write((i + 1) + "," + csv("Dr. " + personName(random)) + ",UK-AGRI-" + (10000 + i) + "\n");
+            }
+        }
+    }
+
+    void writeAdvice(Path file, int count, int experts) throws IOException {
+        if (count > 0 && experts < 1) {
+            throw new IllegalArgumentException("Advice rows need at least one expert, got " + experts);
+        }
+        Random random = new Random(seed * 31 + 3);
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("id,district,crop,advice,expert_id\n");
+            for (int i = 0; i < count; i++) {
+                String district = Districts.NAMES[random.nextInt(Districts.COUNT)];
+                String crop = Crops.NAMES[random.nextInt(Crops.COUNT)];
+                w.write((i + 1) + "," + csv(district) + "," + crop + ","
+                    + csv(adviceText(random, district, crop)) + "," + (1 + random.nextInt(experts)) + "\n");
+            }
+        }
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path out = Paths.get("data", "generated");
+        long seed = 42;
+        int villagesPerDistrict = 1230;
+        int centresPerDistrict = 20;
+        int farmers = 1_000_000;
+        int experts = 500;
+        int advice = 200_000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out": out = Paths.get(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--villages-per-district": villagesPerDistrict = Integer.parseInt(args[++i]); break;
+                case "--centres-per-district": centresPerDistrict = Integer.parseInt(args[++i]); break;
+                case "--farmers": farmers = Integer.parseInt(args[++i]); break;
+                case "--experts": experts = Integer.parseInt(args[++i]); break;
+                case "--advice": advice = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    return;
+            }
+        }
+
+        if (advice > 0 && experts < 1) {
+            System.err.println("--advice needs --experts of at least 1");
+            return;
+        }
+
+        long start = System.nanoTime();
+        Files.createDirectories(out);
+        DataGenerator generator = new DataGenerator(seed, villagesPerDistrict, centresPerDistrict);
+        generator.writeVillages(out.resolve("villages.csv"));
+        generator.writeCentres(out.resolve("centres.csv"));
+        generator.writeRoads(out.resolve("roads.csv"));
+        generator.writeExperts(out.resolve("experts.csv"), experts);
+        generator.writeFarmers(out.resolve("farmers.csv"), farmers);
+        generator.writeAdvice(out.resolve("advice.csv"), advice, experts);
+
+        System.out.printf("Generated %d villages, %d centres, %d roads, %d farmers, %d experts, %d advice rows in %s (%.1f s)%n",
+            generator.villages.size(), generator.centres.size(), generator.roads.size(),
+            farmers, experts, advice, out, (System.nanoTime() - start) / 1e9);
+    }
+}
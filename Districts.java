@@ -0,0 +1,55 @@
+import java.util.HashMap;
+import java.util.Map;
+
+// The 13 districts of Uttarakhand with their headquarters coordinates and
+// elevation. A district's id is its index in NAMES.
+final class Districts {
+
+    static final String[] NAMES = {
+        "Almora", "Chamoli", "Bageshwar", "Champawat", "Dehradun",
+        "Haridwar", "Nainital", "Pauri Garhwal", "Pithoragarh",
+        "Rudraprayag", "Tehri Garhwal", "Udham Singh Nagar", "Uttarkashi"
+    };
+
+    static final String[] HEADQUARTERS = {
+        "Almora City", "Chamoli City", "Bageshwar City", "Champawat City", "Dehradun City",
+        "Haridwar City", "Nainital City", "Pauri City", "Pithoragarh City",
+        "Rudraprayag City", "Tehri City", "USN City", "Uttarkashi City"
+    };
+
+    static final double[] LATITUDES = {
+        29.5973, 30.4030, 29.8367, 29.3355, 30.3165,
+        29.9457, 29.3919, 30.0856, 29.5820,
+        30.2847, 30.3833, 29.0274, 30.7292
+    };
+
+    static final double[] LONGITUDES = {
+        79.6609, 79.3207, 79.7696, 80.0784, 78.0322,
+        78.1642, 79.4542, 78.7776, 80.2185,
+        78.9839, 78.4800, 79.5280, 78.4439
+    };
+
+    // Approximate headquarters elevation (m).
+    static final int[] ELEVATIONS = {
+        1640, 1300, 1000, 1600, 640, 300, 2000, 1800, 1600, 900, 1750, 230, 1150
+    };
+
+    static final int COUNT = NAMES.length;
+
+    private static final Map<String, Integer> IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < COUNT; i++) {
+            IDS.put(NAMES[i], i);
+        }
+    }
+
+    private Districts() {
+    }
+
+    // Returns the district id for a name, or -1 if it is not a district.
+    static int id(String name) {
+        Integer id = IDS.get(name);
+        return id == null ? -1 : id;
+    }
+}
@@ -0,0 +1,13 @@
+class Edge {
+    Location destination;
+    double distance;
+    TravelTime.RoadClass roadClass;
+    double minutes;  // travel time towards destination
+
+    Edge(Location destination, double distance, TravelTime.RoadClass roadClass, double minutes) {
+        this.destination = destination;
+        this.distance = distance;
+        this.roadClass = roadClass;
+        this.minutes = minutes;
+    }
+}
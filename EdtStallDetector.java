@@ -0,0 +1,171 @@
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Frame;
+import java.awt.GraphicsEnvironment;
+import java.awt.SecondaryLoop;
+import java.awt.Toolkit;
+import java.util.Arrays;
+import javax.swing.JDialog;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+// Replaces the system event queue with one that times every dispatch on the
+// EDT. Slow dispatches are counted and logged; a watchdog thread also dumps
+// the EDT stack while a handler is still blocked, so the culprit shows up
+// even if it never returns.
+//
+// A modal dialog runs a nested event loop inside the dispatch that opened
+// it. Time the handler spends in that loop, waiting for or dispatching
+// events, is not charged to it, so a dialog left open is not a stall.
+public class EdtStallDetector extends EventQueue {
+
+    private static final LatencyHistogram DISPATCH = Metrics.histogram("edt.dispatch");
+
+    private final long thresholdNanos;
+    // Effective start of the innermost running dispatch (its start plus the
+    // time excluded so far), or 0 while the EDT is waiting for an event.
+    private volatile long dispatchStart;
+    private volatile Thread edt;
+    private volatile boolean reported;
+
+    // Per nesting level, touched only on the EDT.
+    private long[] starts = new long[4];
+    private long[] excluded = new long[4];
+    private int depth;
+
+    private EdtStallDetector(long thresholdMillis) {
+        this.thresholdNanos = thresholdMillis * 1_000_000L;
+    }
+
+    public static void install(long thresholdMillis) {
+        EdtStallDetector detector = new EdtStallDetector(thresholdMillis);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(detector);
+
+        Thread watchdog = new Thread(detector::watch, "edt-stall-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    // Called by the EDT between dispatches. Inside a nested loop the wait is
+    // excluded from the dispatch that opened the loop.
+    @Override
+    public AWTEvent getNextEvent() throws InterruptedException {
+        if (depth == 0 || Thread.currentThread() != edt) {
+            return super.getNextEvent();
+        }
+        long start = System.nanoTime();
+        dispatchStart = 0;
+        try {
+            return super.getNextEvent();
+        } finally {
+            resume(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        if (edt == null) {
+            edt = Thread.currentThread();
+        }
+        if (depth == starts.length) {
+            starts = Arrays.copyOf(starts, depth * 2);
+            excluded = Arrays.copyOf(excluded, depth * 2);
+        }
+        int level = depth++;
+        long start = System.nanoTime();
+        starts[level] = start;
+        excluded[level] = 0;
+        dispatchStart = start;
+        reported = false;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            long own = elapsed - excluded[level];
+            depth = level;
+            if (level > 0) {
+                resume(elapsed);
+            } else {
+                dispatchStart = 0;
+            }
+            DISPATCH.record(own);
+            if (own > thresholdNanos) {
+                Metrics.increment("edt.stalls");
+                System.err.printf("EDT stall: %.1f ms dispatching %s%n",
+                    own / 1e6, event.getClass().getSimpleName() + "#" + event.getID());
+            }
+        }
+    }
+
+    // Hands the clock back to the enclosing dispatch, less the nested time.
+    private void resume(long nestedNanos) {
+        int parent = depth - 1;
+        excluded[parent] += nestedNanos;
+        dispatchStart = starts[parent] + excluded[parent];
+        reported = false;
+    }
+
+    private void watch() {
+        long pollMillis = Math.max(10, thresholdNanos / 2_000_000L);
+        while (true) {
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long start = dispatchStart;
+            Thread thread = edt;
+            if (start != 0 && thread != null && !reported
+                    && System.nanoTime() - start > thresholdNanos) {
+                reported = true;
+                StringBuilder trace = new StringBuilder("EDT blocked, current stack:\n");
+                for (StackTraceElement frame : thread.getStackTrace()) {
+                    trace.append("    at ").append(frame).append('\n');
+                }
+                System.err.print(trace);
+            }
+        }
+    }
+
+    // Self-check: holds a modal dialog open for ten times the threshold and
+    // expects no stall, then blocks the EDT and expects exactly one. Without
+    // a display the dialog is replaced by the secondary loop it runs on.
+    public static void main(String[] args) throws Exception {
+        long thresholdMillis = 50;
+        install(thresholdMillis);
+        Metrics.reset();
+
+        SwingUtilities.invokeAndWait(() -> {
+            if (GraphicsEnvironment.isHeadless()) {
+                SecondaryLoop loop = Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+                Timer close = new Timer((int) (thresholdMillis * 10), e -> loop.exit());
+                close.setRepeats(false);
+                close.start();
+                loop.enter();
+            } else {
+                JDialog dialog = new JDialog((Frame) null, "EdtStallDetector", true);
+                Timer close = new Timer((int) (thresholdMillis * 10), e -> dialog.dispose());
+                close.setRepeats(false);
+                close.start();
+                dialog.setVisible(true);
+            }
+        });
+        // invokeAndWait returns before dispatchEvent has recorded the event.
+        SwingUtilities.invokeAndWait(() -> { });
+        long afterDialog = Metrics.counter("edt.stalls").sum();
+
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                Thread.sleep(thresholdMillis * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        SwingUtilities.invokeAndWait(() -> { });
+        long afterBlock = Metrics.counter("edt.stalls").sum() - afterDialog;
+
+        System.out.println("stalls while modal: " + afterDialog + " (expected 0)");
+        System.out.println("stalls while blocked: " + afterBlock + " (expected 1)");
+        System.exit(afterDialog == 0 && afterBlock == 1 ? 0 : 1);
+    }
+}
@@ -0,0 +1,402 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Audit trail of registrations, logins, advice inserts and centre lookups.
+// publish() claims a slot in a pre-allocated ring with one CAS, stores four
+// longs and releases the slot, so a handler never takes a lock, allocates or
+// touches the disk. Its only clock read is System.nanoTime(); the writer
+// turns that into wall-clock time. A daemon writer drains the ring in order,
+// appends the records to the current file and fsyncs once per group of
+// records (at most every SYNC_INTERVAL_MILLIS) rather than once per record.
+// When the ring is full the event is dropped and counted under
+// eventlog.dropped; the request path never waits for the disk.
+//
+// Files are <dir>/events-<n>.cael; each launch writes to a new one, and a
+// file is closed once it reaches maxFileBytes. Layout (little-endian):
+//
+//   offset  size  field
+//        0     4  magic "CAEV"
+//        4     4  version, int (1)
+//        8     8  created, long (epoch millis)
+//       16        records of 32 bytes:
+//                  0  8  time, long (epoch millis)
+//                  8  1  type (Type ordinal)
+//                  9  1  outcome (Outcome ordinal)
+//                 10  2  district id, short (-1 if none)
+//                 12  4  actor, int (farmer or expert id, -1 if unknown)
+//                 16  4  detail, int (Crops id for advice, centres found for lookups)
+//                 20  4  elapsed, int (microseconds spent in the handler)
+//                 24  4  latitude, float (lookups only, else NaN)
+//                 28  4  longitude, float
+//
+// A record cut short by a crash at the end of a file is ignored on reading.
+//
+//   java -cp bin EventLog [--dir data/events] [--type <type>] [--outcome <outcome>] [--district <name>]
+//        [--actor <id>] [--from yyyy-mm-dd] [--to yyyy-mm-dd] [--summary]
+final class EventLog {
+    private static final LatencyHistogram FSYNC = Metrics.histogram("eventlog.fsync");
+    private static final LongAdder WRITTEN = Metrics.counter("eventlog.written");
+    private static final LongAdder DROPPED = Metrics.counter("eventlog.dropped");
+
+    // Stored by ordinal: append new constants, never reorder.
+    enum Type { FARMER_REGISTRATION, EXPERT_REGISTRATION, ADVICE_ADDED, CENTRES_LOOKUP }
+
+    enum Outcome { OK, RETURNING, INVALID, ERROR }
+
+    private static final int MAGIC = 0x56454143;  // "CAEV" read little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 32;
+    private static final int WORDS = RECORD_BYTES / 8;
+    private static final int DEFAULT_CAPACITY = 1 << 14;
+    private static final long DEFAULT_MAX_FILE_BYTES = 16L << 20;
+    private static final long SYNC_INTERVAL_MILLIS = 200;
+    private static final long IDLE_PARK_NANOS = 2_000_000;
+    private static final int BATCH = 1024;
+
+    static final class Event {
+        final long timeMillis;
+        final Type type;
+        final Outcome outcome;
+        final int district;
+        final int actor;
+        final int detail;
+        final int elapsedMicros;
+        final float latitude;
+        final float longitude;
+
+        private Event(ByteBuffer record, int at) {
+            timeMillis = record.getLong(at);
+            type = Type.values()[record.get(at + 8)];
+            outcome = Outcome.values()[record.get(at + 9)];
+            district = record.getShort(at + 10);
+            actor = record.getInt(at + 12);
+            detail = record.getInt(at + 16);
+            elapsedMicros = record.getInt(at + 20);
+            latitude = record.getFloat(at + 24);
+            longitude = record.getFloat(at + 28);
+        }
+
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(LocalDateTime.ofInstant(Instant.ofEpochMilli(timeMillis), WeatherGrid.ZONE)
+                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")));
+            sb.append(String.format("  %-19s %-9s %-17s", type, outcome,
+                district >= 0 && district < Districts.COUNT ? Districts.NAMES[district] : "-"));
+            if (actor >= 0) {
+                sb.append(type == Type.FARMER_REGISTRATION || type == Type.CENTRES_LOOKUP ? " farmer " : " expert ")
+                    .append(actor);
+            }
+            if (type == Type.ADVICE_ADDED && detail >= 0 && detail < Crops.COUNT) {
+                sb.append(" crop ").append(Crops.NAMES[detail]);
+            } else if (type == Type.CENTRES_LOOKUP) {
+                sb.append(" centres ").append(detail);
+                if (!Float.isNaN(latitude)) {
+                    sb.append(String.format(" at %.4f,%.4f", latitude, longitude));
+                }
+            }
+            return sb.append(String.format(" (%.1f ms)", elapsedMicros / 1000.0)).toString();
+        }
+    }
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final int mask;
+    private final long[] slots;
+    // Slot i holds sequence s once published[i] == s + 1.
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private EventLog(Path directory, int capacity, long maxFileBytes) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.mask = capacity - 1;
+        this.slots = new long[capacity * WORDS];
+        this.published = new AtomicLongArray(capacity);
+        this.writer = new Thread(this::drain, "event-log");
+        writer.setDaemon(true);
+    }
+
+    // Starts the writer thread; the log is flushed and synced at shutdown.
+    static EventLog start(Path directory) {
+        return start(directory, DEFAULT_CAPACITY, DEFAULT_MAX_FILE_BYTES);
+    }
+
+    static EventLog start(Path directory, int capacity, long maxFileBytes) {
+        EventLog log = new EventLog(directory, capacity, maxFileBytes);
+        log.writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(log::close, "event-log-shutdown"));
+        return log;
+    }
+
+    void publish(Type type, Outcome outcome, int district, int actor, int detail, long startNanos) {
+        publish(type, outcome, district, actor, detail, startNanos, Float.NaN, Float.NaN);
+    }
+
+    void publish(Type type, Outcome outcome, int district, int actor, int detail, long startNanos,
+                 float latitude, float longitude) {
+        long now = System.nanoTime();
+        long elapsedMicros = (now - startNanos) / 1000;
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed.get() > mask) {
+                DROPPED.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+
+        int slot = (int) seq & mask;
+        int at = slot * WORDS;
+        // Laid out so that writing the words little-endian gives the record,
+        // once the writer has turned the first into epoch millis.
+        slots[at] = now;
+        slots[at + 1] = type.ordinal() | outcome.ordinal() << 8 | (district & 0xFFFFL) << 16 | (long) actor << 32;
+        slots[at + 2] = (detail & 0xFFFFFFFFL) | Math.min(elapsedMicros, Integer.MAX_VALUE) << 32;
+        slots[at + 3] = (Float.floatToRawIntBits(latitude) & 0xFFFFFFFFL)
+            | (long) Float.floatToRawIntBits(longitude) << 32;
+        published.lazySet(slot, seq + 1);
+    }
+
+    // Writes everything published so far and stops the writer.
+    void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        ByteBuffer batch = ByteBuffer.allocateDirect(BATCH * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        FileChannel channel = null;
+        try {
+            Files.createDirectories(directory);
+            int fileNumber = lastFileNumber(directory);
+            long unsynced = 0;
+            long lastSync = System.currentTimeMillis();
+            while (true) {
+                boolean stopping = !running;
+                batch.clear();
+                long wallMillis = System.currentTimeMillis();
+                long wallNanos = System.nanoTime();
+                long next = consumed.get();
+                while (batch.hasRemaining()) {
+                    int slot = (int) next & mask;
+                    if (published.get(slot) != next + 1) {
+                        break;
+                    }
+                    int at = slot * WORDS;
+                    batch.putLong(wallMillis + Math.floorDiv(slots[at] - wallNanos, 1_000_000L));
+                    for (int w = 1; w < WORDS; w++) {
+                        batch.putLong(slots[at + w]);
+                    }
+                    next++;
+                }
+                consumed.lazySet(next);
+                batch.flip();
+
+                int records = batch.remaining() / RECORD_BYTES;
+                if (records > 0) {
+                    if (channel == null || channel.position() + batch.remaining() > maxFileBytes) {
+                        if (channel != null) {
+                            sync(channel);
+                            channel.close();
+                        }
+                        channel = create(directory.resolve(String.format("events-%08d.cael", ++fileNumber)));
+                        lastSync = System.currentTimeMillis();
+                        unsynced = 0;
+                    }
+                    while (batch.hasRemaining()) {
+                        channel.write(batch);
+                    }
+                    WRITTEN.add(records);
+                    unsynced += records;
+                }
+                long now = System.currentTimeMillis();
+                if (unsynced > 0 && (now - lastSync >= SYNC_INTERVAL_MILLIS || stopping)) {
+                    sync(channel);
+                    lastSync = now;
+                    unsynced = 0;
+                }
+                if (stopping && records == 0) {
+                    break;
+                }
+                if (records < BATCH && !stopping) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            // Publishing carries on; events are counted as dropped once the ring fills.
+            System.err.println("Event log stopped: " + e.getMessage());
+        } finally {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static void sync(FileChannel channel) throws IOException {
+        long startNanos = System.nanoTime();
+        channel.force(false);
+        FSYNC.recordSince(startNanos);
+    }
+
+    private static FileChannel create(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        return channel;
+    }
+
+    private static int lastFileNumber(Path directory) throws IOException {
+        int last = 0;
+        for (Path file : files(directory)) {
+            String name = file.getFileName().toString();
+            last = Math.max(last, Integer.parseInt(name.substring(7, 15)));  // events-NNNNNNNN.cael
+        }
+        return last;
+    }
+
+    // Event files in the order they were written.
+    private static List<Path> files(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> result = new ArrayList<>();
+            files.filter(f -> f.getFileName().toString().matches("events-\\d{8}\\.cael")).forEach(result::add);
+            Collections.sort(result);
+            return result;
+        }
+    }
+
+    // Calls action for every event written at or after fromMillis, oldest
+    // first. Files that end before fromMillis are skipped unread.
+    static void forEach(Path directory, long fromMillis, Consumer<Event> action) throws IOException {
+        List<Path> files = files(directory);
+        long[] created = new long[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            try (FileChannel channel = FileChannel.open(files.get(i), StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                channel.read(header);
+                if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    System.err.println("Skipping " + files.get(i) + ": not a version " + VERSION + " event file");
+                    created[i] = -1;
+                } else {
+                    created[i] = header.getLong(8);
+                }
+            }
+        }
+        for (int i = 0; i < files.size(); i++) {
+            if (created[i] < 0 || (i + 1 < files.size() && created[i + 1] > 0 && created[i + 1] < fromMillis)) {
+                continue;
+            }
+            MappedByteBuffer data;
+            try (FileChannel channel = FileChannel.open(files.get(i), StandardOpenOption.READ)) {
+                data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            data.order(ByteOrder.LITTLE_ENDIAN);
+            int records = (data.capacity() - HEADER_BYTES) / RECORD_BYTES;
+            for (int r = 0; r < records; r++) {
+                int at = HEADER_BYTES + r * RECORD_BYTES;
+                if (data.getLong(at) >= fromMillis) {
+                    action.accept(new Event(data, at));
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get("data", "events");
+        Type type = null;
+        Outcome outcome = null;
+        int district = Integer.MIN_VALUE;
+        int actor = Integer.MIN_VALUE;
+        long from = 0;
+        long to = Long.MAX_VALUE;
+        boolean summary = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--dir": dir = Paths.get(args[++i]); break;
+                case "--type": type = Type.valueOf(args[++i].toUpperCase(Locale.ROOT)); break;
+                case "--outcome": outcome = Outcome.valueOf(args[++i].toUpperCase(Locale.ROOT)); break;
+                case "--district":
+                    district = Districts.id(args[++i]);
+                    if (district < 0) {
+                        System.err.println("Unknown district: " + args[i]);
+                        return;
+                    }
+                    break;
+                case "--actor": actor = Integer.parseInt(args[++i]); break;
+                case "--from": from = startOfDay(LocalDate.parse(args[++i])); break;
+                case "--to": to = startOfDay(LocalDate.parse(args[++i]).plusDays(1)); break;
+                case "--summary": summary = true; break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    return;
+            }
+        }
+
+        Type wantType = type;
+        Outcome wantOutcome = outcome;
+        int wantDistrict = district;
+        int wantActor = actor;
+        long until = to;
+        boolean counting = summary;
+        Map<String, Integer> counts = new TreeMap<>();
+        int[] matched = {0};
+        forEach(dir, from, e -> {
+            if (e.timeMillis >= until || (wantType != null && e.type != wantType)
+                    || (wantOutcome != null && e.outcome != wantOutcome)
+                    || (wantDistrict != Integer.MIN_VALUE && e.district != wantDistrict)
+                    || (wantActor != Integer.MIN_VALUE && e.actor != wantActor)) {
+                return;
+            }
+            matched[0]++;
+            if (counting) {
+                counts.merge(String.format("%-19s %-9s", e.type, e.outcome), 1, Integer::sum);
+            } else {
+                System.out.println(e);
+            }
+        });
+        if (counting) {
+            counts.forEach((key, count) -> System.out.printf("%s %,9d%n", key, count));
+        }
+        System.out.printf("%,d events%n", matched[0]);
+    }
+
+    private static long startOfDay(LocalDate date) {
+        return date.atStartOfDay(WeatherGrid.ZONE).toInstant().toEpochMilli();
+    }
+}
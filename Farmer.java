@@ -0,0 +1,15 @@
+class Farmer {
+    int id;
+    String name;
+    String aadhaarNumber;
+    String district;
+    String village;
+
+    Farmer(int id, String name, String aadhaarNumber, String district, String village) {
+        this.id = id;
+        this.name = name;
+        this.aadhaarNumber = aadhaarNumber;
+        this.district = district;
+        this.village = village;
+    }
+}
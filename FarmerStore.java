@@ -0,0 +1,20 @@
+import java.sql.SQLException;
+import java.util.List;
+
+// Farmer registration and lookup. JdbcFarmerStore backs the app;
+// InMemoryFarmerStore is used by the load-test driver.
+interface FarmerStore {
+
+    // Returns the farmer registered with this Aadhaar number, or null.
+    Farmer findByAadhaar(String aadhaarNumber) throws SQLException;
+
+    // Returns the first farmer registered under this name, or null.
+    Farmer findByName(String name) throws SQLException;
+
+    // Inserts a new farmer and returns it with its generated id.
+    Farmer register(String name, String aadhaarNumber, String district, String village) throws SQLException;
+
+    // Up to limit farmers in the district with ids above afterId, in id
+    // order. Callers page by passing the last id of the previous page.
+    List<Farmer> pageByDistrict(String district, int afterId, int limit) throws SQLException;
+}
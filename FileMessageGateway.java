@@ -0,0 +1,76 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Appends each message as a tab-separated line (key, farmer id, name,
+// village, text) to a local file instead of sending it. Keys already in the
+// file, including those written by earlier runs, are skipped, so an advice
+// reaches each farmer once. failureRate makes that share of batches throw
+// before writing, to exercise retries.
+class FileMessageGateway implements MessageGateway {
+    private final BufferedWriter writer;
+    private final double failureRate;
+    // Guarded by writer.
+    private final Set<String> sentKeys = new HashSet<>();
+
+    FileMessageGateway(Path file, double failureRate) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    if (tab > 0) {
+                        sentKeys.add(line.substring(0, tab));
+                    }
+                }
+            }
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.failureRate = failureRate;
+    }
+
+    public int send(List<Message> batch) throws IOException {
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new IOException("Simulated gateway failure");
+        }
+        synchronized (writer) {
+            StringBuilder lines = new StringBuilder(batch.size() * 128);
+            List<String> keys = new ArrayList<>(batch.size());
+            for (Message m : batch) {
+                if (!sentKeys.add(m.key)) {
+                    continue;
+                }
+                keys.add(m.key);
+                lines.append(m.key).append('\t').append(m.farmerId).append('\t').append(clean(m.farmerName))
+                    .append('\t').append(clean(m.village)).append('\t').append(clean(m.text)).append('\n');
+            }
+            try {
+                writer.write(lines.toString());
+                writer.flush();
+            } catch (IOException e) {
+                sentKeys.removeAll(keys);
+                throw e;
+            }
+            return keys.size();
+        }
+    }
+
+    public void close() throws IOException {
+        synchronized (writer) {
+            writer.close();
+        }
+    }
+
+    private static String clean(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ');
+    }
+}
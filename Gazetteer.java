@@ -0,0 +1,562 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Type-ahead index over districts, villages and crops.
+//
+// Every name (plus Hindi aliases and each later word of a multi-word name) is
+// reduced to a collation key: Devanagari is transliterated, accents and
+// punctuation dropped, and common romanisation variants folded together
+// (aspirates, long vowels, w/v, a final schwa), so "Pithoragarh",
+// "pitoragar" and "पिथौरागढ़" all meet. Keys are sorted and loaded into a
+// compact array-based trie whose nodes record the contiguous range of keys
+// beneath them, so a prefix lookup is a walk down the trie followed by a
+// slice of the sorted key array. Fuzzy prefix matching runs a Levenshtein
+// row down the same trie.
+final class Gazetteer {
+
+    enum Kind { DISTRICT, VILLAGE, CROP }
+
+    static final class Entry {
+        final String name;
+        final Kind kind;
+        final int district;
+
+        Entry(String name, Kind kind, int district) {
+            this.name = name;
+            this.kind = kind;
+            this.district = district;
+        }
+    }
+
+    private final Entry[] entries;
+    // Sorted collation keys and, for each, the entry it points at.
+    private final String[] keys;
+    private final int[] keyEntries;
+
+    // Trie nodes; node 0 is the root.
+    private final char[] nodeChar;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] rangeStart;
+    private final int[] rangeEnd;
+
+    private Gazetteer(List<Entry> entryList, List<String> keyList, List<Integer> keyEntryList) {
+        entries = entryList.toArray(new Entry[0]);
+
+        Integer[] order = new Integer[keyList.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(keyList::get));
+        keys = new String[order.length];
+        keyEntries = new int[order.length];
+        int chars = 0;
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = keyList.get(order[i]);
+            keyEntries[i] = keyEntryList.get(order[i]);
+            chars += keys[i].length();
+        }
+
+        int capacity = chars + 1;
+        char[] label = new char[capacity];
+        int[] child = new int[capacity];
+        int[] sibling = new int[capacity];
+        int[] lastChild = new int[capacity];
+        int[] start = new int[capacity];
+        int[] end = new int[capacity];
+        int nodes = 1;
+        start[0] = 0;
+        end[0] = keys.length;
+
+        // Keys arrive sorted, so a node's children are created in order and
+        // the newest child is always the one to extend.
+        for (int k = 0; k < keys.length; k++) {
+            int node = 0;
+            String key = keys[k];
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(i);
+                int last = lastChild[node];
+                int next;
+                if (child[node] != 0 && label[last] == c) {
+                    next = last;
+                } else {
+                    next = nodes++;
+                    label[next] = c;
+                    start[next] = k;
+                    if (child[node] == 0) {
+                        child[node] = next;
+                    } else {
+                        sibling[last] = next;
+                    }
+                    lastChild[node] = next;
+                }
+                end[next] = k + 1;
+                node = next;
+            }
+        }
+
+        nodeChar = Arrays.copyOf(label, nodes);
+        firstChild = Arrays.copyOf(child, nodes);
+        nextSibling = Arrays.copyOf(sibling, nodes);
+        rangeStart = Arrays.copyOf(start, nodes);
+        rangeEnd = Arrays.copyOf(end, nodes);
+    }
+
+    int size() {
+        return entries.length;
+    }
+
+    int nodeCount() {
+        return nodeChar.length;
+    }
+
+    // Best matches for what the user has typed so far: exact prefix matches
+    // first, then matches within a small edit distance. kind and district
+    // (a Districts id) filter the results; pass null / -1 to accept any.
+    List<String> suggest(String query, Kind kind, int district, int limit) {
+        String key = collationKey(query);
+        List<String> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+
+        int maxDistance = key.length() >= 8 ? 2 : key.length() >= 4 ? 1 : 0;
+        List<int[]> ranges = new ArrayList<>();
+        if (maxDistance == 0) {
+            int node = find(key);
+            if (node >= 0) {
+                ranges.add(new int[] {rangeStart[node], rangeEnd[node], 0});
+            }
+        } else {
+            int[] row = new int[key.length() + 1];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = i;
+            }
+            for (int c = firstChild[0]; c != 0; c = nextSibling[c]) {
+                fuzzy(c, key, row, maxDistance, ranges);
+            }
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        for (int distance = 0; distance <= maxDistance && result.size() < limit; distance++) {
+            for (int[] range : ranges) {
+                if (range[2] != distance) {
+                    continue;
+                }
+                for (int k = range[0]; k < range[1] && result.size() < limit; k++) {
+                    int e = keyEntries[k];
+                    Entry entry = entries[e];
+                    if ((kind == null || entry.kind == kind)
+                            && (district < 0 || entry.district == district)
+                            && seen.add(e)) {
+                        result.add(entry.name);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // The indexed spelling of text if its collation key matches a name of
+    // the given kind exactly, otherwise null.
+    String canonical(String text, Kind kind, int district) {
+        String key = collationKey(text);
+        int node = find(key);
+        if (node < 0) {
+            return null;
+        }
+        for (int k = rangeStart[node]; k < rangeEnd[node]; k++) {
+            Entry entry = entries[keyEntries[k]];
+            if (keys[k].equals(key) && entry.kind == kind && (district < 0 || entry.district == district)) {
+                return entry.name;
+            }
+        }
+        return null;
+    }
+
+    private int find(String key) {
+        int node = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            int child = firstChild[node];
+            while (child != 0 && nodeChar[child] != c) {
+                child = nextSibling[child];
+            }
+            if (child == 0) {
+                return -1;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    // Standard Levenshtein-over-trie walk. previous is the DP row for the
+    // parent's path; when the last cell is within budget the whole subtree
+    // is a fuzzy prefix match.
+    private void fuzzy(int node, String key, int[] previous, int maxDistance, List<int[]> ranges) {
+        int[] row = new int[previous.length];
+        row[0] = previous[0] + 1;
+        int min = row[0];
+        char c = nodeChar[node];
+        for (int i = 1; i < row.length; i++) {
+            int cost = key.charAt(i - 1) == c ? 0 : 1;
+            row[i] = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+            min = Math.min(min, row[i]);
+        }
+        int distance = row[row.length - 1];
+        if (distance <= maxDistance) {
+            ranges.add(new int[] {rangeStart[node], rangeEnd[node], distance});
+            if (distance == 0) {
+                return;
+            }
+        }
+        if (min > maxDistance) {
+            return;
+        }
+        for (int child = firstChild[node]; child != 0; child = nextSibling[child]) {
+            fuzzy(child, key, row, maxDistance, ranges);
+        }
+    }
+
+    static final class Builder {
+        private final List<Entry> entries = new ArrayList<>();
+        private final List<String> keys = new ArrayList<>();
+        private final List<Integer> keyEntries = new ArrayList<>();
+
+        // Adds a name plus any aliases (e.g. the Hindi spelling).
+        Builder add(String name, Kind kind, int district, String... aliases) {
+            int id = entries.size();
+            entries.add(new Entry(name, kind, district));
+            Set<String> added = new HashSet<>();
+            addKeys(name, id, added);
+            for (String alias : aliases) {
+                if (alias != null && !alias.isEmpty()) {
+                    addKeys(alias, id, added);
+                }
+            }
+            return this;
+        }
+
+        // Indexes the full name and each later word, so "garhwal" finds
+        // both Pauri Garhwal and Tehri Garhwal.
+        private void addKeys(String text, int id, Set<String> added) {
+            String[] words = text.trim().split("[\\s\\-]+");
+            for (int w = 0; w < words.length; w++) {
+                StringBuilder suffix = new StringBuilder();
+                for (int i = w; i < words.length; i++) {
+                    suffix.append(words[i]).append(' ');
+                }
+                String key = collationKey(suffix.toString());
+                if (!key.isEmpty() && added.add(key)) {
+                    keys.add(key);
+                    keyEntries.add(id);
+                }
+            }
+        }
+
+        Gazetteer build() {
+            return new Gazetteer(entries, keys, keyEntries);
+        }
+    }
+
+    // Districts and crops with their Hindi names; villages come from
+    // loadVillages().
+    static Builder withDistrictsAndCrops(String[] crops) {
+        Builder builder = new Builder();
+        for (int d = 0; d < Districts.COUNT; d++) {
+            builder.add(Districts.NAMES[d], Kind.DISTRICT, d, HINDI_DISTRICT_NAMES[d]);
+        }
+        for (String crop : crops) {
+            builder.add(crop, Kind.CROP, -1, HINDI_CROP_NAMES.getOrDefault(crop, new String[0]));
+        }
+        return builder;
+    }
+
+    // Reads a village list with a header row containing at least "district"
+    // and "name" columns, and optionally "name_hi" for the Hindi name. The
+    // census extract and DataGenerator's villages.csv both fit.
+    static void loadVillages(Builder builder, Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return;
+            }
+            List<String> columns = Arrays.asList(header.toLowerCase(Locale.ROOT).split(","));
+            int districtColumn = columns.indexOf("district");
+            int nameColumn = columns.indexOf("name");
+            int hindiColumn = columns.indexOf("name_hi");
+            if (districtColumn < 0 || nameColumn < 0) {
+                throw new IOException(file + ": expected district and name columns");
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> fields = splitCsv(line);
+                if (fields.size() <= Math.max(districtColumn, nameColumn)) {
+                    continue;
+                }
+                int district = Districts.id(fields.get(districtColumn));
+                String hindi = hindiColumn >= 0 && hindiColumn < fields.size() ? fields.get(hindiColumn) : null;
+                builder.add(fields.get(nameColumn), Kind.VILLAGE, district, hindi);
+            }
+        }
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}");
+
+    static String collationKey(String text) {
+        StringBuilder key = new StringBuilder(text.length());
+        for (String word : WORD_SEPARATOR.split(transliterate(text))) {
+            key.append(fold(word));
+        }
+        return key.toString();
+    }
+
+    private static String fold(String word) {
+        String lower = word.toLowerCase(Locale.ROOT);
+        if (!isAsciiAlphanumeric(lower)) {
+            lower = COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+        }
+        StringBuilder ascii = new StringBuilder(lower.length());
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                ascii.append(c);
+            }
+        }
+        String plain = ascii.toString().replace("ee", "i").replace("oo", "u");
+        StringBuilder out = new StringBuilder(plain.length());
+        for (int i = 0; i < plain.length(); i++) {
+            char c = plain.charAt(i);
+            switch (c) {
+                case 'w': c = 'v'; break;
+                case 'z': c = 'j'; break;
+                case 'q': c = 'k'; break;
+                case 'f': c = 'p'; break;
+                default: break;
+            }
+            int last = out.length() - 1;
+            char previous = last >= 0 ? out.charAt(last) : 0;
+            // Aspirates (kh, gh, th, dh, bh, sh...) fold onto the plain consonant.
+            if (c == 'h' && previous != 0 && "kgcjtdpbsr".indexOf(previous) >= 0) {
+                continue;
+            }
+            // Remaining doubled vowels (aa, ii, uu) fold onto one letter.
+            if (c == previous && "aeiou".indexOf(c) >= 0) {
+                continue;
+            }
+            out.append(c);
+        }
+        String folded = out.toString();
+        // Hindi names often lose or gain a final schwa in romanisation.
+        if (folded.length() > 3 && folded.endsWith("a") && "aeiou".indexOf(folded.charAt(folded.length() - 2)) < 0) {
+            folded = folded.substring(0, folded.length() - 1);
+        }
+        return folded;
+    }
+
+    // Simple Devanagari-to-Latin transliteration: each consonant carries an
+    // inherent "a" unless followed by a vowel sign or virama, or it sits
+    // between a vowel and a consonant that has its own vowel sign (the usual
+    // Hindi schwa deletion, which turns "deharadun" into "dehradun").
+    static String transliterate(String text) {
+        StringBuilder out = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x0900 || c > 0x097F) {
+                out.append(c);
+                continue;
+            }
+            String consonant = consonant(c);
+            if (consonant != null) {
+                char next = i + 1 < text.length() ? text.charAt(i + 1) : 0;
+                if (next == '़') { // nukta
+                    consonant = nukta(c, consonant);
+                    i++;
+                    next = i + 1 < text.length() ? text.charAt(i + 1) : 0;
+                }
+                out.append(consonant);
+                String sign = vowelSign(next);
+                if (sign != null) {
+                    out.append(sign);
+                    i++;
+                } else if (next == '्') { // virama
+                    i++;
+                } else if (!endsWithVowel(out, consonant) || !followedByVowelSign(text, i + 1)) {
+                    out.append('a');
+                }
+                continue;
+            }
+            String vowel = independentVowel(c);
+            if (vowel != null) {
+                out.append(vowel);
+            } else if (c == 'ं' || c == 'ँ') { // anusvara, chandrabindu
+                out.append('n');
+            } else if (c == 'ः') { // visarga
+                out.append('h');
+            } else {
+                out.append(' ');
+            }
+        }
+        return out.toString();
+    }
+
+    private static boolean isAsciiAlphanumeric(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean endsWithVowel(StringBuilder out, String consonant) {
+        int before = out.length() - consonant.length() - 1;
+        return before >= 0 && "aeiou".indexOf(out.charAt(before)) >= 0;
+    }
+
+    private static boolean followedByVowelSign(String text, int next) {
+        return next + 1 < text.length() && consonant(text.charAt(next)) != null
+            && vowelSign(text.charAt(next + 1)) != null;
+    }
+
+    private static String consonant(char c) {
+        switch (c) {
+            case 'क': return "k";
+            case 'ख': return "kh";
+            case 'ग': return "g";
+            case 'घ': return "gh";
+            case 'ङ': return "n";
+            case 'च': return "ch";
+            case 'छ': return "chh";
+            case 'ज': return "j";
+            case 'झ': return "jh";
+            case 'ञ': return "n";
+            case 'ट': return "t";
+            case 'ठ': return "th";
+            case 'ड': return "d";
+            case 'ढ': return "dh";
+            case 'ण': return "n";
+            case 'त': return "t";
+            case 'थ': return "th";
+            case 'द': return "d";
+            case 'ध': return "dh";
+            case 'न': return "n";
+            case 'प': return "p";
+            case 'फ': return "ph";
+            case 'ब': return "b";
+            case 'भ': return "bh";
+            case 'म': return "m";
+            case 'य': return "y";
+            case 'र': return "r";
+            case 'ल': return "l";
+            case 'ळ': return "l";
+            case 'व': return "v";
+            case 'श': return "sh";
+            case 'ष': return "sh";
+            case 'स': return "s";
+            case 'ह': return "h";
+            case '\u095C': return "r";  // precomposed dda with nukta
+            case '\u095D': return "rh"; // precomposed ddha with nukta
+            case '\u0958': return "k";
+            case '\u095B': return "z";
+            case '\u095E': return "f";
+            default: return null;
+        }
+    }
+
+    private static String nukta(char base, String plain) {
+        switch (base) {
+            case 'ड': return "r";
+            case 'ढ': return "rh";
+            case 'ज': return "z";
+            case 'फ': return "f";
+            default: return plain;
+        }
+    }
+
+    private static String vowelSign(char c) {
+        switch (c) {
+            case 'ा': return "a";
+            case 'ि': return "i";
+            case 'ी': return "i";
+            case 'ु': return "u";
+            case 'ू': return "u";
+            case 'ृ': return "ri";
+            case 'े': return "e";
+            case 'ै': return "ai";
+            case 'ो': return "o";
+            case 'ौ': return "au";
+            default: return null;
+        }
+    }
+
+    private static String independentVowel(char c) {
+        switch (c) {
+            case 'अ': return "a";
+            case 'आ': return "a";
+            case 'इ': return "i";
+            case 'ई': return "i";
+            case 'उ': return "u";
+            case 'ऊ': return "u";
+            case 'ऋ': return "ri";
+            case 'ए': return "e";
+            case 'ऐ': return "ai";
+            case 'ओ': return "o";
+            case 'औ': return "au";
+            default: return null;
+        }
+    }
+
+    // In Districts.NAMES order.
+    static final String[] HINDI_DISTRICT_NAMES = {
+        "अल्मोड़ा", "चमोली", "बागेश्वर", "चम्पावत", "देहरादून",
+        "हरिद्वार", "नैनीताल", "पौड़ी गढ़वाल", "पिथौरागढ़",
+        "रुद्रप्रयाग", "टिहरी गढ़वाल", "ऊधम सिंह नगर", "उत्तरकाशी"
+    };
+
+    static final Map<String, String[]> HINDI_CROP_NAMES = new HashMap<>();
+
+    static {
+        HINDI_CROP_NAMES.put("Wheat", new String[] {"गेहूं", "gehun"});
+        HINDI_CROP_NAMES.put("Rice", new String[] {"धान", "चावल", "dhan", "chawal"});
+        HINDI_CROP_NAMES.put("Sugarcane", new String[] {"गन्ना", "ganna"});
+        HINDI_CROP_NAMES.put("Tomato", new String[] {"टमाटर", "tamatar"});
+        HINDI_CROP_NAMES.put("Maize", new String[] {"मक्का", "makka", "bhutta"});
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.*;
+import java.util.List;
+
+class Graph {
+    private static final LatencyHistogram FIND_NEAREST_CENTERS = Metrics.histogram("op.findNearestCenters");
+
+    Map<Location, List<Edge>> adjacencyList;
+
+    Graph() {
+        adjacencyList = new HashMap<>();
+    }
+
+    void addLocation(Location location) {
+        adjacencyList.putIfAbsent(location, new ArrayList<>());
+    }
+
+    void addRoad(Location source, Location destination) {
+        addRoad(source, destination, TravelTime.classify(source, destination));
+    }
+
+    // Adds a two-way road. Each direction gets its own travel time, since
+    // climbing is slower than descending.
+    void addRoad(Location source, Location destination, TravelTime.RoadClass roadClass) {
+        double distance = calculateDistance(
+            source.latitude, source.longitude,
+            destination.latitude, destination.longitude
+        );
+        adjacencyList.get(source).add(new Edge(destination, distance, roadClass,
+            TravelTime.minutes(distance, roadClass, source.elevation, destination.elevation)));
+        adjacencyList.get(destination).add(new Edge(source, distance, roadClass,
+            TravelTime.minutes(distance, roadClass, destination.elevation, source.elevation)));
+    }
+
+    // Overrides the travel time from one location to another, e.g. for a
+    // slow diversion; POSITIVE_INFINITY closes the road in that direction.
+    // Returns false if the locations are not joined.
+    boolean setTravelTime(Location from, Location to, double minutes) {
+        boolean found = false;
+        for (Edge edge : adjacencyList.getOrDefault(from, Collections.emptyList())) {
+            if (edge.destination == to) {
+                edge.minutes = minutes;
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    // Government centres in order of travel time from start.
+    List<Location> findNearestCenters(Location start, int limit) {
+        long startNanos = System.nanoTime();
+        try {
+            return nearestCenters(start, limit);
+        } finally {
+            FIND_NEAREST_CENTERS.recordSince(startNanos);
+        }
+    }
+
+    // Unrecorded, for benchmarks.
+    List<Location> nearestCenters(Location start, int limit) {
+        Map<Location, Double> distances = new HashMap<>();
+        Map<Location, Location> previousLocations = new HashMap<>();
+        PriorityQueue<Location> queue = new PriorityQueue<>(
+            Comparator.comparingDouble(distances::get)
+        );
+
+        // Initialize distances
+        for (Location loc : adjacencyList.keySet()) {
+            distances.put(loc, Double.POSITIVE_INFINITY);
+        }
+        distances.put(start, 0.0);
+        queue.add(start);
+
+        while (!queue.isEmpty()) {
+            Location current = queue.poll();
+
+            for (Edge edge : adjacencyList.get(current)) {
+                Location neighbor = edge.destination;
+                double newDistance = distances.get(current) + edge.minutes;
+
+                if (newDistance < distances.get(neighbor)) {
+                    distances.put(neighbor, newDistance);
+                    previousLocations.put(neighbor, current);
+                    queue.remove(neighbor);
+                    queue.add(neighbor);
+                }
+            }
+        }
+
+        // Filter and sort government centers
+        List<Location> centers = new ArrayList<>();
+        for (Location loc : adjacencyList.keySet()) {
+            if (loc.type.equals("GOVT_CENTER")) {
+                centers.add(loc);
+            }
+        }
+
+        centers.sort(Comparator.comparingDouble(distances::get));
+        return centers.subList(0, Math.min(limit, centers.size()));
+    }
+
+    static double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+        final int R = 6371; // Earth's radius in kilometers
+
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        
+        return R * c;
+    }
+}
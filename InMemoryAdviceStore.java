@@ -0,0 +1,24 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// ConcurrentHashMap stand-in for the advice table. Like the SQL query, a lookup returns
+// the first advice stored for a (district, crop) pair.
+class InMemoryAdviceStore implements AdviceStore {
+    private final Map<String, String> advice = new ConcurrentHashMap<>();
+
+    public String findAdvice(String district, String crop) {
+        return advice.get(key(district, crop));
+    }
+
+    public void addAdvice(String district, String crop, String text, int expertId) {
+        advice.putIfAbsent(key(district, crop), text);
+    }
+
+    int size() {
+        return advice.size();
+    }
+
+    private static String key(String district, String crop) {
+        return district + '\u0000' + crop;
+    }
+}
@@ -0,0 +1,61 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class InMemoryFarmerStore implements FarmerStore {
+    private final Map<String, Farmer> byAadhaar = new ConcurrentHashMap<>();
+    private final Map<String, Farmer> byName = new ConcurrentHashMap<>();
+    private final Map<String, NavigableMap<Integer, Farmer>> byDistrict = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId;
+
+    InMemoryFarmerStore() {
+        this(new AtomicInteger(1));
+    }
+
+    // Stores that share ids, like the district partitions of one table.
+    InMemoryFarmerStore(AtomicInteger ids) {
+        this.nextId = ids;
+    }
+
+    public Farmer findByAadhaar(String aadhaarNumber) {
+        return byAadhaar.get(aadhaarNumber);
+    }
+
+    public Farmer findByName(String name) {
+        return byName.get(name);
+    }
+
+    // Mirrors the UNIQUE constraint on aadhaar_number.
+    public Farmer register(String name, String aadhaarNumber, String district, String village) throws SQLException {
+        Farmer farmer = new Farmer(nextId.getAndIncrement(), name, aadhaarNumber, district, village);
+        if (byAadhaar.putIfAbsent(aadhaarNumber, farmer) != null) {
+            throw new SQLException("Duplicate entry '" + aadhaarNumber + "' for key 'aadhaar_number'");
+        }
+        byName.putIfAbsent(name, farmer);
+        byDistrict.computeIfAbsent(district, d -> new ConcurrentSkipListMap<>()).put(farmer.id, farmer);
+        return farmer;
+    }
+
+    public List<Farmer> pageByDistrict(String district, int afterId, int limit) {
+        List<Farmer> page = new ArrayList<>(limit);
+        NavigableMap<Integer, Farmer> farmers = byDistrict.get(district);
+        if (farmers != null) {
+            for (Farmer farmer : farmers.tailMap(afterId, false).values()) {
+                if (page.size() == limit) {
+                    break;
+                }
+                page.add(farmer);
+            }
+        }
+        return page;
+    }
+
+    int size() {
+        return byAadhaar.size();
+    }
+}
@@ -0,0 +1,34 @@
+import java.sql.*;
+
+class JdbcAdviceStore implements AdviceStore {
+    private static final LatencyHistogram SQL_ADVICE_SELECT = Metrics.histogram("sql.advice.select");
+    private static final LatencyHistogram SQL_ADVICE_INSERT = Metrics.histogram("sql.advice.insert");
+
+    public String findAdvice(String district, String crop) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            String query = "SELECT advice FROM advice WHERE district=? AND crop=?";
+            PreparedStatement ps = conn.prepareStatement(query);
+            ps.setString(1, district);
+            ps.setString(2, crop);
+            long sqlStart = System.nanoTime();
+            ResultSet rs = ps.executeQuery();
+            SQL_ADVICE_SELECT.recordSince(sqlStart);
+
+            return rs.next() ? rs.getString("advice") : null;
+        }
+    }
+
+    public void addAdvice(String district, String crop, String advice, int expertId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            String insert = "INSERT INTO advice (district, crop, advice, expert_id) VALUES (?, ?, ?, ?)";
+            PreparedStatement ps = conn.prepareStatement(insert);
+            ps.setString(1, district);
+            ps.setString(2, crop);
+            ps.setString(3, advice);
+            ps.setInt(4, expertId);
+            long sqlStart = System.nanoTime();
+            ps.executeUpdate();
+            SQL_ADVICE_INSERT.recordSince(sqlStart);
+        }
+    }
+}
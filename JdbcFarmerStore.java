@@ -0,0 +1,88 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+class JdbcFarmerStore implements FarmerStore {
+    private static final LatencyHistogram SQL_FARMER_BY_AADHAAR = Metrics.histogram("sql.farmers.selectByAadhaar");
+    private static final LatencyHistogram SQL_FARMER_BY_NAME = Metrics.histogram("sql.farmers.selectByName");
+    private static final LatencyHistogram SQL_FARMER_INSERT = Metrics.histogram("sql.farmers.insert");
+    private static final LatencyHistogram SQL_FARMER_PAGE = Metrics.histogram("sql.farmers.pageByDistrict");
+
+    public Farmer findByAadhaar(String aadhaarNumber) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            String sql = "SELECT id, name, district, village FROM farmers WHERE aadhaar_number = ?";
+            PreparedStatement ps = conn.prepareStatement(sql);
+            ps.setString(1, aadhaarNumber);
+            long sqlStart = System.nanoTime();
+            ResultSet rs = ps.executeQuery();
+            SQL_FARMER_BY_AADHAAR.recordSince(sqlStart);
+
+            if (!rs.next()) {
+                return null;
+            }
+            return new Farmer(rs.getInt("id"), rs.getString("name"), aadhaarNumber,
+                rs.getString("district"), rs.getString("village"));
+        }
+    }
+
+    public Farmer findByName(String name) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            String sql = "SELECT id, aadhaar_number, district, village FROM farmers WHERE name = ?";
+            PreparedStatement ps = conn.prepareStatement(sql);
+            ps.setString(1, name);
+            long sqlStart = System.nanoTime();
+            ResultSet rs = ps.executeQuery();
+            SQL_FARMER_BY_NAME.recordSince(sqlStart);
+
+            if (!rs.next()) {
+                return null;
+            }
+            return new Farmer(rs.getInt("id"), name, rs.getString("aadhaar_number"),
+                rs.getString("district"), rs.getString("village"));
+        }
+    }
+
+    public Farmer register(String name, String aadhaarNumber, String district, String village) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            String insertSql = "INSERT INTO farmers (name, aadhaar_number, district, village, regdate) " +
+                             "VALUES (?, ?, ?, ?, NOW())";
+            PreparedStatement insertPs = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS);
+            insertPs.setString(1, name);
+            insertPs.setString(2, aadhaarNumber);
+            insertPs.setString(3, district);
+            insertPs.setString(4, village);
+            long sqlStart = System.nanoTime();
+            insertPs.executeUpdate();
+            SQL_FARMER_INSERT.recordSince(sqlStart);
+
+            ResultSet rs = insertPs.getGeneratedKeys();
+            if (!rs.next()) {
+                throw new SQLException("No id generated for new farmer");
+            }
+            return new Farmer(rs.getInt(1), name, aadhaarNumber, district, village);
+        }
+    }
+
+    // Keyset paging: served from the (district, id) index, so every page
+    // costs the same however deep into the district it is.
+    public List<Farmer> pageByDistrict(String district, int afterId, int limit) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            String sql = "SELECT id, name, aadhaar_number, village FROM farmers " +
+                         "WHERE district = ? AND id > ? ORDER BY id LIMIT ?";
+            PreparedStatement ps = conn.prepareStatement(sql);
+            ps.setString(1, district);
+            ps.setInt(2, afterId);
+            ps.setInt(3, limit);
+            long sqlStart = System.nanoTime();
+            ResultSet rs = ps.executeQuery();
+            SQL_FARMER_PAGE.recordSince(sqlStart);
+
+            List<Farmer> page = new ArrayList<>(limit);
+            while (rs.next()) {
+                page.add(new Farmer(rs.getInt("id"), rs.getString("name"), rs.getString("aadhaar_number"),
+                    district, rs.getString("village")));
+            }
+            return page;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// Read-only data for offline kiosks: advice, market prices, government
+// centres and the road graph in one memory-mapped file. Opening it checks
+// the header and checksum and notes where each section starts; queries then
+// read straight from the mapping, so nothing is deserialized up front.
+//
+// Layout (little-endian):
+//
+//   header (24 bytes)
+//        0  4  magic "CABN"
+//        4  4  format version (2)
+//        8  8  data version (long, increases with every export)
+//       16  4  CRC32 of every byte after the header
+//       20  4  section count
+//   sections, each a length-prefixed record; unknown types are skipped
+//        0  4  type
+//        4  4  payload length n
+//        8  n  payload
+//
+//   STRINGS  every distinct string once, each a u16 byte length followed by
+//            UTF-8 bytes; other sections refer to a string by its offset here
+//   NODES    int count, int ref of the string "GOVT_CENTER", then
+//            count x 40 bytes: double lat, double lon, int name, int type,
+//            int address, int contact, int services, float elevation (metres,
+//            NaN if unknown)
+//   EDGES    int[count + 1] first edge of each node, then per edge int
+//            target, float minutes of travel time (see TravelTime; each
+//            direction of a road is stored with its own time)
+//   PRICES   int count, then count x (int crop, double price per quintal)
+//   ADVICE   int slots (a power of two), int[slots] open-addressing table of
+//            record indexes (-1 = empty) keyed by district and crop hash,
+//            int count, then count x (int district, int crop, int text)
+//
+// BundleExporter writes bundles and BundleDelta updates them.
+//
+//   java -cp bin KioskBundle <file> [<district> <crop>]
+final class KioskBundle {
+    private static final LatencyHistogram OPEN = Metrics.histogram("startup.bundle.open");
+    private static final LatencyHistogram NEAREST_CENTRES = Metrics.histogram("op.bundle.nearestCentres");
+
+    static final int MAGIC = 0x4E424143;  // "CABN" read little-endian
+    static final int FORMAT_VERSION = 2;
+    static final int HEADER_BYTES = 24;
+
+    static final int STRINGS = 1;
+    static final int NODES = 2;
+    static final int EDGES = 3;
+    static final int PRICES = 4;
+    static final int ADVICE = 5;
+
+    static final int NODE_BYTES = 40;
+
+    final Path file;
+    final long dataVersion;
+    private final ByteBuffer data;
+    private int strings = -1;
+    private int nodes = -1;
+    private int edges = -1;
+    private int prices = -1;
+    private int advice = -1;
+    private final int nodeCount;
+    private final int centreType;
+
+    private KioskBundle(Path file, ByteBuffer data) throws IOException {
+        this.file = file;
+        this.data = data;
+        if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC || data.getInt(4) != FORMAT_VERSION) {
+            throw new IOException(file + ": not a version " + FORMAT_VERSION + " kiosk bundle");
+        }
+        dataVersion = data.getLong(8);
+        if (checksum(data, HEADER_BYTES, data.capacity()) != data.getInt(16)) {
+            throw new IOException(file + ": checksum mismatch");
+        }
+
+        int position = HEADER_BYTES;
+        int sections = data.getInt(20);
+        for (int s = 0; s < sections; s++) {
+            if (position + 8 > data.capacity()) {
+                throw new IOException(file + ": truncated section table");
+            }
+            int type = data.getInt(position);
+            int length = data.getInt(position + 4);
+            int payload = position + 8;
+            switch (type) {
+                case STRINGS: strings = payload; break;
+                case NODES: nodes = payload; break;
+                case EDGES: edges = payload; break;
+                case PRICES: prices = payload; break;
+                case ADVICE: advice = payload; break;
+                default: break;
+            }
+            position = payload + length;
+        }
+        if (strings < 0 || nodes < 0 || edges < 0 || prices < 0 || advice < 0) {
+            throw new IOException(file + ": missing sections");
+        }
+        nodeCount = data.getInt(nodes);
+        centreType = data.getInt(nodes + 4);
+    }
+
+    static KioskBundle open(Path file) throws IOException {
+        long startNanos = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + ": too large");
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new KioskBundle(file, mapped.order(ByteOrder.LITTLE_ENDIAN));
+        } finally {
+            OPEN.recordSince(startNanos);
+        }
+    }
+
+    static int checksum(ByteBuffer buffer, int from, int to) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(from).limit(to);
+        CRC32 crc = new CRC32();
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+
+    // Strings
+
+    String string(int ref) {
+        if (ref < 0) {
+            return null;
+        }
+        int at = strings + ref;
+        int length = data.getShort(at) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        ByteBuffer view = data.duplicate();
+        view.position(at + 2);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Compares in place for ASCII; decodes only when s has other characters.
+    boolean stringEquals(int ref, String s) {
+        int at = strings + ref;
+        int length = data.getShort(at) & 0xFFFF;
+        if (s.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                return s.equals(string(ref));
+            }
+            if (data.get(at + 2 + i) != c) {
+                return false;
+            }
+        }
+        return s.length() == length;
+    }
+
+    // Advice
+
+    static int adviceHash(String district, String crop) {
+        int h = district.hashCode() * 31 + crop.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    String advice(String district, String crop) {
+        int slots = data.getInt(advice);
+        int records = advice + 4 + 4 * slots + 4;
+        for (int probe = 0, slot = adviceHash(district, crop) & (slots - 1); probe < slots;
+             probe++, slot = (slot + 1) & (slots - 1)) {
+            int record = data.getInt(advice + 4 + 4 * slot);
+            if (record < 0) {
+                return null;
+            }
+            int at = records + 12 * record;
+            if (stringEquals(data.getInt(at), district) && stringEquals(data.getInt(at + 4), crop)) {
+                return string(data.getInt(at + 8));
+            }
+        }
+        return null;
+    }
+
+    // Prices
+
+    int priceCount() {
+        return data.getInt(prices);
+    }
+
+    String priceCrop(int i) {
+        return string(data.getInt(prices + 4 + 12 * i));
+    }
+
+    double price(int i) {
+        return data.getDouble(prices + 4 + 12 * i + 4);
+    }
+
+    // Nodes and roads
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    private int node(int i) {
+        return nodes + 8 + NODE_BYTES * i;
+    }
+
+    double latitude(int i) {
+        return data.getDouble(node(i));
+    }
+
+    double longitude(int i) {
+        return data.getDouble(node(i) + 8);
+    }
+
+    String name(int i) {
+        return string(data.getInt(node(i) + 16));
+    }
+
+    String type(int i) {
+        return string(data.getInt(node(i) + 20));
+    }
+
+    String address(int i) {
+        return string(data.getInt(node(i) + 24));
+    }
+
+    String contact(int i) {
+        return string(data.getInt(node(i) + 28));
+    }
+
+    String services(int i) {
+        return string(data.getInt(node(i) + 32));
+    }
+
+    float elevation(int i) {
+        return data.getFloat(node(i) + 36);
+    }
+
+    Location location(int i) {
+        return new Location(name(i), latitude(i), longitude(i), type(i), address(i), contact(i), services(i),
+            elevation(i));
+    }
+
+    boolean isCentre(int i) {
+        return centreType >= 0 && data.getInt(node(i) + 20) == centreType;
+    }
+
+    // The first node with this name and type, or -1.
+    int findNode(String name, String type) {
+        for (int i = 0; i < nodeCount; i++) {
+            int at = node(i);
+            if (stringEquals(data.getInt(at + 16), name) && stringEquals(data.getInt(at + 20), type)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Government centres by travel time from a point joined to the graph at
+    // node start by a district road. Dijkstra settles nodes in time order, so
+    // it stops once limit centres are settled. If minutes is not null it
+    // receives the travel time to each centre returned.
+    int[] nearestCentres(double lat, double lon, int start, int limit, double[] minutes) {
+        long startNanos = System.nanoTime();
+        try {
+            return centresFrom(lat, lon, start, limit, minutes);
+        } finally {
+            NEAREST_CENTRES.recordSince(startNanos);
+        }
+    }
+
+    // Unrecorded, for benchmarks.
+    int[] centresFrom(double lat, double lon, int start, int limit, double[] minutes) {
+        double[] distance = new double[nodeCount];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        distance[start] = TravelTime.minutes(Graph.calculateDistance(lat, lon, latitude(start), longitude(start)),
+            TravelTime.RoadClass.DISTRICT_ROAD, Double.NaN, elevation(start));
+
+        // Heap entries pack a non-negative float time above the node id;
+        // such floats order the same as their bit patterns.
+        long[] heap = new long[16];
+        int size = 0;
+        heap[size++] = pack(distance[start], start);
+        int[] found = new int[limit];
+        int count = 0;
+        int edgeIndex = edges;
+        int edgeRecords = edges + 4 * (nodeCount + 1);
+
+        while (size > 0 && count < limit) {
+            long top = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size);
+            int current = (int) top;
+            if (Float.intBitsToFloat((int) (top >>> 32)) > (float) distance[current]) {
+                continue;
+            }
+            if (isCentre(current)) {
+                if (minutes != null) {
+                    minutes[count] = distance[current];
+                }
+                found[count++] = current;
+            }
+            int from = data.getInt(edgeIndex + 4 * current);
+            int to = data.getInt(edgeIndex + 4 * current + 4);
+            for (int e = from; e < to; e++) {
+                int target = data.getInt(edgeRecords + 8 * e);
+                double next = distance[current] + data.getFloat(edgeRecords + 8 * e + 4);
+                if (next < distance[target]) {
+                    distance[target] = next;
+                    if (size == heap.length) {
+                        heap = Arrays.copyOf(heap, size * 2);
+                    }
+                    heap[size++] = pack(next, target);
+                    siftUp(heap, size - 1);
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private static long pack(double distance, int node) {
+        return ((long) Float.floatToIntBits((float) distance) << 32) | (node & 0xFFFFFFFFL);
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        long entry = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        long entry = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (entry <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = entry;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 3) {
+            System.err.println("Usage: KioskBundle <file> [<district> <crop>]");
+            return;
+        }
+        long startNanos = System.nanoTime();
+        KioskBundle bundle = open(Paths.get(args[0]));
+        System.out.printf("Opened %s (version %d) in %.2f ms: %,d nodes, %,d prices%n", args[0],
+            bundle.dataVersion, (System.nanoTime() - startNanos) / 1e6, bundle.nodeCount(), bundle.priceCount());
+        if (args.length == 3) {
+            startNanos = System.nanoTime();
+            String advice = bundle.advice(args[1], args[2]);
+            System.out.printf("%s (%.1f us)%n", advice == null ? "No advice" : advice,
+                (System.nanoTime() - startNanos) / 1e3);
+            int district = bundle.findNode(args[1], "DISTRICT");
+            if (district >= 0) {
+                double[] minutes = new double[5];
+                int[] centres = bundle.nearestCentres(bundle.latitude(district), bundle.longitude(district),
+                    district, 5, minutes);
+                for (int i = 0; i < centres.length; i++) {
+                    System.out.printf("  %s (%.0f min)%n", bundle.name(centres[i]), minutes[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Simulates concurrent farmer and expert sessions against the core logic
+// (stores, road graph, market prices) without Swing, using data from
+// DataGenerator. Farmer sessions register (or log back in), open the
+// dashboard, get advice, find centres and check prices; expert sessions add
+// advice and read it back. Reports throughput, latency percentiles per
+// operation and the allocation rate of the worker threads. --partitioned
+// runs against the district-partitioned stores instead.
+//
+//   java -cp bin LoadTestDriver [--farmer-threads 8] [--expert-threads 2]
+//        [--seconds 30] [--seed 42] [--villages-per-district 200] [--preload 100000] [--partitioned]
+public class LoadTestDriver {
+
+    private static final String[] OPERATIONS = {
+        "register", "openDashboard", "getAdvice", "findCentres", "checkPrices", "addAdvice"
+    };
+
+    private final DataGenerator data;
+    private final ContractionHierarchy routes;
+    private final Location[] villageNodes;
+    private final FarmerStore farmerStore;
+    private final AdviceStore adviceStore;
+    private final Map<String, Double> marketPrices = new HashMap<>();
+    private final AtomicLong nextAadhaar;
+    private final int preloaded;
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final LongAdder farmerSessions = new LongAdder();
+    private final LongAdder expertSessions = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    // Only the first few errors are printed, so a failing store cannot
+    // flood the console and slow the run down.
+    private static final int LOGGED_ERRORS = 5;
+    private final AtomicInteger logged = new AtomicInteger();
+    private volatile boolean running = true;
+    // Keeps the rendered result text live so its formatting cost is measured.
+    static volatile int sink;
+
+    LoadTestDriver(long seed, int villagesPerDistrict, int preload, boolean partitioned) throws Exception {
+        if (partitioned) {
+            farmerStore = PartitionedFarmerStore.inMemory(PartitionedFarmerStore.fanOutExecutor());
+            adviceStore = PartitionedAdviceStore.inMemory();
+        } else {
+            farmerStore = new InMemoryFarmerStore();
+            adviceStore = new InMemoryAdviceStore();
+        }
+        data = new DataGenerator(seed, villagesPerDistrict, 5);
+        villageNodes = new Location[data.villages.size()];
+        routes = ContractionHierarchy.build(data.buildGraph(villageNodes));
+        preloaded = preload;
+        nextAadhaar = new AtomicLong(preload);
+
+        Random random = new Random(seed);
+        for (int i = 0; i < preload; i++) {
+            int d = data.randomDistrict(random);
+            farmerStore.register(DataGenerator.personName(random), DataGenerator.aadhaarFor(i),
+                Districts.NAMES[d], data.randomVillage(random, d).name);
+        }
+        for (String district : Districts.NAMES) {
+            for (String crop : Crops.NAMES) {
+                adviceStore.addAdvice(district, crop, DataGenerator.adviceText(random, district, crop), 1);
+            }
+        }
+        for (String crop : Crops.NAMES) {
+            marketPrices.put(crop, random.nextDouble() * 1000 + 500);
+        }
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            latencies[i] = new LatencyHistogram(OPERATIONS[i]);
+        }
+    }
+
+    private void farmerSession(Random random) throws Exception {
+        // 70% of sessions are returning farmers, the rest register afresh.
+        String aadhaar;
+        String name = DataGenerator.personName(random);
+        int district = data.randomDistrict(random);
+        DataGenerator.Village village = data.randomVillage(random, district);
+        if (preloaded > 0 && random.nextInt(10) < 7) {
+            aadhaar = DataGenerator.aadhaarFor(random.nextInt(preloaded));
+        } else {
+            aadhaar = DataGenerator.aadhaarFor(nextAadhaar.getAndIncrement());
+        }
+
+        long t = System.nanoTime();
+        Farmer farmer = farmerStore.findByAadhaar(aadhaar);
+        if (farmer == null) {
+            farmer = farmerStore.register(name, aadhaar, Districts.NAMES[district], village.name);
+        }
+        latencies[0].recordSince(t);
+
+        t = System.nanoTime();
+        farmerStore.findByName(farmer.name);
+        latencies[1].recordSince(t);
+
+        String crop = Crops.NAMES[random.nextInt(Crops.COUNT)];
+        t = System.nanoTime();
+        String advice = adviceStore.findAdvice(farmer.district, crop);
+        String text = advice != null ? "Hello " + farmer.name + ",\n\nAdvice:\n" + advice : "No advice";
+        latencies[2].recordSince(t);
+
+        // The app searches from the district headquarters; here the
+        // farmer's village node is used, which spreads queries over the graph.
+        t = System.nanoTime();
+        List<ContractionHierarchy.Route> nearest = routes.nearestCentres(villageNodes[village.id], 5);
+        StringBuilder result = new StringBuilder();
+        for (ContractionHierarchy.Route route : nearest) {
+            Location center = route.centre;
+            result.append(center.name).append(String.format(" %.1f km, %.0f min%n", Graph.calculateDistance(
+                village.latitude, village.longitude, center.latitude, center.longitude), route.minutes));
+        }
+        latencies[3].recordSince(t);
+
+        t = System.nanoTime();
+        String price = String.format("Current Price: %.2f per quintal", marketPrices.get(crop));
+        latencies[4].recordSince(t);
+
+        sink = text.length() + result.length() + price.length();
+        farmerSessions.increment();
+    }
+
+    private void expertSession(Random random, int expertId) throws Exception {
+        String district = Districts.NAMES[random.nextInt(Districts.COUNT)];
+        String crop = Crops.NAMES[random.nextInt(Crops.COUNT)];
+
+        long t = System.nanoTime();
+        adviceStore.addAdvice(district, crop, DataGenerator.adviceText(random, district, crop), expertId);
+        latencies[5].recordSince(t);
+
+        t = System.nanoTime();
+        adviceStore.findAdvice(district, crop);
+        latencies[2].recordSince(t);
+        expertSessions.increment();
+    }
+
+    void run(int farmerThreads, int expertThreads, int seconds, long seed) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean
+            ? (com.sun.management.ThreadMXBean) threads : null;
+        int total = farmerThreads + expertThreads;
+        long[] allocatedBytes = new long[total];
+        CountDownLatch done = new CountDownLatch(total);
+
+        for (int i = 0; i < total; i++) {
+            final int worker = i;
+            final boolean farmer = i < farmerThreads;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(seed + worker);
+                long before = allocations != null ? allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+                while (running) {
+                    try {
+                        if (farmer) {
+                            farmerSession(random);
+                        } else {
+                            expertSession(random, worker);
+                        }
+                    } catch (Exception e) {
+                        errors.increment();
+                        if (logged.getAndIncrement() < LOGGED_ERRORS) {
+                            synchronized (System.err) {
+                                System.err.println("Error in " + Thread.currentThread().getName() + ":");
+                                e.printStackTrace();
+                            }
+                        }
+                    }
+                }
+                if (allocations != null) {
+                    allocatedBytes[worker] = allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+                }
+                done.countDown();
+            }, (farmer ? "farmer-" : "expert-") + i);
+            thread.start();
+        }
+
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        running = false;
+        done.await();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long allocated = 0;
+        for (long bytes : allocatedBytes) {
+            allocated += bytes;
+        }
+        report(elapsed, allocations != null ? allocated : -1);
+    }
+
+    private void report(double elapsedSeconds, long allocatedBytes) {
+        System.out.printf("%nDuration %.1f s, farmer sessions %d (%.1f/s), expert sessions %d (%.1f/s), errors %d%n%n",
+            elapsedSeconds,
+            farmerSessions.sum(), farmerSessions.sum() / elapsedSeconds,
+            expertSessions.sum(), expertSessions.sum() / elapsedSeconds,
+            errors.sum());
+        if (errors.sum() > LOGGED_ERRORS) {
+            System.out.printf("Only the first %d errors were printed.%n%n", LOGGED_ERRORS);
+        }
+        System.out.printf("%-16s %10s %10s %10s %10s %10s %10s%n",
+            "operation", "count", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (LatencyHistogram h : latencies) {
+            System.out.printf("%-16s %10d %10.1f %10.3f %10.3f %10.3f %10.3f%n",
+                h.getName(), h.getCount(), h.getCount() / elapsedSeconds,
+                h.getValueAtPercentile(50) / 1e6,
+                h.getValueAtPercentile(99) / 1e6,
+                h.getValueAtPercentile(99.9) / 1e6,
+                h.getMaxNanos() / 1e6);
+        }
+        if (allocatedBytes >= 0) {
+            System.out.printf("%nAllocation rate: %.1f MB/s across worker threads%n",
+                allocatedBytes / elapsedSeconds / (1024 * 1024));
+        } else {
+            System.out.println("\nAllocation rate: not available on this JVM");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int farmerThreads = 8;
+        int expertThreads = 2;
+        int seconds = 30;
+        long seed = 42;
+        int villagesPerDistrict = 200;
+        int preload = 100_000;
+        boolean partitioned = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--farmer-threads": farmerThreads = Integer.parseInt(args[++i]); break;
+                case "--expert-threads": expertThreads = Integer.parseInt(args[++i]); break;
+                case "--seconds": seconds = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--villages-per-district": villagesPerDistrict = Integer.parseInt(args[++i]); break;
+                case "--preload": preload = Integer.parseInt(args[++i]); break;
+                case "--partitioned": partitioned = true; break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    return;
+            }
+        }
+
+        System.out.printf("Preparing %d villages per district and %d registered farmers...%n",
+            villagesPerDistrict, preload);
+        LoadTestDriver driver = new LoadTestDriver(seed, villagesPerDistrict, preload, partitioned);
+        System.out.printf("Running %d farmer and %d expert threads for %d s%n", farmerThreads, expertThreads, seconds);
+        driver.run(farmerThreads, expertThreads, seconds, seed);
+    }
+}
@@ -0,0 +1,26 @@
+class Location {
+    String name;
+    double latitude;
+    double longitude;
+    String type; 
+    String address;
+    String contact;
+    String services; 
+    double elevation;  // metres; NaN if unknown
+
+    Location(String name, double latitude, double longitude, String type, String address, String contact, String services) {
+        this(name, latitude, longitude, type, address, contact, services, Double.NaN);
+    }
+
+    Location(String name, double latitude, double longitude, String type, String address, String contact, String services,
+             double elevation) {
+        this.name = name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.type = type;
+        this.address = address;
+        this.contact = contact;
+        this.services = services;
+        this.elevation = elevation;
+    }
+}
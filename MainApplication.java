@@ -4,301 +4,357 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import javax.swing.*;
 import javax.swing.border.*;
 
 public class MainApplication extends JFrame {
 
+    private static final LatencyHistogram GET_ADVICE = Metrics.histogram("op.getAdvice");
+    private static final LatencyHistogram ADD_ADVICE = Metrics.histogram("op.addAdvice");
+    private static final LatencyHistogram WEATHER_FORECAST = Metrics.histogram("op.weatherForecast");
+    private static final LatencyHistogram FARMER_REGISTRATION = Metrics.histogram("op.farmerRegistration");
+    private static final LatencyHistogram EXPERT_REGISTRATION = Metrics.histogram("op.expertRegistration");
+    private static final LatencyHistogram SQL_EXPERT_BY_NAME_REG = Metrics.histogram("sql.experts.selectByNameAndReg");
+    private static final LatencyHistogram SQL_EXPERT_INSERT = Metrics.histogram("sql.experts.insert");
+    private static final LatencyHistogram SQL_EXPERT_BY_NAME = Metrics.histogram("sql.experts.selectByName");
+    private static final LatencyHistogram STARTUP_FIRST_FRAME = Metrics.histogram("startup.firstFrame");
+    private static final LatencyHistogram STARTUP_ROAD_NETWORK = Metrics.histogram("startup.roadNetwork");
+    private static final LatencyHistogram STARTUP_DATABASE = Metrics.histogram("startup.databaseWarmup");
+
+    private static final long LAUNCH_NANOS = System.nanoTime();
+
+    // -Dcropadvisor.prewarm=true exercises the road graph and opens a first
+    // database connection in the background before the first farmer arrives.
+    private static final boolean PREWARM = Boolean.getBoolean("cropadvisor.prewarm");
+
+    // Village list for the gazetteer (see Gazetteer.loadVillages).
+    private static final String VILLAGES_FILE = System.getProperty("cropadvisor.villages", "data/generated/villages.csv");
+    private static final int SUGGESTION_LIMIT = 10;
+    private static final int RECOMMENDATION_COUNT = 3;
+    private static final String SOWING_CALENDAR_FILE =
+        System.getProperty("cropadvisor.sowingCalendar", "data/sowing-calendar.csv");
+    private static final int SOWING_LOOKAHEAD_DAYS = 14;
+    private static final int BROADCAST_WORKERS = 4;
+    private static final int BROADCAST_BATCH_SIZE = 500;
+    private static final int FORECAST_DAYS = 7;
+    // Rain (mm) over the next three days above which sowing should wait,
+    // and over the week below which only irrigated fields should be sown.
+    private static final float HEAVY_RAIN_3_DAYS = 50;
+    private static final float DRY_WEEK = 5;
+    // Offline data for kiosks without a database link (see KioskBundle).
+    private static final String BUNDLE_FILE = System.getProperty("cropadvisor.bundle", "data/kiosk.cabn");
+    // -Dcropadvisor.partitioned=true reads and writes the district-partitioned
+    // farmers_by_district and advice_by_district tables.
+    private static final boolean PARTITIONED = Boolean.getBoolean("cropadvisor.partitioned");
+    // Audit trail of registrations, advice and lookups (see EventLog).
+    private static final String EVENTS_DIR = System.getProperty("cropadvisor.eventDir", "data/events");
+
+    // Heavy subsystems are built here so the main menu can render at once.
+    private static final ExecutorService STARTUP_EXECUTOR = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "startup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private CardLayout cardLayout;
     private JPanel mainPanel;
-    private Map<String, Double> marketPrices;
-    private Graph roadNetwork;
-
-    private class Location {
-        String name;
-        double latitude;
-        double longitude;
-        String type; 
-        String address;
-        String contact;
-        String services; 
-
-        Location(String name, double latitude, double longitude, String type, String address, String contact, String services) {
-            this.name = name;
-            this.latitude = latitude;
-            this.longitude = longitude;
-            this.type = type;
-            this.address = address;
-            this.contact = contact;
-            this.services = services;
-        }
-    }
+    private CompletableFuture<Map<String, Double>> marketPricesReady;
+    private CompletableFuture<ContractionHierarchy> roadNetworkReady;
+    private CompletableFuture<Void> databaseReady;
+    private CompletableFuture<Gazetteer> gazetteerReady;
+    private CompletableFuture<SuitabilityEngine.Ranking> suitabilityReady;
+    private CompletableFuture<SowingCalendar> sowingCalendarReady;
+    private BroadcastDispatcher broadcastDispatcher;
+    private CompletableFuture<Void> weatherReady;
+    private final WeatherService weather = new WeatherService(
+        java.nio.file.Paths.get(System.getProperty("cropadvisor.forecastDir", "data/forecast")));
+    private KioskBundle bundle;
+    private final EventLog events = EventLog.start(java.nio.file.Paths.get(EVENTS_DIR));
+    private FarmerDashboard farmerDashboard;
+    private ExpertDashboard expertDashboard;
+    private AdviceStore adviceStore = PARTITIONED ? PartitionedAdviceStore.jdbc() : new JdbcAdviceStore();
+    private FarmerStore farmerStore = PARTITIONED
+        ? PartitionedFarmerStore.jdbc(PartitionedFarmerStore.fanOutExecutor()) : new JdbcFarmerStore();
+
+    // Copies, since they are sorted for display.
+    private String[] districts = Districts.NAMES.clone();
+    private String[] crops = Crops.NAMES.clone();
 
-    private class Edge {
-        Location destination;
-        double distance;
+    public MainApplication() {
+        setTitle("Crop Sowing Advisor");
+        setSize(1000, 700);
+        setDefaultCloseOperation(EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+        setResizable(true);
 
-        Edge(Location destination, double distance) {
-            this.destination = destination;
-            this.distance = distance;
+        // Set look and feel
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (Exception e) {
+            e.printStackTrace();
         }
-    }
 
-    private class Graph {
-        Map<Location, List<Edge>> adjacencyList;
+        // Sort before the background tasks start reading the arrays.
+        Sorting.quickSort(districts, 0, districts.length - 1);
+        Sorting.quickSort(crops, 0, crops.length - 1);
 
-        Graph() {
-            adjacencyList = new HashMap<>();
+        bundle = openBundle();
+        if (bundle != null) {
+            adviceStore = new BundleAdviceStore(bundle);
         }
+        startBackgroundInitialization();
 
-        void addLocation(Location location) {
-            adjacencyList.putIfAbsent(location, new ArrayList<>());
-        }
+        cardLayout = new CardLayout();
+        mainPanel = new JPanel(cardLayout);
+        mainPanel.setBackground(UiResources.BACKGROUND);
 
-        void addRoad(Location source, Location destination) {
-            double distance = calculateDistance(
-                source.latitude, source.longitude,
-                destination.latitude, destination.longitude
-            );
-            adjacencyList.get(source).add(new Edge(destination, distance));
-            adjacencyList.get(destination).add(new Edge(source, distance));
-        }
+        mainPanel.add(createMainMenu(), "menu");
 
-        List<Location> findNearestCenters(Location start, int limit) {
-            Map<Location, Double> distances = new HashMap<>();
-            Map<Location, Location> previousLocations = new HashMap<>();
-            PriorityQueue<Location> queue = new PriorityQueue<>(
-                Comparator.comparingDouble(distances::get)
-            );
+        add(mainPanel);
+        installMetricsShortcut();
+        setVisible(true);
+        STARTUP_FIRST_FRAME.recordSince(LAUNCH_NANOS);
+    }
 
-            // Initialize distances
-            for (Location loc : adjacencyList.keySet()) {
-                distances.put(loc, Double.POSITIVE_INFINITY);
-            }
-            distances.put(start, 0.0);
-            queue.add(start);
+    private void startBackgroundInitialization() {
+        marketPricesReady = CompletableFuture.supplyAsync(this::initializeMarketPrices, STARTUP_EXECUTOR);
+
+        if (bundle != null) {
+            // A kiosk bundle carries its own road graph.
+            roadNetworkReady = CompletableFuture.completedFuture(null);
+        } else {
+            roadNetworkReady = CompletableFuture.supplyAsync(() -> {
+                long startNanos = System.nanoTime();
+                ContractionHierarchy routes = ContractionHierarchy.build(RoadNetwork.synthesized(districts));
+                if (PREWARM) {
+                    prewarmRoadNetwork(routes);
+                }
+                STARTUP_ROAD_NETWORK.recordSince(startNanos);
+                return routes;
+            }, STARTUP_EXECUTOR);
+        }
 
-            while (!queue.isEmpty()) {
-                Location current = queue.poll();
+        gazetteerReady = CompletableFuture.supplyAsync(this::initializeGazetteer, STARTUP_EXECUTOR);
+        suitabilityReady = CompletableFuture.supplyAsync(this::initializeSuitability, STARTUP_EXECUTOR);
+        sowingCalendarReady = CompletableFuture.supplyAsync(this::initializeSowingCalendar, STARTUP_EXECUTOR);
+        weatherReady = CompletableFuture.runAsync(weather::start, STARTUP_EXECUTOR);
 
-                for (Edge edge : adjacencyList.get(current)) {
-                    Location neighbor = edge.destination;
-                    double newDistance = distances.get(current) + edge.distance;
+        databaseReady = PREWARM
+            ? CompletableFuture.runAsync(this::prewarmDatabase, STARTUP_EXECUTOR)
+            : CompletableFuture.completedFuture(null);
+    }
 
-                    if (newDistance < distances.get(neighbor)) {
-                        distances.put(neighbor, newDistance);
-                        previousLocations.put(neighbor, current);
-                        queue.remove(neighbor);
-                        queue.add(neighbor);
-                    }
-                }
+    // Completes once every background subsystem has finished initializing.
+    CompletableFuture<Void> startupComplete() {
+        return CompletableFuture.allOf(marketPricesReady, roadNetworkReady, databaseReady, gazetteerReady,
+            suitabilityReady, sowingCalendarReady, weatherReady);
+    }
+
+    // Districts and crops always; villages when the village list is present.
+    private Gazetteer initializeGazetteer() {
+        Gazetteer.Builder builder = Gazetteer.withDistrictsAndCrops(crops);
+        java.nio.file.Path villages = java.nio.file.Paths.get(VILLAGES_FILE);
+        if (java.nio.file.Files.exists(villages)) {
+            try {
+                Gazetteer.loadVillages(builder, villages);
+            } catch (java.io.IOException | RuntimeException e) {
+                System.out.println("Village list could not be loaded: " + e.getMessage());
             }
+        }
+        return builder.build();
+    }
 
-            // Filter and sort government centers
-            List<Location> centers = new ArrayList<>();
-            for (Location loc : adjacencyList.keySet()) {
-                if (loc.type.equals("GOVT_CENTER")) {
-                    centers.add(loc);
-                }
+    // Crop rankings for every district headquarters and listed village,
+    // computed once here so the dashboard only looks them up.
+    private SuitabilityEngine.Ranking initializeSuitability() {
+        SiteTable sites = new SiteTable.Builder().build();
+        java.nio.file.Path villages = java.nio.file.Paths.get(VILLAGES_FILE);
+        if (java.nio.file.Files.exists(villages)) {
+            try {
+                sites = SiteTable.loadVillages(villages);
+            } catch (java.io.IOException | RuntimeException e) {
+                System.out.println("Village attributes could not be loaded: " + e.getMessage());
             }
+        }
+        return SuitabilityEngine.rank(sites, RECOMMENDATION_COUNT);
+    }
 
-            centers.sort(Comparator.comparingDouble(distances::get));
-            return centers.subList(0, Math.min(limit, centers.size()));
+    private SowingCalendar initializeSowingCalendar() {
+        try {
+            return SowingCalendar.load(java.nio.file.Paths.get(SOWING_CALENDAR_FILE));
+        } catch (java.io.IOException | RuntimeException e) {
+            System.out.println("Sowing calendar could not be loaded: " + e.getMessage());
+            return SowingCalendar.empty();
         }
     }
 
-    private String[] districts = {
-    "Almora", "Chamoli","Bageshwar", "Champawat", "Dehradun",
-    "Haridwar", "Nainital", "Pauri Garhwal", "Pithoragarh", 
-    "Rudraprayag", "Tehri Garhwal", "Udham Singh Nagar", "Uttarkashi"
-    };
+    // Created on first use. -Dcropadvisor.gateway=<class> plugs in a real
+    // MessageGateway; otherwise messages go to a local outbox file. The
+    // gateway is closed at exit, once running broadcasts are delivered.
+    private BroadcastDispatcher broadcastDispatcher() throws Exception {
+        if (broadcastDispatcher == null) {
+            String gatewayClass = System.getProperty("cropadvisor.gateway");
+            MessageGateway gateway = gatewayClass != null
+                ? (MessageGateway) Class.forName(gatewayClass).getDeclaredConstructor().newInstance()
+                : new FileMessageGateway(java.nio.file.Paths.get(
+                    System.getProperty("cropadvisor.outbox", "broadcast-outbox.log")), 0);
+            broadcastDispatcher = new BroadcastDispatcher(farmerStore, gateway, BROADCAST_WORKERS, BROADCAST_BATCH_SIZE);
+            Runtime.getRuntime().addShutdownHook(new Thread(broadcastDispatcher::close, "broadcast-shutdown"));
+        }
+        return broadcastDispatcher;
+    }
 
-    private String[] crops = {"Wheat", "Rice", "Sugarcane", "Tomato", "Maize"};
+    // Type-ahead suggestions from the gazetteer, or a plain prefix filter
+    // over the fixed list while it is still loading.
+    private List<String> suggest(String text, Gazetteer.Kind kind, int district, String[] fallback) {
+        Gazetteer gazetteer = gazetteerReady.getNow(null);
+        if (gazetteer != null) {
+            return gazetteer.suggest(text, kind, district, SUGGESTION_LIMIT);
+        }
+        List<String> matches = new ArrayList<>();
+        for (String item : fallback) {
+            if (item.regionMatches(true, 0, text, 0, text.length())) {
+                matches.add(item);
+            }
+        }
+        return matches;
+    }
 
-    public MainApplication() {
-        setTitle("Crop Sowing Advisor");
-        setSize(1000, 700);
-        setDefaultCloseOperation(EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
-        setResizable(true);
+    // The known name the user picked or typed in a type-ahead box, or null.
+    // Only exact names are accepted (ignoring case, or any spelling the
+    // gazetteer indexes for the name); fuzzy matches are offered in the
+    // drop-down, never applied behind the user's back.
+    private String resolve(JComboBox<String> box, Gazetteer.Kind kind, String[] known) {
+        String text = TypeAhead.text(box);
+        if (text.isEmpty()) {
+            return null;
+        }
+        for (String item : known) {
+            if (item.equalsIgnoreCase(text)) {
+                return item;
+            }
+        }
+        Gazetteer gazetteer = gazetteerReady.getNow(null);
+        return gazetteer != null ? gazetteer.canonical(text, kind, -1) : null;
+    }
 
-        // Set look and feel
-        try {
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-        } catch (Exception e) {
-            e.printStackTrace();
+    private void installDistrictAndCropTypeAhead(JComboBox<String> districtBox, JComboBox<String> cropBox) {
+        TypeAhead.install(districtBox, text -> suggest(text, Gazetteer.Kind.DISTRICT, -1, districts));
+        if (cropBox != null) {
+            TypeAhead.install(cropBox, text -> suggest(text, Gazetteer.Kind.CROP, -1, crops));
         }
+    }
 
-        initializeMarketPrices();
-        initializeRoadNetwork();
+    // Runs the nearest-centre search from every district so the JIT has
+    // compiled it before the first real query.
+    private void prewarmRoadNetwork(ContractionHierarchy routes) {
+        for (Location loc : routes.nodes) {
+            if (loc.type.equals("DISTRICT")) {
+                routes.nearestCentres(loc, 5);
+            }
+        }
+    }
 
-        quickSort(districts, 0, districts.length - 1);
-        quickSort(crops, 0, crops.length - 1);
+    // Loads the JDBC driver and completes a first handshake with MySQL.
+    private void prewarmDatabase() {
+        long startNanos = System.nanoTime();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.isValid(2);
+        } catch (SQLException e) {
+            System.out.println("Database pre-warm failed: " + e.getMessage());
+        } finally {
+            STARTUP_DATABASE.recordSince(startNanos);
+        }
+    }
 
-        cardLayout = new CardLayout();
-        mainPanel = new JPanel(cardLayout);
-        mainPanel.setBackground(new Color(240, 240, 240));
+    // Runs action on the EDT with the subsystem's value, straight away if it
+    // is ready or else once it finishes loading, showing a note meanwhile.
+    private <T> void whenReady(CompletableFuture<T> future, JTextArea resultArea, Consumer<T> action) {
+        if (future.isDone() && !future.isCompletedExceptionally()) {
+            action.accept(future.join());
+            return;
+        }
+        resultArea.setText("Please wait, still loading...");
+        future.whenComplete((value, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                resultArea.setText("❗ Error during startup: " + error.getMessage());
+            } else {
+                action.accept(value);
+            }
+        }));
+    }
 
-        mainPanel.add(createMainMenu(), "menu");
+    // Ctrl+Shift+M shows the current latency/counter dump; the same data is
+    // published over JMX by Metrics.registerMBean().
+    private void installMetricsShortcut() {
+        KeyStroke keyStroke = KeyStroke.getKeyStroke("control shift M");
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(keyStroke, "showMetrics");
+        getRootPane().getActionMap().put("showMetrics", new AbstractAction() {
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                JTextArea dumpArea = new JTextArea(Metrics.dump(), 25, 110);
+                dumpArea.setEditable(false);
+                dumpArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+                JOptionPane.showMessageDialog(MainApplication.this,
+                    new JScrollPane(dumpArea),
+                    "Metrics",
+                    JOptionPane.PLAIN_MESSAGE);
+            }
+        });
+    }
 
-        add(mainPanel);
-        setVisible(true);
+    // Maps the kiosk bundle if one is present. The mapping is only checked
+    // here; advice, prices and centres are read from it on demand.
+    private static KioskBundle openBundle() {
+        java.nio.file.Path file = java.nio.file.Paths.get(BUNDLE_FILE);
+        if (!java.nio.file.Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            KioskBundle bundle = KioskBundle.open(file);
+            System.out.println("Serving advice, prices and centres from " + file + " (version " + bundle.dataVersion + ")");
+            return bundle;
+        } catch (java.io.IOException e) {
+            System.out.println("Kiosk bundle " + file + " could not be opened: " + e.getMessage());
+            return null;
+        }
     }
 
-    private void initializeMarketPrices() {
-        marketPrices = new HashMap<>();
+    private Map<String, Double> initializeMarketPrices() {
+        Map<String, Double> marketPrices = new HashMap<>();
         // Simulated market prices - in real app, this would come from a market API
         for (String crop : crops) {
             marketPrices.put(crop, Math.random() * 1000 + 500);
         }
-    }
-
-    private void initializeRoadNetwork() {
-        roadNetwork = new Graph();
-        Map<String, Location> districtLocations = new HashMap<>();
-
-        // Initialize all district locations with actual coordinates
-        districtLocations.put("Almora", new Location("Almora", 29.5973, 79.6609, "DISTRICT", "Almora City", "", ""));
-        districtLocations.put("Chamoli", new Location("Chamoli", 30.4030, 79.3207, "DISTRICT", "Chamoli City", "", ""));
-        districtLocations.put("Bageshwar", new Location("Bageshwar", 29.8367, 79.7696, "DISTRICT", "Bageshwar City", "", ""));
-        districtLocations.put("Champawat", new Location("Champawat", 29.3355, 80.0784, "DISTRICT", "Champawat City", "", ""));
-        districtLocations.put("Dehradun", new Location("Dehradun", 30.3165, 78.0322, "DISTRICT", "Dehradun City", "", ""));
-        districtLocations.put("Haridwar", new Location("Haridwar", 29.9457, 78.1642, "DISTRICT", "Haridwar City", "", ""));
-        districtLocations.put("Nainital", new Location("Nainital", 29.3919, 79.4542, "DISTRICT", "Nainital City", "", ""));
-        districtLocations.put("Pauri Garhwal", new Location("Pauri Garhwal", 30.0856, 78.7776, "DISTRICT", "Pauri City", "", ""));
-        districtLocations.put("Pithoragarh", new Location("Pithoragarh", 29.5820, 80.2185, "DISTRICT", "Pithoragarh City", "", ""));
-        districtLocations.put("Rudraprayag", new Location("Rudraprayag", 30.2847, 78.9839, "DISTRICT", "Rudraprayag City", "", ""));
-        districtLocations.put("Tehri Garhwal", new Location("Tehri Garhwal", 30.3833, 78.4800, "DISTRICT", "Tehri City", "", ""));
-        districtLocations.put("Udham Singh Nagar", new Location("Udham Singh Nagar", 29.0274, 79.5280, "DISTRICT", "USN City", "", ""));
-        districtLocations.put("Uttarkashi", new Location("Uttarkashi", 30.7292, 78.4439, "DISTRICT", "Uttarkashi City", "", ""));
-
-        // Add district locations to graph
-        for (Location loc : districtLocations.values()) {
-            roadNetwork.addLocation(loc);
-        }
-
-        // Initialize government centers for each district
-        for (String district : districts) {
-            Location districtLoc = districtLocations.get(district);
-            if (districtLoc != null) {
-                // Add KVK
-                Location kvk = new Location(
-                    "Krishi Vigyan Kendra - " + district,
-                    districtLoc.latitude + 0.01,
-                    districtLoc.longitude + 0.01,
-                    "GOVT_CENTER",
-                    "Main Road, " + district,
-                    "1800-XXX-XXXX",
-                    "Crop Research, Training, Soil Testing"
-                );
-                roadNetwork.addLocation(kvk);
-                roadNetwork.addRoad(districtLoc, kvk);
-
-                // Add Agriculture Department
-                Location agriDept = new Location(
-                    "Agriculture Department - " + district,
-                    districtLoc.latitude - 0.01,
-                    districtLoc.longitude - 0.01,
-                    "GOVT_CENTER",
-                    "Government Complex, " + district,
-                    "1800-XXX-XXXX",
-                    "Subsidies, Schemes, Technical Support"
-                );
-                roadNetwork.addLocation(agriDept);
-                roadNetwork.addRoad(districtLoc, agriDept);
-
-                // Add Soil Testing Lab
-                Location soilLab = new Location(
-                    "Soil Testing Lab - " + district,
-                    districtLoc.latitude + 0.02,
-                    districtLoc.longitude - 0.02,
-                    "GOVT_CENTER",
-                    "Research Complex, " + district,
-                    "1800-XXX-XXXX",
-                    "Soil Analysis, Fertilizer Recommendations"
-                );
-                roadNetwork.addLocation(soilLab);
-                roadNetwork.addRoad(districtLoc, soilLab);
-
-                // Add Horticulture Department
-                Location hortDept = new Location(
-                    "Horticulture Department - " + district,
-                    districtLoc.latitude - 0.02,
-                    districtLoc.longitude + 0.02,
-                    "GOVT_CENTER",
-                    "Horticulture Complex, " + district,
-                    "1800-XXX-XXXX",
-                    "Fruit/Vegetable Cultivation, Plant Protection"
-                );
-                roadNetwork.addLocation(hortDept);
-                roadNetwork.addRoad(districtLoc, hortDept);
-
-                // Add Seed Testing Lab
-                Location seedLab = new Location(
-                    "Seed Testing Lab - " + district,
-                    districtLoc.latitude + 0.03,
-                    districtLoc.longitude + 0.01,
-                    "GOVT_CENTER",
-                    "Seed Research Center, " + district,
-                    "1800-XXX-XXXX",
-                    "Seed Quality Testing, Certification"
-                );
-                roadNetwork.addLocation(seedLab);
-                roadNetwork.addRoad(districtLoc, seedLab);
-            }
-        }
-
-        // Add inter-district connections (simplified road network)
-        for (int i = 0; i < districts.length; i++) {
-            for (int j = i + 1; j < districts.length; j++) {
-                Location loc1 = districtLocations.get(districts[i]);
-                Location loc2 = districtLocations.get(districts[j]);
-                if (loc1 != null && loc2 != null) {
-                    double distance = calculateDistance(
-                        loc1.latitude, loc1.longitude,
-                        loc2.latitude, loc2.longitude
-                    );
-                    if (distance < 100) { // Only connect nearby districts
-                        roadNetwork.addRoad(loc1, loc2);
-                    }
-                }
+        if (bundle != null) {
+            for (int i = 0; i < bundle.priceCount(); i++) {
+                marketPrices.put(bundle.priceCrop(i), bundle.price(i));
             }
         }
-    }
-
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Earth's radius in kilometers
-
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        
-        return R * c;
+        return marketPrices;
     }
 
     private JPanel createMainMenu() {
         JPanel panel = new JPanel(new BorderLayout(20, 20));
         panel.setBorder(new EmptyBorder(40, 60, 40, 60));
-        panel.setBackground(new Color(240, 240, 240));
+        panel.setBackground(UiResources.BACKGROUND);
 
         // Title Panel
         JPanel titlePanel = new JPanel(new BorderLayout());
-        titlePanel.setBackground(new Color(240, 240, 240));
+        titlePanel.setBackground(UiResources.BACKGROUND);
         
         JLabel title = new JLabel("Crop Sowing Advisor", SwingConstants.CENTER);
-        title.setFont(new Font("Segoe UI", Font.BOLD, 36));
-        title.setForeground(new Color(34, 139, 34));
+        title.setFont(UiResources.TITLE_FONT);
+        title.setForeground(UiResources.BRAND_GREEN);
         title.setBorder(new EmptyBorder(20, 10, 20, 10));
         
         JLabel subtitle = new JLabel("Empowering Farmers with Smart Agricultural Solutions", SwingConstants.CENTER);
-        subtitle.setFont(new Font("Segoe UI", Font.PLAIN, 16));
-        subtitle.setForeground(new Color(100, 100, 100));
+        subtitle.setFont(UiResources.SUBTITLE_FONT);
+        subtitle.setForeground(UiResources.MUTED_TEXT);
         
         titlePanel.add(title, BorderLayout.NORTH);
         titlePanel.add(subtitle, BorderLayout.CENTER);
@@ -306,23 +362,18 @@ public class MainApplication extends JFrame {
         // Button Panel
         JPanel buttonPanel = new JPanel(new GridLayout(2, 1, 20, 30));
         buttonPanel.setBorder(new EmptyBorder(40, 100, 40, 100));
-        buttonPanel.setBackground(new Color(240, 240, 240));
+        buttonPanel.setBackground(UiResources.BACKGROUND);
         
         JButton farmerBtn = createStyledButton("Register as Farmer");
         JButton expertBtn = createStyledButton("Register as Expert");
         
         // Add icons to buttons
-        try {
-            ImageIcon farmerIcon = new ImageIcon(getClass().getResource("/icons/farmer_icon.png"));
-            ImageIcon expertIcon = new ImageIcon(getClass().getResource("/icons/expert_icon.png"));
-            
-            // Scale icons to appropriate size
-            Image farmerImg = farmerIcon.getImage().getScaledInstance(32, 32, Image.SCALE_SMOOTH);
-            Image expertImg = expertIcon.getImage().getScaledInstance(32, 32, Image.SCALE_SMOOTH);
-            
-            farmerBtn.setIcon(new ImageIcon(farmerImg));
-            expertBtn.setIcon(new ImageIcon(expertImg));
-        } catch (Exception e) {
+        ImageIcon farmerIcon = UiResources.icon("/icons/farmer_icon.png", 32);
+        ImageIcon expertIcon = UiResources.icon("/icons/expert_icon.png", 32);
+        if (farmerIcon != null && expertIcon != null) {
+            farmerBtn.setIcon(farmerIcon);
+            expertBtn.setIcon(expertIcon);
+        } else {
             System.out.println("Icons not found. Using text-only buttons.");
         }
         
@@ -340,17 +391,17 @@ public class MainApplication extends JFrame {
     private void openFarmerRegistration() {
         JPanel panel = new JPanel(new BorderLayout(20, 20));
         panel.setBorder(new EmptyBorder(20, 20, 20, 20));
-        panel.setBackground(new Color(240, 240, 240));
+        panel.setBackground(UiResources.BACKGROUND);
 
         // Title
         JLabel title = new JLabel("Farmer Registration", SwingConstants.CENTER);
-        title.setFont(new Font("Segoe UI", Font.BOLD, 24));
-        title.setForeground(new Color(34, 139, 34));
+        title.setFont(UiResources.HEADING_FONT);
+        title.setForeground(UiResources.BRAND_GREEN);
         panel.add(title, BorderLayout.NORTH);
 
         // Form Panel
         JPanel formPanel = new JPanel(new GridBagLayout());
-        formPanel.setBackground(new Color(240, 240, 240));
+        formPanel.setBackground(UiResources.BACKGROUND);
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(10, 10, 10, 10);
         gbc.fill = GridBagConstraints.HORIZONTAL;
@@ -358,14 +409,17 @@ public class MainApplication extends JFrame {
         JTextField nameField = new JTextField(20);
         JTextField aadhaarField = new JTextField(20);
         JComboBox<String> districtBox = new JComboBox<>(districts);
-        JTextField villageField = new JTextField(20);
+        JComboBox<String> villageBox = new JComboBox<>();
+        installDistrictAndCropTypeAhead(districtBox, null);
+        TypeAhead.install(villageBox, text -> suggest(text, Gazetteer.Kind.VILLAGE,
+            Districts.id(resolve(districtBox, Gazetteer.Kind.DISTRICT, districts)), new String[0]));
 
         // Style the input fields
         Dimension fieldSize = new Dimension(300, 35);
         nameField.setPreferredSize(fieldSize);
         aadhaarField.setPreferredSize(fieldSize);
         districtBox.setPreferredSize(fieldSize);
-        villageField.setPreferredSize(fieldSize);
+        villageBox.setPreferredSize(fieldSize);
 
         // Add components to form panel
         gbc.gridx = 0; gbc.gridy = 0;
@@ -386,16 +440,16 @@ public class MainApplication extends JFrame {
         gbc.gridx = 0; gbc.gridy = 3;
         formPanel.add(new JLabel("Village:"), gbc);
         gbc.gridx = 1;
-        formPanel.add(villageField, gbc);
+        formPanel.add(villageBox, gbc);
 
         panel.add(formPanel, BorderLayout.CENTER);
 
         // Buttons Panel
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 10));
-        buttonPanel.setBackground(new Color(240, 240, 240));
+        buttonPanel.setBackground(UiResources.BACKGROUND);
         
         JButton registerBtn = createStyledButton("Register");
-        JButton cancelBtn = createStyledButton("Cancel", new Color(220, 53, 69));
+        JButton cancelBtn = createStyledButton("Cancel", UiResources.CANCEL_BUTTON);
         
         buttonPanel.add(registerBtn);
         buttonPanel.add(cancelBtn);
@@ -412,8 +466,8 @@ public class MainApplication extends JFrame {
         registerBtn.addActionListener(e -> {
             String name = nameField.getText().trim();
             String aadhaar = aadhaarField.getText().trim();
-            String district = (String) districtBox.getSelectedItem();
-            String village = villageField.getText().trim();
+            String district = resolve(districtBox, Gazetteer.Kind.DISTRICT, districts);
+            String village = canonicalVillage(TypeAhead.text(villageBox), district);
 
             if (name.isEmpty() || aadhaar.isEmpty() || village.isEmpty()) {
                 JOptionPane.showMessageDialog(dialog, 
@@ -423,6 +477,14 @@ public class MainApplication extends JFrame {
                 return;
             }
 
+            if (district == null) {
+                JOptionPane.showMessageDialog(dialog, 
+                    "Please choose a district from the list.", 
+                    "Validation Error", 
+                    JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
             if (!Pattern.matches("\\d{12}", aadhaar)) {
                 JOptionPane.showMessageDialog(dialog, 
                     "Invalid Aadhaar number. Please enter 12 digits.", 
@@ -431,15 +493,16 @@ public class MainApplication extends JFrame {
                 return;
             }
 
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                String checkSql = "SELECT id, name FROM farmers WHERE aadhaar_number = ?";
-                PreparedStatement checkPs = conn.prepareStatement(checkSql);
-                checkPs.setString(1, aadhaar);
-                ResultSet rs = checkPs.executeQuery();
+            long startNanos = System.nanoTime();
+            try {
+                Farmer existing = farmerStore.findByAadhaar(aadhaar);
 
-                if (rs.next()) {
-                    String existingName = rs.getString("name");
-                    int farmerId = rs.getInt("id");
+                if (existing != null) {
+                    String existingName = existing.name;
+                    int farmerId = existing.id;
+                    FARMER_REGISTRATION.recordSince(startNanos);
+                    events.publish(EventLog.Type.FARMER_REGISTRATION, EventLog.Outcome.RETURNING,
+                        Districts.id(existing.district), farmerId, 0, startNanos);
                     JOptionPane.showMessageDialog(dialog, 
                         "Welcome back, " + existingName + "!\nYour Farmer ID: " + farmerId,
                         "Welcome Back",
@@ -447,27 +510,22 @@ public class MainApplication extends JFrame {
                     dialog.dispose();
                     showFarmerPanel(existingName);
                 } else {
-                    String insertSql = "INSERT INTO farmers (name, aadhaar_number, district, village, regdate) " +
-                                     "VALUES (?, ?, ?, ?, NOW())";
-                    PreparedStatement insertPs = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS);
-                    insertPs.setString(1, name);
-                    insertPs.setString(2, aadhaar);
-                    insertPs.setString(3, district);
-                    insertPs.setString(4, village);
-                    insertPs.executeUpdate();
-
-                    rs = insertPs.getGeneratedKeys();
-                    if (rs.next()) {
-                        int farmerId = rs.getInt(1);
-                        JOptionPane.showMessageDialog(dialog, 
-                            "Farmer registered successfully!\nYour Farmer ID: " + farmerId,
-                            "Registration Successful",
-                            JOptionPane.INFORMATION_MESSAGE);
-                        dialog.dispose();
-                        showFarmerPanel(name);
-                    }
+                    Farmer farmer = farmerStore.register(name, aadhaar, district, village);
+                    FARMER_REGISTRATION.recordSince(startNanos);
+                    events.publish(EventLog.Type.FARMER_REGISTRATION, EventLog.Outcome.OK,
+                        Districts.id(district), farmer.id, 0, startNanos);
+                    JOptionPane.showMessageDialog(dialog, 
+                        "Farmer registered successfully!\nYour Farmer ID: " + farmer.id,
+                        "Registration Successful",
+                        JOptionPane.INFORMATION_MESSAGE);
+                    dialog.dispose();
+                    showFarmerPanel(name);
                 }
             } catch (SQLException ex) {
+                Metrics.increment("errors.sql");
+                FARMER_REGISTRATION.recordSince(startNanos);
+                events.publish(EventLog.Type.FARMER_REGISTRATION, EventLog.Outcome.ERROR,
+                    Districts.id(district), -1, 0, startNanos);
                 JOptionPane.showMessageDialog(dialog, 
                     "Database error: " + ex.getMessage(),
                     "Error",
@@ -480,233 +538,499 @@ public class MainApplication extends JFrame {
         dialog.setVisible(true);
     }
 
+    // Villages missing from the gazetteer are still accepted as typed; known
+    // ones are stored with their gazetteer spelling.
+    private String canonicalVillage(String text, String district) {
+        Gazetteer gazetteer = gazetteerReady.getNow(null);
+        if (gazetteer == null || text.isEmpty()) {
+            return text;
+        }
+        String canonical = gazetteer.canonical(text, Gazetteer.Kind.VILLAGE, Districts.id(district));
+        return canonical != null ? canonical : text;
+    }
+
     private void showFarmerPanel(String farmerName) {
-        JPanel panel = new JPanel(new BorderLayout(20, 20));
-        panel.setBorder(new EmptyBorder(20, 20, 20, 20));
-        panel.setBackground(new Color(240, 240, 240));
+        if (farmerDashboard == null) {
+            farmerDashboard = new FarmerDashboard();
+            mainPanel.add(farmerDashboard, "farmerPanel");
+        }
+        farmerDashboard.bind(farmerName);
+        cardLayout.show(mainPanel, "farmerPanel");
+    }
 
-        // Top Panel with back button and farmer details
-        JPanel topPanel = new JPanel(new BorderLayout());
-        topPanel.setBackground(new Color(240, 240, 240));
-        
-        JButton backBtn = createStyledButton("Back");
-        backBtn.addActionListener(e -> cardLayout.show(mainPanel, "menu"));
-        
-        JPanel farmerDetailsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        farmerDetailsPanel.setBackground(new Color(240, 240, 240));
-        
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT id, district, village FROM farmers WHERE name = ?";
-            PreparedStatement ps = conn.prepareStatement(sql);
-            ps.setString(1, farmerName);
-            ResultSet rs = ps.executeQuery();
-            
-            if (rs.next()) {
-                JLabel farmerIdLabel = new JLabel("Farmer ID: " + rs.getInt("id"));
-                JLabel districtLabel = new JLabel("District: " + rs.getString("district"));
-                JLabel villageLabel = new JLabel("Village: " + rs.getString("village"));
-                
-                farmerIdLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
-                districtLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-                villageLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-                
-                farmerDetailsPanel.add(farmerIdLabel);
-                farmerDetailsPanel.add(new JLabel(" | "));
-                farmerDetailsPanel.add(districtLabel);
-                farmerDetailsPanel.add(new JLabel(" | "));
-                farmerDetailsPanel.add(villageLabel);
-            }
-        } catch (SQLException ex) {
-            JLabel errorLabel = new JLabel("Error fetching farmer details");
-            errorLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+    // Built once and rebound to each farmer who logs in, so a kiosk keeps a
+    // single dashboard tree however many sessions it serves.
+    private class FarmerDashboard extends JPanel {
+        private static final long serialVersionUID = 1L;
+
+        private String farmerName;
+        private Farmer farmer;
+
+        private final JLabel farmerIdLabel = new JLabel();
+        private final JLabel districtLabel = new JLabel();
+        private final JLabel villageLabel = new JLabel();
+        private final JLabel errorLabel = new JLabel("Error fetching farmer details");
+        private final JPanel farmerDetailsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+        private final JComboBox<String> districtBox = new JComboBox<>(districts);
+        private final JComboBox<String> cropBox = new JComboBox<>(crops);
+        private final JTextField latField = new JTextField();
+        private final JTextField lonField = new JTextField();
+        private final JTextArea resultArea = new JTextArea(10, 40);
+
+        FarmerDashboard() {
+            super(new BorderLayout(20, 20));
+            setBorder(new EmptyBorder(20, 20, 20, 20));
+            setBackground(UiResources.BACKGROUND);
+
+            // Top Panel with back button and farmer details
+            JPanel topPanel = new JPanel(new BorderLayout());
+            topPanel.setBackground(UiResources.BACKGROUND);
+
+            JButton backBtn = createStyledButton("Back");
+            backBtn.addActionListener(e -> cardLayout.show(mainPanel, "menu"));
+
+            farmerDetailsPanel.setBackground(UiResources.BACKGROUND);
+            farmerIdLabel.setFont(UiResources.LABEL_BOLD_FONT);
+            districtLabel.setFont(UiResources.LABEL_FONT);
+            villageLabel.setFont(UiResources.LABEL_FONT);
+            errorLabel.setFont(UiResources.LABEL_FONT);
+
+            farmerDetailsPanel.add(farmerIdLabel);
+            farmerDetailsPanel.add(new JLabel(" | "));
+            farmerDetailsPanel.add(districtLabel);
+            farmerDetailsPanel.add(new JLabel(" | "));
+            farmerDetailsPanel.add(villageLabel);
             farmerDetailsPanel.add(errorLabel);
+
+            topPanel.add(backBtn, BorderLayout.WEST);
+            topPanel.add(farmerDetailsPanel, BorderLayout.CENTER);
+
+            // Center Panel with main functionality
+            JPanel centerPanel = new JPanel(new BorderLayout(20, 20));
+            centerPanel.setBackground(UiResources.BACKGROUND);
+
+            // Input Panel
+            JPanel inputPanel = new JPanel(new GridBagLayout());
+            inputPanel.setBackground(UiResources.BACKGROUND);
+            inputPanel.setBorder(BorderFactory.createTitledBorder(
+                BorderFactory.createEtchedBorder(),
+                "Farmer Dashboard",
+                TitledBorder.CENTER,
+                TitledBorder.TOP,
+                UiResources.SECTION_FONT
+            ));
+
+            GridBagConstraints gbc = new GridBagConstraints();
+            gbc.insets = new Insets(10, 10, 10, 10);
+            gbc.fill = GridBagConstraints.HORIZONTAL;
+
+            Dimension fieldSize = new Dimension(200, 30);
+            districtBox.setPreferredSize(fieldSize);
+            cropBox.setPreferredSize(fieldSize);
+            installDistrictAndCropTypeAhead(districtBox, cropBox);
+            latField.setPreferredSize(fieldSize);
+            lonField.setPreferredSize(fieldSize);
+
+            // Add components to input panel
+            gbc.gridx = 0; gbc.gridy = 0;
+            inputPanel.add(new JLabel("Select District:"), gbc);
+            gbc.gridx = 1;
+            inputPanel.add(districtBox, gbc);
+
+            gbc.gridx = 0; gbc.gridy = 1;
+            inputPanel.add(new JLabel("Select Crop:"), gbc);
+            gbc.gridx = 1;
+            inputPanel.add(cropBox, gbc);
+
+            gbc.gridx = 0; gbc.gridy = 2;
+            inputPanel.add(new JLabel("Your Latitude:"), gbc);
+            gbc.gridx = 1;
+            inputPanel.add(latField, gbc);
+
+            gbc.gridx = 0; gbc.gridy = 3;
+            inputPanel.add(new JLabel("Your Longitude:"), gbc);
+            gbc.gridx = 1;
+            inputPanel.add(lonField, gbc);
+
+            // Button Panel
+            JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 10));
+            buttonPanel.setBackground(UiResources.BACKGROUND);
+
+            JButton getInfoBtn = createStyledButton("Get Advice");
+            JButton findCentresBtn = createStyledButton("Find Nearest Govt. Centres");
+            JButton marketPriceBtn = createStyledButton("Check Market Prices");
+            JButton recommendBtn = createStyledButton("Recommended Crops");
+            JButton sowNowBtn = createStyledButton("What Can I Sow Now?");
+            JButton weatherBtn = createStyledButton("Weather Forecast");
+
+            buttonPanel.add(getInfoBtn);
+            buttonPanel.add(findCentresBtn);
+            buttonPanel.add(marketPriceBtn);
+            buttonPanel.add(recommendBtn);
+            buttonPanel.add(sowNowBtn);
+            buttonPanel.add(weatherBtn);
+
+            // Result Panel
+            JPanel resultPanel = new JPanel(new BorderLayout());
+            resultPanel.setBackground(UiResources.BACKGROUND);
+            resultPanel.setBorder(BorderFactory.createTitledBorder("Results"));
+
+            resultArea.setEditable(false);
+            resultArea.setLineWrap(true);
+            resultArea.setWrapStyleWord(true);
+            resultArea.setFont(UiResources.LABEL_FONT);
+
+            JScrollPane scrollPane = new JScrollPane(resultArea);
+            resultPanel.add(scrollPane, BorderLayout.CENTER);
+
+            // Add all panels to center panel
+            centerPanel.add(inputPanel, BorderLayout.NORTH);
+            centerPanel.add(buttonPanel, BorderLayout.CENTER);
+            centerPanel.add(resultPanel, BorderLayout.SOUTH);
+
+            // Add all panels to main panel
+            add(topPanel, BorderLayout.NORTH);
+            add(centerPanel, BorderLayout.CENTER);
+
+            // Add action listeners
+            findCentresBtn.addActionListener(e -> findCentres());
+            getInfoBtn.addActionListener(e -> getAdvice());
+            marketPriceBtn.addActionListener(e -> checkMarketPrice());
+            recommendBtn.addActionListener(e -> recommendCrops());
+            sowNowBtn.addActionListener(e -> sowNow());
+            weatherBtn.addActionListener(e -> showForecast());
         }
-        
-        topPanel.add(backBtn, BorderLayout.WEST);
-        topPanel.add(farmerDetailsPanel, BorderLayout.CENTER);
 
-        // Center Panel with main functionality
-        JPanel centerPanel = new JPanel(new BorderLayout(20, 20));
-        centerPanel.setBackground(new Color(240, 240, 240));
-        
-        // Input Panel
-        JPanel inputPanel = new JPanel(new GridBagLayout());
-        inputPanel.setBackground(new Color(240, 240, 240));
-        inputPanel.setBorder(BorderFactory.createTitledBorder(
-            BorderFactory.createEtchedBorder(),
-            "Farmer Dashboard",
-            TitledBorder.CENTER,
-            TitledBorder.TOP,
-            new Font("Segoe UI", Font.BOLD, 16)
-        ));
-        
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(10, 10, 10, 10);
-        gbc.fill = GridBagConstraints.HORIZONTAL;
+        // Switches the dashboard to a new farmer and clears the previous
+        // farmer's inputs and results.
+        void bind(String farmerName) {
+            this.farmerName = farmerName;
+            TypeAhead.reset(districtBox, districts);
+            TypeAhead.reset(cropBox, crops);
+            latField.setText("");
+            lonField.setText("");
+            resultArea.setText("");
+
+            farmer = null;
+            boolean failed = false;
+            try {
+                farmer = farmerStore.findByName(farmerName);
+            } catch (SQLException ex) {
+                Metrics.increment("errors.sql");
+                failed = true;
+            }
 
-        JComboBox<String> districtBox = new JComboBox<>(districts);
-        JComboBox<String> cropBox = new JComboBox<>(crops);
-        JTextField latField = new JTextField();
-        JTextField lonField = new JTextField();
+            boolean found = farmer != null;
+            for (Component c : farmerDetailsPanel.getComponents()) {
+                c.setVisible(found);
+            }
+            errorLabel.setVisible(failed);
+            if (found) {
+                farmerIdLabel.setText("Farmer ID: " + farmer.id);
+                districtLabel.setText("District: " + farmer.district);
+                villageLabel.setText("Village: " + farmer.village);
+            }
+        }
 
-        Dimension fieldSize = new Dimension(200, 30);
-        districtBox.setPreferredSize(fieldSize);
-        cropBox.setPreferredSize(fieldSize);
-        latField.setPreferredSize(fieldSize);
-        lonField.setPreferredSize(fieldSize);
+        private void findCentres() {
+            long startNanos = System.nanoTime();
+            String district = resolve(districtBox, Gazetteer.Kind.DISTRICT, districts);
+            if (district == null) {
+                resultArea.setText("Please choose a district from the list.");
+                logLookup(EventLog.Outcome.INVALID, null, 0, startNanos, Double.NaN, Double.NaN);
+                return;
+            }
+            if (bundle != null) {
+                findCentresInBundle(district, startNanos);
+                return;
+            }
+            whenReady(roadNetworkReady, resultArea, routes -> {
+                Location districtLoc = Arrays.stream(routes.nodes)
+                    .filter(loc -> loc.name.equals(district) && loc.type.equals("DISTRICT"))
+                    .findFirst()
+                    .orElse(null);
+
+                if (districtLoc != null) {
+                    try {
+                        double farmerLat = Double.parseDouble(latField.getText().trim());
+                        double farmerLon = Double.parseDouble(lonField.getText().trim());
+
+                        // The farmer reaches the network at the district headquarters.
+                        double toDistrict = TravelTime.minutes(
+                            Graph.calculateDistance(farmerLat, farmerLon, districtLoc.latitude, districtLoc.longitude),
+                            TravelTime.RoadClass.DISTRICT_ROAD, Double.NaN, districtLoc.elevation);
+                        List<ContractionHierarchy.Route> nearestCenters = new ArrayList<>();
+                        for (ContractionHierarchy.Route route : routes.nearestCentres(districtLoc, 5)) {
+                            nearestCenters.add(new ContractionHierarchy.Route(route.centre, toDistrict + route.minutes));
+                        }
+                        showCentres(farmerLat, farmerLon, nearestCenters);
+                        logLookup(EventLog.Outcome.OK, district, nearestCenters.size(), startNanos, farmerLat, farmerLon);
+                    } catch (NumberFormatException ex) {
+                        resultArea.setText("Please enter valid latitude and longitude coordinates.");
+                        logLookup(EventLog.Outcome.INVALID, district, 0, startNanos, Double.NaN, Double.NaN);
+                    }
+                } else {
+                    resultArea.setText("District not found in the network.");
+                    logLookup(EventLog.Outcome.ERROR, district, 0, startNanos, Double.NaN, Double.NaN);
+                }
+            });
+        }
 
-        // Add components to input panel
-        gbc.gridx = 0; gbc.gridy = 0;
-        inputPanel.add(new JLabel("Select District:"), gbc);
-        gbc.gridx = 1;
-        inputPanel.add(districtBox, gbc);
+        // Same search over the bundle's road graph, joining the farmer to the
+        // district headquarters without modifying the mapping.
+        private void findCentresInBundle(String district, long startNanos) {
+            int districtNode = bundle.findNode(district, "DISTRICT");
+            if (districtNode < 0) {
+                resultArea.setText("District not found in the network.");
+                logLookup(EventLog.Outcome.ERROR, district, 0, startNanos, Double.NaN, Double.NaN);
+                return;
+            }
+            try {
+                double farmerLat = Double.parseDouble(latField.getText().trim());
+                double farmerLon = Double.parseDouble(lonField.getText().trim());
+                double[] minutes = new double[5];
+                int[] centres = bundle.nearestCentres(farmerLat, farmerLon, districtNode, 5, minutes);
+                List<ContractionHierarchy.Route> nearestCenters = new ArrayList<>();
+                for (int i = 0; i < centres.length; i++) {
+                    nearestCenters.add(new ContractionHierarchy.Route(bundle.location(centres[i]), minutes[i]));
+                }
+                showCentres(farmerLat, farmerLon, nearestCenters);
+                logLookup(EventLog.Outcome.OK, district, nearestCenters.size(), startNanos, farmerLat, farmerLon);
+            } catch (NumberFormatException ex) {
+                resultArea.setText("Please enter valid latitude and longitude coordinates.");
+                logLookup(EventLog.Outcome.INVALID, district, 0, startNanos, Double.NaN, Double.NaN);
+            }
+        }
 
-        gbc.gridx = 0; gbc.gridy = 1;
-        inputPanel.add(new JLabel("Select Crop:"), gbc);
-        gbc.gridx = 1;
-        inputPanel.add(cropBox, gbc);
+        private void logLookup(EventLog.Outcome outcome, String district, int found, long startNanos,
+                               double farmerLat, double farmerLon) {
+            int farmerId = farmer == null ? -1 : farmer.id;
+            events.publish(EventLog.Type.CENTRES_LOOKUP, outcome, Districts.id(district), farmerId, found, startNanos,
+                (float) farmerLat, (float) farmerLon);
+        }
 
-        gbc.gridx = 0; gbc.gridy = 2;
-        inputPanel.add(new JLabel("Your Latitude:"), gbc);
-        gbc.gridx = 1;
-        inputPanel.add(latField, gbc);
+        private void showCentres(double farmerLat, double farmerLon, List<ContractionHierarchy.Route> nearestCenters) {
+            StringBuilder result = new StringBuilder();
+            result.append("5 Nearest Government Centres from your location (by travel time):\n\n");
+
+            for (ContractionHierarchy.Route route : nearestCenters) {
+                Location center = route.centre;
+                result.append("* ").append(center.name).append("\n");
+                result.append("  Address: ").append(center.address).append("\n");
+                result.append("  Contact: ").append(center.contact).append("\n");
+                result.append("  Services: ").append(center.services).append("\n");
+                result.append("  Distance: ").append(String.format("%.1f",
+                    Graph.calculateDistance(farmerLat, farmerLon,
+                                    center.latitude, center.longitude))).append(" km\n");
+                result.append("  Travel time: about ").append(Math.round(route.minutes)).append(" min\n\n");
+            }
 
-        gbc.gridx = 0; gbc.gridy = 3;
-        inputPanel.add(new JLabel("Your Longitude:"), gbc);
-        gbc.gridx = 1;
-        inputPanel.add(lonField, gbc);
+            resultArea.setText(result.toString());
+        }
 
-        // Button Panel
-        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 10));
-        buttonPanel.setBackground(new Color(240, 240, 240));
-        
-        JButton getInfoBtn = createStyledButton("Get Advice");
-        JButton findCentresBtn = createStyledButton("Find Nearest Govt. Centres");
-        JButton marketPriceBtn = createStyledButton("Check Market Prices");
-        
-        buttonPanel.add(getInfoBtn);
-        buttonPanel.add(findCentresBtn);
-        buttonPanel.add(marketPriceBtn);
-
-        // Result Panel
-        JPanel resultPanel = new JPanel(new BorderLayout());
-        resultPanel.setBackground(new Color(240, 240, 240));
-        resultPanel.setBorder(BorderFactory.createTitledBorder("Results"));
-        
-        JTextArea resultArea = new JTextArea(10, 40);
-        resultArea.setEditable(false);
-        resultArea.setLineWrap(true);
-        resultArea.setWrapStyleWord(true);
-        resultArea.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        
-        JScrollPane scrollPane = new JScrollPane(resultArea);
-        resultPanel.add(scrollPane, BorderLayout.CENTER);
+        private void getAdvice() {
+            String district = resolve(districtBox, Gazetteer.Kind.DISTRICT, districts);
+            String crop = resolve(cropBox, Gazetteer.Kind.CROP, crops);
+            if (district == null || crop == null) {
+                resultArea.setText("Please choose a district and crop from the lists.");
+                return;
+            }
 
-        // Add all panels to center panel
-        centerPanel.add(inputPanel, BorderLayout.NORTH);
-        centerPanel.add(buttonPanel, BorderLayout.CENTER);
-        centerPanel.add(resultPanel, BorderLayout.SOUTH);
+            long startNanos = System.nanoTime();
+            try {
+                String advice = adviceStore.findAdvice(district, crop);
 
-        // Add all panels to main panel
-        panel.add(topPanel, BorderLayout.NORTH);
-        panel.add(centerPanel, BorderLayout.CENTER);
+                if (advice != null) {
+                    resultArea.setText("Hello " + farmerName + ",\n\n📌 Advice:\n" + advice);
+                } else {
+                    resultArea.setText("⚠️ No advice found for " + crop + " in " + district + ".");
+                }
+            } catch (SQLException ex) {
+                Metrics.increment("errors.sql");
+                resultArea.setText("❗ Error fetching advice: " + ex.getMessage());
+            } finally {
+                GET_ADVICE.recordSince(startNanos);
+            }
+        }
 
-        // Add action listeners
-        findCentresBtn.addActionListener(e -> {
-            String district = (String) districtBox.getSelectedItem();
-            Location districtLoc = roadNetwork.adjacencyList.keySet().stream()
-                .filter(loc -> loc.name.equals(district) && loc.type.equals("DISTRICT"))
-                .findFirst()
-                .orElse(null);
-
-            if (districtLoc != null) {
-                try {
-                    double farmerLat = Double.parseDouble(latField.getText().trim());
-                    double farmerLon = Double.parseDouble(lonField.getText().trim());
-                    
-                    Location farmerLoc = new Location(
-                        "Farmer Location",
-                        farmerLat,
-                        farmerLon,
-                        "FARMER",
-                        "Current Location",
-                        "",
-                        ""
-                    );
-                    roadNetwork.addLocation(farmerLoc);
-                    roadNetwork.addRoad(farmerLoc, districtLoc);
-
-                    List<Location> nearestCenters = roadNetwork.findNearestCenters(farmerLoc, 5);
-                    
-                    StringBuilder result = new StringBuilder();
-                    result.append("5 Nearest Government Centres from your location:\n\n");
-                    
-                    for (Location center : nearestCenters) {
-                        result.append("* ").append(center.name).append("\n");
-                        result.append("  Address: ").append(center.address).append("\n");
-                        result.append("  Contact: ").append(center.contact).append("\n");
-                        result.append("  Services: ").append(center.services).append("\n");
-                        result.append("  Distance: ").append(String.format("%.1f", 
-                            calculateDistance(farmerLat, farmerLon,
-                                            center.latitude, center.longitude))).append(" km\n\n");
-                    }
-                    
-                    resultArea.setText(result.toString());
-                } catch (NumberFormatException ex) {
-                    resultArea.setText("Please enter valid latitude and longitude coordinates.");
+        // The farmer's own village when it lies in the chosen district and
+        // has attributes on file, else the district headquarters.
+        private int siteFor(SiteTable sites, String district) {
+            int districtId = Districts.id(district);
+            if (farmer != null && district.equals(farmer.district)) {
+                int site = sites.indexOf(districtId, farmer.village);
+                if (site >= 0) {
+                    return site;
                 }
-            } else {
-                resultArea.setText("District not found in the network.");
             }
-        });
+            return SiteTable.headquarters(districtId);
+        }
 
-        getInfoBtn.addActionListener(e -> {
-            String district = (String) districtBox.getSelectedItem();
-            String crop = (String) cropBox.getSelectedItem();
+        private void recommendCrops() {
+            String district = resolve(districtBox, Gazetteer.Kind.DISTRICT, districts);
+            if (district == null) {
+                resultArea.setText("Please choose a district from the list.");
+                return;
+            }
+            whenReady(suitabilityReady, resultArea, ranking -> {
+                int site = siteFor(ranking.sites, district);
+                String place = site == SiteTable.headquarters(Districts.id(district))
+                    ? district : ranking.sites.names[site] + ", " + district;
+
+                StringBuilder result = new StringBuilder();
+                result.append("🌱 Most suitable crops for ").append(place).append(":\n\n");
+                for (int r = 0; r < ranking.topN; r++) {
+                    result.append(r + 1).append(". ").append(ranking.cropAt(site, r))
+                        .append(String.format(" (suitability %.0f/100)", ranking.scoreAt(site, r))).append("\n");
+                }
+                result.append("\nBased on elevation, rainfall, temperature and ")
+                    .append(SiteTable.SOIL_NAMES[ranking.sites.soil[site]]).append(" soil.");
+                resultArea.setText(result.toString());
+            });
+        }
 
-            try (Connection conn = DatabaseConnection.getConnection()) {
-                String query = "SELECT advice FROM advice WHERE district=? AND crop=?";
-                PreparedStatement ps = conn.prepareStatement(query);
-                ps.setString(1, district);
-                ps.setString(2, crop);
-                ResultSet rs = ps.executeQuery();
+        // Crops open for sowing today and in the coming days at the farmer's
+        // elevation band, plus when the selected crop's window opens.
+        private void sowNow() {
+            String district = resolve(districtBox, Gazetteer.Kind.DISTRICT, districts);
+            if (district == null) {
+                resultArea.setText("Please choose a district from the list.");
+                return;
+            }
+            String crop = resolve(cropBox, Gazetteer.Kind.CROP, crops);
+            int districtId = Districts.id(district);
+            whenReady(sowingCalendarReady, resultArea, calendar -> {
+                SuitabilityEngine.Ranking ranking = suitabilityReady.getNow(null);
+                double elevation = ranking != null
+                    ? ranking.sites.elevation[siteFor(ranking.sites, district)]
+                    : Districts.ELEVATIONS[districtId];
+                int band = SowingCalendar.band(elevation);
+                LocalDate today = LocalDate.now();
+                DateTimeFormatter format = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+                List<String> openNow = calendar.sowableWithin(districtId, band, today, 1);
+                List<String> openingSoon = calendar.sowableWithin(districtId, band, today, SOWING_LOOKAHEAD_DAYS);
+                openingSoon.removeAll(openNow);
+
+                StringBuilder result = new StringBuilder();
+                result.append("🌾 Sowing in ").append(district).append(" (")
+                    .append(SowingCalendar.BAND_NAMES[band]).append(" band) on ")
+                    .append(today.format(format)).append(":\n\n");
+                result.append("Open now:\n");
+                if (openNow.isEmpty()) {
+                    result.append("  (none)\n");
+                }
+                for (String open : openNow) {
+                    LocalDate end = calendar.windowEnd(districtId, calendar.crop(open), band, today);
+                    result.append("* ").append(open);
+                    if (end != null) {
+                        result.append(" - sow by ").append(end.format(format));
+                    }
+                    result.append("\n");
+                }
+                result.append("\nOpening in the next ").append(SOWING_LOOKAHEAD_DAYS).append(" days:\n");
+                if (openingSoon.isEmpty()) {
+                    result.append("  (none)\n");
+                }
+                for (String soon : openingSoon) {
+                    result.append("* ").append(soon).append(" - in ")
+                        .append(calendar.daysUntilOpen(districtId, calendar.crop(soon), band, today))
+                        .append(" days\n");
+                }
 
-                if (rs.next()) {
-                    resultArea.setText("Hello " + farmerName + ",\n\n📌 Advice:\n" + rs.getString("advice"));
-                } else {
-                    resultArea.setText("⚠️ No advice found for " + crop + " in " + district + ".");
+                int cropId = crop == null ? -1 : calendar.crop(crop);
+                if (cropId >= 0 && !openNow.contains(crop) && !openingSoon.contains(crop)) {
+                    int days = calendar.daysUntilOpen(districtId, cropId, band, today);
+                    result.append("\n").append(crop).append(days < 0
+                        ? ": no sowing window at this elevation."
+                        : ": window opens in " + days + " days.");
                 }
-            } catch (SQLException ex) {
-                resultArea.setText("❗ Error fetching advice: " + ex.getMessage());
+                resultArea.setText(result.toString());
+            });
+        }
+
+        // Forecast at the coordinates the farmer entered, from today onwards.
+        private void showForecast() {
+            double lat, lon;
+            try {
+                lat = Double.parseDouble(latField.getText().trim());
+                lon = Double.parseDouble(lonField.getText().trim());
+            } catch (NumberFormatException ex) {
+                resultArea.setText("Please enter valid latitude and longitude coordinates.");
+                return;
             }
-        });
+            whenReady(weatherReady, resultArea, ignored -> {
+                WeatherGrid grid = weather.current();
+                if (grid == null) {
+                    resultArea.setText("⚠️ No weather forecast is available yet.");
+                    return;
+                }
+                long startNanos = System.nanoTime();
+                LocalDate today = LocalDate.now(WeatherGrid.ZONE);
+                int first = (int) Math.max(0, today.toEpochDay() - grid.issueDate().toEpochDay());
+                int last = Math.min(grid.days, first + FORECAST_DAYS);
+                if (first >= last) {
+                    resultArea.setText("⚠️ The latest forecast (issued " + grid.issueDate() + ") has expired.");
+                    return;
+                }
+                if (Float.isNaN(grid.value(first, WeatherGrid.RAINFALL, lat, lon))) {
+                    resultArea.setText("⚠️ These coordinates are outside the forecast area.");
+                    return;
+                }
 
-        marketPriceBtn.addActionListener(e -> {
-            String crop = (String) cropBox.getSelectedItem();
-            double price = marketPrices.get(crop);
-            resultArea.setText("💰 Market Price for " + crop + ":\n"
-                    + "Current Price: ₹" + String.format("%.2f", price) + " per quintal\n"
-                    + "Last Updated: " + LocalDate.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
-        });
+                DateTimeFormatter format = DateTimeFormatter.ofPattern("EEE dd/MM");
+                StringBuilder result = new StringBuilder();
+                result.append(String.format("🌦️ Forecast for %.4f, %.4f:%n%n", lat, lon));
+                for (int d = first; d < last; d++) {
+                    result.append(String.format("%s   rain %5.1f mm   %4.1f–%4.1f °C%n",
+                        grid.issueDate().plusDays(d).format(format),
+                        grid.value(d, WeatherGrid.RAINFALL, lat, lon),
+                        grid.value(d, WeatherGrid.TMIN, lat, lon),
+                        grid.value(d, WeatherGrid.TMAX, lat, lon)));
+                }
+                float nextThreeDays = grid.total(first, 3, WeatherGrid.RAINFALL, lat, lon);
+                float week = grid.total(first, last - first, WeatherGrid.RAINFALL, lat, lon);
+                result.append(String.format("%nTotal rain: %.0f mm%n", week));
+                if (nextThreeDays > HEAVY_RAIN_3_DAYS) {
+                    result.append("Heavy rain in the next 3 days: hold off sowing and fertiliser.");
+                } else if (week < DRY_WEEK) {
+                    result.append("Dry week ahead: sow only where you can irrigate.");
+                }
+                resultArea.setText(result.toString());
+                WEATHER_FORECAST.recordSince(startNanos);
+            });
+        }
 
-        mainPanel.add(panel, "farmerPanel");
-        cardLayout.show(mainPanel, "farmerPanel");
+        private void checkMarketPrice() {
+            String crop = resolve(cropBox, Gazetteer.Kind.CROP, crops);
+            if (crop == null) {
+                resultArea.setText("Please choose a crop from the list.");
+                return;
+            }
+            whenReady(marketPricesReady, resultArea, marketPrices -> {
+                double price = marketPrices.get(crop);
+                resultArea.setText("💰 Market Price for " + crop + ":\n"
+                        + "Current Price: ₹" + String.format("%.2f", price) + " per quintal\n"
+                        + "Last Updated: " + LocalDate.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+            });
+        }
     }
 
     private void openExpertRegistration() {
         JPanel panel = new JPanel(new BorderLayout(20, 20));
         panel.setBorder(new EmptyBorder(20, 20, 20, 20));
-        panel.setBackground(new Color(240, 240, 240));
+        panel.setBackground(UiResources.BACKGROUND);
 
         // Title
         JLabel title = new JLabel("Expert Registration", SwingConstants.CENTER);
-        title.setFont(new Font("Segoe UI", Font.BOLD, 24));
-        title.setForeground(new Color(34, 139, 34));
+        title.setFont(UiResources.HEADING_FONT);
+        title.setForeground(UiResources.BRAND_GREEN);
         panel.add(title, BorderLayout.NORTH);
 
         // Form Panel
         JPanel formPanel = new JPanel(new GridBagLayout());
-        formPanel.setBackground(new Color(240, 240, 240));
+        formPanel.setBackground(UiResources.BACKGROUND);
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(10, 10, 10, 10);
         gbc.fill = GridBagConstraints.HORIZONTAL;
@@ -734,10 +1058,10 @@ public class MainApplication extends JFrame {
 
         // Buttons Panel
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 10));
-        buttonPanel.setBackground(new Color(240, 240, 240));
+        buttonPanel.setBackground(UiResources.BACKGROUND);
         
-        JButton registerBtn = createStyledButton("Register", new Color(70, 130, 180));
-        JButton cancelBtn = createStyledButton("Cancel", new Color(220, 53, 69));
+        JButton registerBtn = createStyledButton("Register", UiResources.EXPERT_BUTTON);
+        JButton cancelBtn = createStyledButton("Cancel", UiResources.CANCEL_BUTTON);
         
         buttonPanel.add(registerBtn);
         buttonPanel.add(cancelBtn);
@@ -763,16 +1087,22 @@ public class MainApplication extends JFrame {
                 return;
             }
 
+            long startNanos = System.nanoTime();
             try (Connection conn = DatabaseConnection.getConnection()) {
                 String check = "SELECT id FROM experts WHERE name=? AND registration_number=?";
                 PreparedStatement ps = conn.prepareStatement(check);
                 ps.setString(1, name);
                 ps.setString(2, regNo);
+                long sqlStart = System.nanoTime();
                 ResultSet rs = ps.executeQuery();
+                SQL_EXPERT_BY_NAME_REG.recordSince(sqlStart);
 
                 int expertId;
                 if (rs.next()) {
                     expertId = rs.getInt("id");
+                    EXPERT_REGISTRATION.recordSince(startNanos);
+                    events.publish(EventLog.Type.EXPERT_REGISTRATION, EventLog.Outcome.RETURNING,
+                        -1, expertId, 0, startNanos);
                     JOptionPane.showMessageDialog(dialog, 
                         "Welcome back, " + name + "!",
                         "Welcome Back",
@@ -782,10 +1112,15 @@ public class MainApplication extends JFrame {
                     ps = conn.prepareStatement(insert, Statement.RETURN_GENERATED_KEYS);
                     ps.setString(1, name);
                     ps.setString(2, regNo);
+                    long insertStart = System.nanoTime();
                     ps.executeUpdate();
+                    SQL_EXPERT_INSERT.recordSince(insertStart);
                     rs = ps.getGeneratedKeys();
                     rs.next();
                     expertId = rs.getInt(1);
+                    EXPERT_REGISTRATION.recordSince(startNanos);
+                    events.publish(EventLog.Type.EXPERT_REGISTRATION, EventLog.Outcome.OK,
+                        -1, expertId, 0, startNanos);
                     JOptionPane.showMessageDialog(dialog, 
                         "Expert registered successfully!",
                         "Registration Successful",
@@ -794,6 +1129,9 @@ public class MainApplication extends JFrame {
                 dialog.dispose();
                 showExpertPanel(name, expertId);
             } catch (SQLException ex) {
+                Metrics.increment("errors.sql");
+                EXPERT_REGISTRATION.recordSince(startNanos);
+                events.publish(EventLog.Type.EXPERT_REGISTRATION, EventLog.Outcome.ERROR, -1, -1, 0, startNanos);
                 JOptionPane.showMessageDialog(dialog, 
                     "Database error: " + ex.getMessage(),
                     "Error",
@@ -807,203 +1145,267 @@ public class MainApplication extends JFrame {
     }
 
     private void showExpertPanel(String expertName, int expertId) {
-        JPanel panel = new JPanel(new BorderLayout(20, 20));
-        panel.setBorder(new EmptyBorder(20, 20, 20, 20));
-        panel.setBackground(new Color(240, 240, 240));
-
-        // Top Panel with back button and expert details
-        JPanel topPanel = new JPanel(new BorderLayout());
-        topPanel.setBackground(new Color(240, 240, 240));
-        
-        JButton backBtn = createStyledButton("Back", new Color(100, 100, 100));
-        backBtn.addActionListener(e -> cardLayout.show(mainPanel, "menu"));
-        
-        JPanel expertDetailsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        expertDetailsPanel.setBackground(new Color(240, 240, 240));
-        
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT id, registration_number FROM experts WHERE name = ?";
-            PreparedStatement ps = conn.prepareStatement(sql);
-            ps.setString(1, expertName);
-            ResultSet rs = ps.executeQuery();
-            
-            if (rs.next()) {
-                JLabel expertIdLabel = new JLabel("Expert ID: " + rs.getInt("id"));
-                JLabel regNoLabel = new JLabel("Registration Number: " + rs.getString("registration_number"));
-                
-                expertIdLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
-                regNoLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-                
-                expertDetailsPanel.add(expertIdLabel);
-                expertDetailsPanel.add(new JLabel(" | "));
-                expertDetailsPanel.add(regNoLabel);
-            }
-        } catch (SQLException ex) {
-            JLabel errorLabel = new JLabel("Error fetching expert details");
-            errorLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-            expertDetailsPanel.add(errorLabel);
+        if (expertDashboard == null) {
+            expertDashboard = new ExpertDashboard();
+            mainPanel.add(expertDashboard, "expertPanel");
         }
-        
-        topPanel.add(backBtn, BorderLayout.WEST);
-        topPanel.add(expertDetailsPanel, BorderLayout.CENTER);
+        expertDashboard.bind(expertName, expertId);
+        cardLayout.show(mainPanel, "expertPanel");
+    }
 
-        // Center Panel with main functionality
-        JPanel centerPanel = new JPanel(new BorderLayout(20, 20));
-        centerPanel.setBackground(new Color(240, 240, 240));
-        
-        // Input Panel
-        JPanel inputPanel = new JPanel(new GridBagLayout());
-        inputPanel.setBackground(new Color(240, 240, 240));
-        inputPanel.setBorder(BorderFactory.createTitledBorder(
-            BorderFactory.createEtchedBorder(),
-            "Expert Dashboard",
-            TitledBorder.CENTER,
-            TitledBorder.TOP,
-            new Font("Segoe UI", Font.BOLD, 16)
-        ));
-        
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(10, 10, 10, 10);
-        gbc.fill = GridBagConstraints.HORIZONTAL;
+    // Built once and rebound to each expert who logs in.
+    private class ExpertDashboard extends JPanel {
+        private static final long serialVersionUID = 1L;
 
-        JComboBox<String> districtBox = new JComboBox<>(districts);
-        JComboBox<String> cropBox = new JComboBox<>(crops);
+        private int expertId;
 
-        Dimension fieldSize = new Dimension(200, 30);
-        districtBox.setPreferredSize(fieldSize);
-        cropBox.setPreferredSize(fieldSize);
+        private final JLabel expertIdLabel = new JLabel();
+        private final JLabel regNoLabel = new JLabel();
+        private final JLabel errorLabel = new JLabel("Error fetching expert details");
+        private final JPanel expertDetailsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
 
-        // Add components to input panel
-        gbc.gridx = 0; gbc.gridy = 0;
-        inputPanel.add(new JLabel("Select District:"), gbc);
-        gbc.gridx = 1;
-        inputPanel.add(districtBox, gbc);
+        private final JComboBox<String> districtBox = new JComboBox<>(districts);
+        private final JComboBox<String> cropBox = new JComboBox<>(crops);
+        private final JTextArea infoArea = new JTextArea(5, 30);
+        private final JLabel statusLabel = new JLabel("");
+        private final JCheckBox notifyBox = new JCheckBox("Notify all farmers in this district");
 
-        gbc.gridx = 0; gbc.gridy = 1;
-        inputPanel.add(new JLabel("Select Crop:"), gbc);
-        gbc.gridx = 1;
-        inputPanel.add(cropBox, gbc);
+        ExpertDashboard() {
+            super(new BorderLayout(20, 20));
+            setBorder(new EmptyBorder(20, 20, 20, 20));
+            setBackground(UiResources.BACKGROUND);
 
-        // Advice Panel
-        JPanel advicePanel = new JPanel(new BorderLayout(10, 10));
-        advicePanel.setBackground(new Color(240, 240, 240));
-        advicePanel.setBorder(BorderFactory.createTitledBorder("Enter Advice"));
+            // Top Panel with back button and expert details
+            JPanel topPanel = new JPanel(new BorderLayout());
+            topPanel.setBackground(UiResources.BACKGROUND);
 
-        JTextArea infoArea = new JTextArea(5, 30);
-        infoArea.setLineWrap(true);
-        infoArea.setWrapStyleWord(true);
-        infoArea.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        JScrollPane scrollPane = new JScrollPane(infoArea);
-        advicePanel.add(scrollPane, BorderLayout.CENTER);
+            JButton backBtn = createStyledButton("Back", UiResources.NEUTRAL_BUTTON);
+            backBtn.addActionListener(e -> cardLayout.show(mainPanel, "menu"));
 
-        // Button Panel
-        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 10));
-        buttonPanel.setBackground(new Color(240, 240, 240));
-        
-        JButton addBtn = createStyledButton("Add Advice", new Color(70, 130, 180));
-        JLabel statusLabel = new JLabel("");
-        statusLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        
-        buttonPanel.add(addBtn);
-        buttonPanel.add(statusLabel);
-
-        // Add all panels to center panel
-        centerPanel.add(inputPanel, BorderLayout.NORTH);
-        centerPanel.add(advicePanel, BorderLayout.CENTER);
-        centerPanel.add(buttonPanel, BorderLayout.SOUTH);
-
-        // Add action listener for Add Advice button
-        addBtn.addActionListener(e -> {
-            String district = (String) districtBox.getSelectedItem();
-            String crop = (String) cropBox.getSelectedItem();
+            expertDetailsPanel.setBackground(UiResources.BACKGROUND);
+            expertIdLabel.setFont(UiResources.LABEL_BOLD_FONT);
+            regNoLabel.setFont(UiResources.LABEL_FONT);
+            errorLabel.setFont(UiResources.LABEL_FONT);
+
+            expertDetailsPanel.add(expertIdLabel);
+            expertDetailsPanel.add(new JLabel(" | "));
+            expertDetailsPanel.add(regNoLabel);
+            expertDetailsPanel.add(errorLabel);
+
+            topPanel.add(backBtn, BorderLayout.WEST);
+            topPanel.add(expertDetailsPanel, BorderLayout.CENTER);
+
+            // Center Panel with main functionality
+            JPanel centerPanel = new JPanel(new BorderLayout(20, 20));
+            centerPanel.setBackground(UiResources.BACKGROUND);
+
+            // Input Panel
+            JPanel inputPanel = new JPanel(new GridBagLayout());
+            inputPanel.setBackground(UiResources.BACKGROUND);
+            inputPanel.setBorder(BorderFactory.createTitledBorder(
+                BorderFactory.createEtchedBorder(),
+                "Expert Dashboard",
+                TitledBorder.CENTER,
+                TitledBorder.TOP,
+                UiResources.SECTION_FONT
+            ));
+
+            GridBagConstraints gbc = new GridBagConstraints();
+            gbc.insets = new Insets(10, 10, 10, 10);
+            gbc.fill = GridBagConstraints.HORIZONTAL;
+
+            Dimension fieldSize = new Dimension(200, 30);
+            districtBox.setPreferredSize(fieldSize);
+            cropBox.setPreferredSize(fieldSize);
+            installDistrictAndCropTypeAhead(districtBox, cropBox);
+
+            // Add components to input panel
+            gbc.gridx = 0; gbc.gridy = 0;
+            inputPanel.add(new JLabel("Select District:"), gbc);
+            gbc.gridx = 1;
+            inputPanel.add(districtBox, gbc);
+
+            gbc.gridx = 0; gbc.gridy = 1;
+            inputPanel.add(new JLabel("Select Crop:"), gbc);
+            gbc.gridx = 1;
+            inputPanel.add(cropBox, gbc);
+
+            // Advice Panel
+            JPanel advicePanel = new JPanel(new BorderLayout(10, 10));
+            advicePanel.setBackground(UiResources.BACKGROUND);
+            advicePanel.setBorder(BorderFactory.createTitledBorder("Enter Advice"));
+
+            infoArea.setLineWrap(true);
+            infoArea.setWrapStyleWord(true);
+            infoArea.setFont(UiResources.LABEL_FONT);
+            JScrollPane scrollPane = new JScrollPane(infoArea);
+            advicePanel.add(scrollPane, BorderLayout.CENTER);
+            notifyBox.setBackground(UiResources.BACKGROUND);
+            notifyBox.setFont(UiResources.LABEL_FONT);
+            advicePanel.add(notifyBox, BorderLayout.SOUTH);
+
+            // Button Panel
+            JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 10));
+            buttonPanel.setBackground(UiResources.BACKGROUND);
+
+            JButton addBtn = createStyledButton("Add Advice", UiResources.EXPERT_BUTTON);
+            statusLabel.setFont(UiResources.LABEL_FONT);
+
+            buttonPanel.add(addBtn);
+            buttonPanel.add(statusLabel);
+
+            // Add all panels to center panel
+            centerPanel.add(inputPanel, BorderLayout.NORTH);
+            centerPanel.add(advicePanel, BorderLayout.CENTER);
+            centerPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+            // Add action listener for Add Advice button
+            addBtn.addActionListener(e -> addAdvice());
+
+            // Add all panels to main panel
+            add(topPanel, BorderLayout.NORTH);
+            add(centerPanel, BorderLayout.CENTER);
+        }
+
+        // Switches the dashboard to a new expert and clears the previous
+        // expert's draft and status.
+        void bind(String expertName, int expertId) {
+            this.expertId = expertId;
+            TypeAhead.reset(districtBox, districts);
+            TypeAhead.reset(cropBox, crops);
+            infoArea.setText("");
+            statusLabel.setText("");
+            notifyBox.setSelected(false);
+
+            boolean found = false;
+            boolean failed = false;
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT id, registration_number FROM experts WHERE name = ?";
+                PreparedStatement ps = conn.prepareStatement(sql);
+                ps.setString(1, expertName);
+                long sqlStart = System.nanoTime();
+                ResultSet rs = ps.executeQuery();
+                SQL_EXPERT_BY_NAME.recordSince(sqlStart);
+
+                if (rs.next()) {
+                    found = true;
+                    expertIdLabel.setText("Expert ID: " + rs.getInt("id"));
+                    regNoLabel.setText("Registration Number: " + rs.getString("registration_number"));
+                }
+            } catch (SQLException ex) {
+                Metrics.increment("errors.sql");
+                failed = true;
+            }
+
+            for (Component c : expertDetailsPanel.getComponents()) {
+                c.setVisible(found);
+            }
+            errorLabel.setVisible(failed);
+        }
+
+        private void addAdvice() {
+            String district = resolve(districtBox, Gazetteer.Kind.DISTRICT, districts);
+            String crop = resolve(cropBox, Gazetteer.Kind.CROP, crops);
             String advice = infoArea.getText().trim();
 
+            if (district == null || crop == null) {
+                statusLabel.setText("⚠️ Please choose a district and crop from the lists.");
+                return;
+            }
+
             if (!advice.isEmpty()) {
-                try (Connection conn = DatabaseConnection.getConnection()) {
-                    String insert = "INSERT INTO advice (district, crop, advice, expert_id) VALUES (?, ?, ?, ?)";
-                    PreparedStatement ps = conn.prepareStatement(insert);
-                    ps.setString(1, district);
-                    ps.setString(2, crop);
-                    ps.setString(3, advice);
-                    ps.setInt(4, expertId);
-                    ps.executeUpdate();
+                long startNanos = System.nanoTime();
+                try {
+                    adviceStore.addAdvice(district, crop, advice, expertId);
+                    events.publish(EventLog.Type.ADVICE_ADDED, EventLog.Outcome.OK,
+                        Districts.id(district), expertId, Crops.id(crop), startNanos);
                     statusLabel.setText("✅ Advice added successfully!");
                     infoArea.setText("");
+                    if (notifyBox.isSelected()) {
+                        broadcastAdvice(district, crop, advice);
+                    }
                 } catch (SQLException ex) {
+                    Metrics.increment("errors.sql");
+                    events.publish(EventLog.Type.ADVICE_ADDED, EventLog.Outcome.ERROR,
+                        Districts.id(district), expertId, Crops.id(crop), startNanos);
                     statusLabel.setText("❗ Error: " + ex.getMessage());
+                } finally {
+                    ADD_ADVICE.recordSince(startNanos);
                 }
             } else {
                 statusLabel.setText("⚠️ Advice cannot be empty.");
             }
-        });
-
-        // Add all panels to main panel
-        panel.add(topPanel, BorderLayout.NORTH);
-        panel.add(centerPanel, BorderLayout.CENTER);
+        }
 
-        mainPanel.add(panel, "expertPanel");
-        cardLayout.show(mainPanel, "expertPanel");
+        // Delivery runs on the dispatcher's threads; the label is updated
+        // when it finishes, unless another expert has logged in meanwhile.
+        private void broadcastAdvice(String district, String crop, String advice) {
+            CompletableFuture<BroadcastDispatcher.Summary> delivery;
+            try {
+                delivery = broadcastDispatcher().broadcast(district, crop, advice);
+            } catch (Exception ex) {
+                statusLabel.setText("✅ Advice added, but farmers could not be notified: " + ex.getMessage());
+                return;
+            }
+            statusLabel.setText("✅ Advice added. 📣 Notifying farmers in " + district + "...");
+            int sender = expertId;
+            delivery.whenComplete((summary, error) -> SwingUtilities.invokeLater(() -> {
+                if (sender != expertId) {
+                    return;
+                }
+                if (error != null) {
+                    statusLabel.setText("❗ Notifying farmers failed: " + error.getMessage());
+                } else {
+                    statusLabel.setText(String.format("✅ Advice added. 📣 Notified %,d farmers in %s%s%s.",
+                        summary.sent, district,
+                        summary.alreadySent > 0 ? " (" + summary.alreadySent + " already had it)" : "",
+                        summary.failed > 0 ? " (" + summary.failed + " could not be reached)" : ""));
+                }
+            }));
+        }
     }
 
     private JButton createStyledButton(String text) {
-        return createStyledButton(text, new Color(60, 179, 113));
+        return createStyledButton(text, UiResources.PRIMARY_BUTTON);
     }
 
     private JButton createStyledButton(String text, Color color) {
         JButton btn = new JButton(text);
         btn.setFocusPainted(false);
         btn.setBackground(color);
-        btn.setForeground(new Color(0, 0, 0));
-        btn.setFont(new Font("Segoe UI", Font.BOLD, 18));
-        btn.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(color.darker(), 2),
-            new EmptyBorder(12, 25, 12, 25)
-        ));
-        btn.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        btn.setForeground(UiResources.BUTTON_TEXT);
+        btn.setFont(UiResources.BUTTON_FONT);
+        btn.setBorder(UiResources.buttonBorder(color));
+        btn.setCursor(UiResources.HAND_CURSOR);
         
+        Color hover = UiResources.hoverColor(color);
         btn.addMouseListener(new java.awt.event.MouseAdapter() {
             public void mouseEntered(java.awt.event.MouseEvent evt) {
-                btn.setBackground(color.brighter());
-                btn.setForeground(new Color(0, 0, 0));
-                btn.setFont(new Font("Segoe UI", Font.BOLD, 18));
+                btn.setBackground(hover);
             }
 
             public void mouseExited(java.awt.event.MouseEvent evt) {
                 btn.setBackground(color);
-                btn.setForeground(new Color(0, 0, 0));
-                btn.setFont(new Font("Segoe UI", Font.BOLD, 18));
             }
         });
         
         return btn;
     }
 
-    private void quickSort(String[] arr, int low, int high) {
-        if (low < high) {
-            int pi = partition(arr, low, high);
-            quickSort(arr, low, pi - 1);
-            quickSort(arr, pi + 1, high);
-        }
-    }
-
-    private int partition(String[] arr, int low, int high) {
-        String pivot = arr[high];
-        int i = low - 1;
-        for (int j = low; j < high; j++) {
-            if (arr[j].compareToIgnoreCase(pivot) < 0) {
-                i++;
-                String temp = arr[i];
-                arr[i] = arr[j];
-                arr[j] = temp;
-            }
-        }
-        String temp = arr[i + 1];
-        arr[i + 1] = arr[high];
-        arr[high] = temp;
-        return i + 1;
-    }
-
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> new MainApplication());
+        Metrics.registerMBean();
+        EdtStallDetector.install(Long.getLong("cropadvisor.edtStallMillis", 100));
+        SwingUtilities.invokeLater(() -> {
+            MainApplication app = new MainApplication();
+
+            // Used by the kiosk launcher to record a class-data-sharing
+            // archive: start everything, then exit.
+            if (Boolean.getBoolean("cropadvisor.exitAfterStartup")) {
+                app.startupComplete().whenComplete((v, error) -> SwingUtilities.invokeLater(() -> {
+                    System.out.print(Metrics.dump());
+                    System.exit(0);
+                }));
+            }
+        });
     }
 }
@@ -0,0 +1,35 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+// Delivers notifications to farmers (an SMS or WhatsApp provider in
+// production, FileMessageGateway for local runs). Called from several
+// dispatcher workers at once.
+interface MessageGateway extends Closeable {
+
+    // Sends the whole batch or throws. Message.key identifies an advice and
+    // farmer and stays the same across retries, reposts and restarts; a
+    // gateway should skip keys it has already sent. Returns how many
+    // messages were sent, i.e. not skipped.
+    int send(List<Message> batch) throws IOException;
+
+    // Called once by BroadcastDispatcher.close(), after the last send.
+    default void close() throws IOException {
+    }
+
+    class Message {
+        final String key;
+        final int farmerId;
+        final String farmerName;
+        final String village;
+        final String text;
+
+        Message(String key, int farmerId, String farmerName, String village, String text) {
+            this.key = key;
+            this.farmerId = farmerId;
+            this.farmerName = farmerName;
+            this.village = village;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Process-wide registry of latency histograms and counters. Hot paths should
+// look their histogram up once (static final field) and call recordSince();
+// the name-based helpers are for code that runs rarely.
+public final class Metrics {
+
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    public static void increment(String name) {
+        counter(name).increment();
+    }
+
+    public static void reset() {
+        for (LatencyHistogram h : histograms.values()) {
+            h.reset();
+        }
+        for (LongAdder c : counters.values()) {
+            c.reset();
+        }
+    }
+
+    public static String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-34s %9s %10s %10s %10s %10s %10s%n",
+            "operation", "count", "mean ms", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (LatencyHistogram h : new TreeMap<>(histograms).values()) {
+            sb.append(String.format("%-34s %9d %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                h.getName(),
+                h.getCount(),
+                h.getMeanNanos() / 1e6,
+                h.getValueAtPercentile(50) / 1e6,
+                h.getValueAtPercentile(99) / 1e6,
+                h.getValueAtPercentile(99.9) / 1e6,
+                h.getMaxNanos() / 1e6));
+        }
+        if (!counters.isEmpty()) {
+            sb.append(String.format("%n%-34s %9s%n", "counter", "value"));
+            for (Map.Entry<String, LongAdder> e : new TreeMap<>(counters).entrySet()) {
+                sb.append(String.format("%-34s %9d%n", e.getKey(), e.getValue().sum()));
+            }
+        }
+        return sb.toString();
+    }
+
+    // Publishes the registry as cropadvisor:type=Metrics so it can be read
+    // from jconsole / VisualVM on a running kiosk.
+    public static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("cropadvisor:type=Metrics");
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(new MetricsBean(), objectName);
+            }
+        } catch (Exception e) {
+            System.err.println("Could not register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    public interface MetricsMXBean {
+        String dump();
+
+        void reset();
+
+        Map<String, Long> getCounters();
+
+        Map<String, Long> getCounts();
+
+        Map<String, Long> getP50Nanos();
+
+        Map<String, Long> getP99Nanos();
+
+        Map<String, Long> getMaxNanos();
+    }
+
+    static class MetricsBean implements MetricsMXBean {
+        public String dump() {
+            return Metrics.dump();
+        }
+
+        public void reset() {
+            Metrics.reset();
+        }
+
+        public Map<String, Long> getCounters() {
+            Map<String, Long> result = new TreeMap<>();
+            for (Map.Entry<String, LongAdder> e : counters.entrySet()) {
+                result.put(e.getKey(), e.getValue().sum());
+            }
+            return result;
+        }
+
+        public Map<String, Long> getCounts() {
+            Map<String, Long> result = new TreeMap<>();
+            for (LatencyHistogram h : histograms.values()) {
+                result.put(h.getName(), h.getCount());
+            }
+            return result;
+        }
+
+        public Map<String, Long> getP50Nanos() {
+            return percentiles(50);
+        }
+
+        public Map<String, Long> getP99Nanos() {
+            return percentiles(99);
+        }
+
+        public Map<String, Long> getMaxNanos() {
+            Map<String, Long> result = new TreeMap<>();
+            for (LatencyHistogram h : histograms.values()) {
+                result.put(h.getName(), h.getMaxNanos());
+            }
+            return result;
+        }
+
+        private Map<String, Long> percentiles(double percentile) {
+            Map<String, Long> result = new TreeMap<>();
+            for (LatencyHistogram h : histograms.values()) {
+                result.put(h.getName(), h.getValueAtPercentile(percentile));
+            }
+            return result;
+        }
+    }
+}
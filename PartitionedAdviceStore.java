@@ -0,0 +1,93 @@
+import java.sql.*;
+
+// An AdviceStore with one partition per district, indexed by district id.
+// Every call names its district, so each goes to a single partition; a
+// lookup in Dehradun costs the same however much advice the rest of the
+// state holds. jdbc() works on the advice_by_district table, partitioned by
+// LIST on district_id (DDL in the README).
+class PartitionedAdviceStore implements AdviceStore {
+    private final AdviceStore[] partitions;
+
+    PartitionedAdviceStore(AdviceStore[] partitions) {
+        if (partitions.length != Districts.COUNT) {
+            throw new IllegalArgumentException("Expected " + Districts.COUNT + " partitions, got " + partitions.length);
+        }
+        this.partitions = partitions;
+    }
+
+    static PartitionedAdviceStore jdbc() {
+        AdviceStore[] partitions = new AdviceStore[Districts.COUNT];
+        for (int d = 0; d < partitions.length; d++) {
+            partitions[d] = new JdbcPartition(d);
+        }
+        return new PartitionedAdviceStore(partitions);
+    }
+
+    static PartitionedAdviceStore inMemory() {
+        AdviceStore[] partitions = new AdviceStore[Districts.COUNT];
+        for (int d = 0; d < partitions.length; d++) {
+            partitions[d] = new InMemoryAdviceStore();
+        }
+        return new PartitionedAdviceStore(partitions);
+    }
+
+    AdviceStore partition(String district) throws SQLException {
+        int id = Districts.id(district);
+        if (id < 0) {
+            throw new SQLException("No partition for district '" + district + "'");
+        }
+        return partitions[id];
+    }
+
+    public String findAdvice(String district, String crop) throws SQLException {
+        return partition(district).findAdvice(district, crop);
+    }
+
+    public void addAdvice(String district, String crop, String advice, int expertId) throws SQLException {
+        partition(district).addAdvice(district, crop, advice, expertId);
+    }
+
+    // One district of advice_by_district, read through its
+    // (district_id, crop, id) index.
+    static final class JdbcPartition implements AdviceStore {
+        private static final LatencyHistogram SQL_SELECT = Metrics.histogram("sql.adviceByDistrict.select");
+        private static final LatencyHistogram SQL_INSERT = Metrics.histogram("sql.adviceByDistrict.insert");
+
+        private final int districtId;
+
+        JdbcPartition(int districtId) {
+            this.districtId = districtId;
+        }
+
+        public String findAdvice(String district, String crop) throws SQLException {
+            String query = "SELECT advice FROM advice_by_district WHERE district_id = ? AND crop = ? "
+                + "ORDER BY id LIMIT 1";
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(query)) {
+                ps.setInt(1, districtId);
+                ps.setString(2, crop);
+                long sqlStart = System.nanoTime();
+                try (ResultSet rs = ps.executeQuery()) {
+                    SQL_SELECT.recordSince(sqlStart);
+
+                    return rs.next() ? rs.getString("advice") : null;
+                }
+            }
+        }
+
+        public void addAdvice(String district, String crop, String advice, int expertId) throws SQLException {
+            String insert = "INSERT INTO advice_by_district (district_id, crop, advice, expert_id) "
+                + "VALUES (?, ?, ?, ?)";
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(insert)) {
+                ps.setInt(1, districtId);
+                ps.setString(2, crop);
+                ps.setString(3, advice);
+                ps.setInt(4, expertId);
+                long sqlStart = System.nanoTime();
+                ps.executeUpdate();
+                SQL_INSERT.recordSince(sqlStart);
+            }
+        }
+    }
+}
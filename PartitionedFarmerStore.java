@@ -0,0 +1,352 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A FarmerStore split into one partition per district, indexed by the small
+// integer district id (Districts.id). Calls that name a district (register,
+// pageByDistrict) go straight to that district's partition, so their cost
+// depends on the size of the district and not of the state; a busy district
+// only contends with itself. Lookups by Aadhaar number or name first ask a
+// DistrictIndex which partition to read; without one they are sent to every
+// partition at once on the fan-out executor and the answers merged.
+//
+// jdbc() works on the farmers_by_district table, partitioned by LIST on
+// district_id, with farmer_aadhaar and farmer_names as the indexes (DDL in
+// the README); inMemory() keeps an InMemoryFarmerStore per district for
+// benchmarks and load tests.
+class PartitionedFarmerStore implements FarmerStore {
+    private static final LatencyHistogram FAN_OUT = Metrics.histogram("partition.farmers.fanOut");
+
+    // Says which district holds the farmer with a given Aadhaar number, or
+    // the first farmer with a given name, or -1.
+    interface DistrictIndex {
+        int districtOf(String key) throws SQLException;
+    }
+
+    interface PartitionQuery<R> {
+        R run(FarmerStore partition) throws SQLException;
+    }
+
+    private final FarmerStore[] partitions;
+    private final DistrictIndex aadhaarIndex;
+    private final DistrictIndex nameIndex;
+    private final ExecutorService fanOut;
+
+    PartitionedFarmerStore(FarmerStore[] partitions, DistrictIndex aadhaarIndex, DistrictIndex nameIndex,
+                           ExecutorService fanOut) {
+        if (partitions.length != Districts.COUNT) {
+            throw new IllegalArgumentException("Expected " + Districts.COUNT + " partitions, got " + partitions.length);
+        }
+        this.partitions = partitions;
+        this.aadhaarIndex = aadhaarIndex;
+        this.nameIndex = nameIndex;
+        this.fanOut = fanOut;
+    }
+
+    static PartitionedFarmerStore jdbc(ExecutorService fanOut) {
+        FarmerStore[] partitions = new FarmerStore[Districts.COUNT];
+        for (int d = 0; d < partitions.length; d++) {
+            partitions[d] = new JdbcPartition(d);
+        }
+        return new PartitionedFarmerStore(partitions, JdbcPartition::districtOf, JdbcPartition::districtOfName,
+            fanOut);
+    }
+
+    // Mirrors the JDBC layout: partitions share one id sequence, as the single
+    // AUTO_INCREMENT column does, and statewide maps play farmer_aadhaar and
+    // farmer_names. The row is inserted inside compute(), so the index
+    // entries only become visible once the farmer they point at can be read.
+    // As in InMemoryFarmerStore, the first farmer registered under a name is
+    // the one found by it.
+    static PartitionedFarmerStore inMemory(ExecutorService fanOut) {
+        AtomicInteger ids = new AtomicInteger(1);
+        ConcurrentHashMap<String, Integer> aadhaarDistricts = new ConcurrentHashMap<>();
+        ConcurrentHashMap<String, Integer> nameDistricts = new ConcurrentHashMap<>();
+        FarmerStore[] partitions = new FarmerStore[Districts.COUNT];
+        for (int d = 0; d < partitions.length; d++) {
+            int district = d;
+            partitions[d] = new InMemoryFarmerStore(ids) {
+                public Farmer register(String name, String aadhaarNumber, String districtName, String village)
+                        throws SQLException {
+                    Farmer[] registered = new Farmer[1];
+                    try {
+                        aadhaarDistricts.compute(aadhaarNumber, (key, existing) -> {
+                            if (existing != null) {
+                                throw new IllegalStateException(
+                                    new SQLException("Duplicate entry '" + key + "' for key 'PRIMARY'"));
+                            }
+                            try {
+                                registered[0] = super.register(name, key, districtName, village);
+                            } catch (SQLException e) {
+                                throw new IllegalStateException(e);
+                            }
+                            nameDistricts.putIfAbsent(name, district);
+                            return district;
+                        });
+                    } catch (IllegalStateException e) {
+                        if (e.getCause() instanceof SQLException) {
+                            throw (SQLException) e.getCause();
+                        }
+                        throw e;
+                    }
+                    return registered[0];
+                }
+            };
+        }
+        return new PartitionedFarmerStore(partitions, a -> aadhaarDistricts.getOrDefault(a, -1),
+            n -> nameDistricts.getOrDefault(n, -1), fanOut);
+    }
+
+    // One daemon thread per partition, so a fan-out never queues behind itself.
+    static ExecutorService fanOutExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Districts.COUNT, r -> {
+            Thread t = new Thread(r, "partition-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    FarmerStore partition(String district) throws SQLException {
+        int id = Districts.id(district);
+        if (id < 0) {
+            throw new SQLException("No partition for district '" + district + "'");
+        }
+        return partitions[id];
+    }
+
+    public Farmer findByAadhaar(String aadhaarNumber) throws SQLException {
+        if (aadhaarIndex != null) {
+            int district = aadhaarIndex.districtOf(aadhaarNumber);
+            return district < 0 ? null : partitions[district].findByAadhaar(aadhaarNumber);
+        }
+        for (Farmer farmer : fanOut(p -> p.findByAadhaar(aadhaarNumber))) {
+            if (farmer != null) {
+                return farmer;
+            }
+        }
+        return null;
+    }
+
+    // Without an index, each partition answers with its first farmer of that
+    // name; the lowest id among them is the first statewide.
+    public Farmer findByName(String name) throws SQLException {
+        if (nameIndex != null) {
+            int district = nameIndex.districtOf(name);
+            return district < 0 ? null : partitions[district].findByName(name);
+        }
+        Farmer first = null;
+        for (Farmer farmer : fanOut(p -> p.findByName(name))) {
+            if (farmer != null && (first == null || farmer.id < first.id)) {
+                first = farmer;
+            }
+        }
+        return first;
+    }
+
+    public Farmer register(String name, String aadhaarNumber, String district, String village) throws SQLException {
+        return partition(district).register(name, aadhaarNumber, district, village);
+    }
+
+    public List<Farmer> pageByDistrict(String district, int afterId, int limit) throws SQLException {
+        return partition(district).pageByDistrict(district, afterId, limit);
+    }
+
+    // Runs query on every partition in parallel and returns the answers in
+    // district id order. The first failure is rethrown once all have finished.
+    <R> List<R> fanOut(PartitionQuery<R> query) throws SQLException {
+        long startNanos = System.nanoTime();
+        List<Future<R>> futures = new ArrayList<>(partitions.length);
+        for (FarmerStore partition : partitions) {
+            futures.add(fanOut.submit(() -> query.run(partition)));
+        }
+        List<R> results = new ArrayList<>(partitions.length);
+        SQLException failure = null;
+        try {
+            for (Future<R> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof SQLException ? (SQLException) e.getCause()
+                            : new SQLException("Partition query failed", e.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (Future<R> future : futures) {
+                future.cancel(true);
+            }
+            throw new SQLException("Interrupted while querying partitions", e);
+        } finally {
+            FAN_OUT.recordSince(startNanos);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    // One district of farmers_by_district. Every statement pins district_id,
+    // so MySQL prunes it to that district's partition. Aadhaar numbers are
+    // unique statewide through farmer_aadhaar, because a partitioned table
+    // can only enforce unique keys that include district_id. farmer_names
+    // lists every farmer by (name, id), so a login by name reads the one
+    // partition that holds the first farmer of that name.
+    static final class JdbcPartition implements FarmerStore {
+        private static final LatencyHistogram SQL_BY_AADHAAR =
+            Metrics.histogram("sql.farmersByDistrict.selectByAadhaar");
+        private static final LatencyHistogram SQL_BY_NAME = Metrics.histogram("sql.farmersByDistrict.selectByName");
+        private static final LatencyHistogram SQL_INSERT = Metrics.histogram("sql.farmersByDistrict.insert");
+        private static final LatencyHistogram SQL_PAGE = Metrics.histogram("sql.farmersByDistrict.page");
+        private static final LatencyHistogram SQL_AADHAAR_INDEX = Metrics.histogram("sql.farmerAadhaar.select");
+        private static final LatencyHistogram SQL_NAME_INDEX = Metrics.histogram("sql.farmerNames.select");
+
+        private final int districtId;
+        private final String district;
+
+        JdbcPartition(int districtId) {
+            this.districtId = districtId;
+            this.district = Districts.NAMES[districtId];
+        }
+
+        static int districtOf(String aadhaarNumber) throws SQLException {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(
+                     "SELECT district_id FROM farmer_aadhaar WHERE aadhaar_number = ?")) {
+                ps.setString(1, aadhaarNumber);
+                long sqlStart = System.nanoTime();
+                try (ResultSet rs = ps.executeQuery()) {
+                    SQL_AADHAAR_INDEX.recordSince(sqlStart);
+                    return rs.next() ? rs.getInt(1) : -1;
+                }
+            }
+        }
+
+        static int districtOfName(String name) throws SQLException {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(
+                     "SELECT district_id FROM farmer_names WHERE name = ? ORDER BY farmer_id LIMIT 1")) {
+                ps.setString(1, name);
+                long sqlStart = System.nanoTime();
+                try (ResultSet rs = ps.executeQuery()) {
+                    SQL_NAME_INDEX.recordSince(sqlStart);
+                    return rs.next() ? rs.getInt(1) : -1;
+                }
+            }
+        }
+
+        public Farmer findByAadhaar(String aadhaarNumber) throws SQLException {
+            String sql = "SELECT id, name, village FROM farmers_by_district "
+                + "WHERE district_id = ? AND aadhaar_number = ?";
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, districtId);
+                ps.setString(2, aadhaarNumber);
+                long sqlStart = System.nanoTime();
+                try (ResultSet rs = ps.executeQuery()) {
+                    SQL_BY_AADHAAR.recordSince(sqlStart);
+
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    return new Farmer(rs.getInt("id"), rs.getString("name"), aadhaarNumber, district,
+                        rs.getString("village"));
+                }
+            }
+        }
+
+        public Farmer findByName(String name) throws SQLException {
+            String sql = "SELECT id, aadhaar_number, village FROM farmers_by_district "
+                + "WHERE district_id = ? AND name = ? ORDER BY id LIMIT 1";
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, districtId);
+                ps.setString(2, name);
+                long sqlStart = System.nanoTime();
+                try (ResultSet rs = ps.executeQuery()) {
+                    SQL_BY_NAME.recordSince(sqlStart);
+
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    return new Farmer(rs.getInt("id"), name, rs.getString("aadhaar_number"), district,
+                        rs.getString("village"));
+                }
+            }
+        }
+
+        // The farmer_aadhaar row goes in first, in the same transaction, so a
+        // duplicate Aadhaar fails before anything is written. The farmer_names
+        // row needs the generated id, so it goes in last.
+        public Farmer register(String name, String aadhaarNumber, String district, String village)
+                throws SQLException {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement index = conn.prepareStatement(
+                         "INSERT INTO farmer_aadhaar (aadhaar_number, district_id) VALUES (?, ?)");
+                     PreparedStatement insert = conn.prepareStatement("INSERT INTO farmers_by_district "
+                         + "(district_id, name, aadhaar_number, village, regdate) VALUES (?, ?, ?, ?, NOW())",
+                         Statement.RETURN_GENERATED_KEYS);
+                     PreparedStatement names = conn.prepareStatement(
+                         "INSERT INTO farmer_names (name, farmer_id, district_id) VALUES (?, ?, ?)")) {
+                    index.setString(1, aadhaarNumber);
+                    index.setInt(2, districtId);
+                    insert.setInt(1, districtId);
+                    insert.setString(2, name);
+                    insert.setString(3, aadhaarNumber);
+                    insert.setString(4, village);
+                    long sqlStart = System.nanoTime();
+                    index.executeUpdate();
+                    insert.executeUpdate();
+                    int id;
+                    try (ResultSet rs = insert.getGeneratedKeys()) {
+                        if (!rs.next()) {
+                            throw new SQLException("No id generated for new farmer");
+                        }
+                        id = rs.getInt(1);
+                    }
+                    names.setString(1, name);
+                    names.setInt(2, id);
+                    names.setInt(3, districtId);
+                    names.executeUpdate();
+                    conn.commit();
+                    SQL_INSERT.recordSince(sqlStart);
+                    return new Farmer(id, name, aadhaarNumber, this.district, village);
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    // The connection may be pooled; hand it back as we found it.
+                    conn.setAutoCommit(true);
+                }
+            }
+        }
+
+        // Keyset paging on the (district_id, id) primary key.
+        public List<Farmer> pageByDistrict(String district, int afterId, int limit) throws SQLException {
+            String sql = "SELECT id, name, aadhaar_number, village FROM farmers_by_district "
+                + "WHERE district_id = ? AND id > ? ORDER BY id LIMIT ?";
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, districtId);
+                ps.setInt(2, afterId);
+                ps.setInt(3, limit);
+                long sqlStart = System.nanoTime();
+                try (ResultSet rs = ps.executeQuery()) {
+                    SQL_PAGE.recordSince(sqlStart);
+
+                    List<Farmer> page = new ArrayList<>(limit);
+                    while (rs.next()) {
+                        page.add(new Farmer(rs.getInt("id"), rs.getString("name"), rs.getString("aadhaar_number"),
+                            this.district, rs.getString("village")));
+                    }
+                    return page;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,549 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+// Statewide reports for administrators: farmers registered per district per
+// month, advice coverage by district and crop, and the most active experts.
+//
+// Each report streams its table once. A reader thread decodes rows into
+// fixed-size column batches drawn from a small pool, and worker threads fold
+// the batches into their own primitive counters, which are summed at the end.
+// Memory depends on the batch pool and the key space, never on the row count.
+// Against MySQL the result set is streamed (fetch size Integer.MIN_VALUE) on
+// its own connection, so the three reports run side by side. On the
+// district-partitioned tables each report runs one query per partition, all
+// at once, and the workers merge their rows as they arrive.
+//
+//   java -cp bin Reports [--out reports] [--workers 4] [--top 20]
+//   java -cp bin Reports --from-csv data/generated [--out reports]   (benchmark on DataGenerator output)
+public class Reports {
+
+    private static final int BATCH_SIZE = 4096;
+    private static final int FETCH_SIZE = Integer.getInteger("cropadvisor.reportFetchSize", Integer.MIN_VALUE);
+
+    // Months are counted from January 2000; later ones go in the last bucket.
+    private static final int BASE_YEAR = 2000;
+    private static final int MONTHS = 100 * 12;
+
+    // One batch of decoded rows: text columns first, then int columns.
+    static final class Batch {
+        final String[][] text;
+        final int[][] numbers;
+        int size;
+
+        Batch(int textColumns, int numberColumns) {
+            text = new String[textColumns][BATCH_SIZE];
+            numbers = new int[numberColumns][BATCH_SIZE];
+        }
+    }
+
+    // Growable per-worker counters; the key space, not the row count, sets the size.
+    static final class Counters {
+        long[] values;
+        long rows;
+
+        Counters(int size) {
+            values = new long[size];
+        }
+
+        void add(int index) {
+            if (index >= values.length) {
+                values = Arrays.copyOf(values, Math.max(index + 1, values.length * 2));
+            }
+            values[index]++;
+        }
+
+        void addAll(Counters other) {
+            if (other.values.length > values.length) {
+                values = Arrays.copyOf(values, other.values.length);
+            }
+            for (int i = 0; i < other.values.length; i++) {
+                values[i] += other.values[i];
+            }
+            rows += other.rows;
+        }
+    }
+
+    interface RowSource {
+        int textColumns();
+
+        int numberColumns();
+
+        // Fills batches from pool and hands each full one to out.
+        void read(BlockingQueue<Batch> pool, BlockingQueue<Batch> out) throws Exception;
+    }
+
+    interface RowAggregator {
+        void accept(Counters counters, Batch batch, int row);
+    }
+
+    interface ExpertNames {
+        Map<Integer, String> lookup(Set<Integer> ids) throws Exception;
+    }
+
+    private static final Batch END = new Batch(0, 0);
+
+    private final int workers;
+
+    Reports(int workers) {
+        this.workers = workers;
+    }
+
+    // Streams source through the worker pool and returns the summed counters.
+    Counters aggregate(String name, RowSource source, int initialSize, RowAggregator aggregator) throws Exception {
+        long startNanos = System.nanoTime();
+        BlockingQueue<Batch> pool = new ArrayBlockingQueue<>(workers * 2 + 1);
+        BlockingQueue<Batch> full = new ArrayBlockingQueue<>(workers * 2 + 1);
+        for (int i = 0; i < workers * 2 + 1; i++) {
+            pool.add(new Batch(source.textColumns(), source.numberColumns()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "report-" + name);
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<Counters>> partials = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            partials.add(executor.submit(() -> {
+                Counters counters = new Counters(initialSize);
+                RuntimeException failure = null;
+                Batch batch;
+                // Batches always go back to the pool, even after a failure,
+                // so the reader never blocks waiting for one.
+                while ((batch = full.take()) != END) {
+                    try {
+                        if (failure == null) {
+                            for (int row = 0; row < batch.size; row++) {
+                                aggregator.accept(counters, batch, row);
+                            }
+                            counters.rows += batch.size;
+                        }
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    } finally {
+                        pool.put(batch);
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                return counters;
+            }));
+        }
+
+        try {
+            source.read(pool, full);
+        } finally {
+            for (int w = 0; w < workers; w++) {
+                full.put(END);
+            }
+            executor.shutdown();
+        }
+
+        Counters total = new Counters(initialSize);
+        for (Future<Counters> partial : partials) {
+            try {
+                total.addAll(partial.get());
+            } catch (ExecutionException e) {
+                throw new IOException("Report " + name + " failed", e.getCause());
+            }
+        }
+        Metrics.histogram("report." + name).recordSince(startNanos);
+        Metrics.counter("report.rows").add(total.rows);
+        return total;
+    }
+
+    void farmersByDistrictMonth(RowSource source, Path out) throws Exception {
+        Counters counters = aggregate("farmersByDistrictMonth", source, (Districts.COUNT + 1) * MONTHS,
+            (c, b, row) -> c.add(districtIndex(b.text[0][row]) * MONTHS + b.numbers[0][row]));
+        try (BufferedWriter w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            w.write("district,month,farmers\n");
+            for (int d = 0; d <= Districts.COUNT; d++) {
+                for (int m = 0; m < MONTHS; m++) {
+                    long count = counters.values[d * MONTHS + m];
+                    if (count > 0) {
+                        w.write(districtName(d) + "," + String.format("%04d-%02d", BASE_YEAR + m / 12, m % 12 + 1)
+                            + "," + count + "\n");
+                    }
+                }
+            }
+        }
+        System.out.printf("farmersByDistrictMonth: %,d rows -> %s%n", counters.rows, out);
+    }
+
+    // Every district and crop pair is listed, so gaps show up as zeros.
+    void adviceCoverage(RowSource source, Path out) throws Exception {
+        int crops = Crops.COUNT + 1;
+        Counters counters = aggregate("adviceCoverage", source, (Districts.COUNT + 1) * crops,
+            (c, b, row) -> c.add(districtIndex(b.text[0][row]) * crops + cropIndex(b.text[1][row])));
+        try (BufferedWriter w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            w.write("district,crop,advice\n");
+            for (int d = 0; d <= Districts.COUNT; d++) {
+                for (int c = 0; c < crops; c++) {
+                    long count = counters.values[d * crops + c];
+                    if (count > 0 || (d < Districts.COUNT && c < Crops.COUNT)) {
+                        w.write(districtName(d) + "," + (c < Crops.COUNT ? Crops.NAMES[c] : "Other") + "," + count + "\n");
+                    }
+                }
+            }
+        }
+        System.out.printf("adviceCoverage: %,d rows -> %s%n", counters.rows, out);
+    }
+
+    void topExperts(RowSource source, ExpertNames names, int top, Path out) throws Exception {
+        Counters counters = aggregate("topExperts", source, 1024,
+            (c, b, row) -> c.add(Math.max(0, b.numbers[0][row])));
+        long[] values = counters.values;
+
+        // Keep the top ids in a small min-heap ordered by count.
+        PriorityQueue<Integer> best = new PriorityQueue<>(top + 1,
+            (a, b) -> values[a] != values[b] ? Long.compare(values[a], values[b]) : Integer.compare(b, a));
+        for (int id = 1; id < values.length; id++) {
+            if (values[id] > 0) {
+                best.add(id);
+                if (best.size() > top) {
+                    best.poll();
+                }
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(best);
+        ranked.sort((a, b) -> values[a] != values[b] ? Long.compare(values[b], values[a]) : Integer.compare(a, b));
+        Map<Integer, String> expertNames = names.lookup(new HashSet<>(ranked));
+
+        try (BufferedWriter w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            w.write("rank,expert_id,name,advice\n");
+            for (int r = 0; r < ranked.size(); r++) {
+                int id = ranked.get(r);
+                w.write((r + 1) + "," + id + "," + csv(expertNames.getOrDefault(id, "")) + "," + values[id] + "\n");
+            }
+        }
+        System.out.printf("topExperts: %,d rows -> %s%n", counters.rows, out);
+    }
+
+    private static int districtIndex(String name) {
+        int id = Districts.id(name);
+        return id < 0 ? Districts.COUNT : id;
+    }
+
+    private static String districtName(int index) {
+        return index < Districts.COUNT ? csv(Districts.NAMES[index]) : "Unknown";
+    }
+
+    // Crops offered in the app; anything else is counted under "Other".
+    private static int cropIndex(String name) {
+        int id = Crops.id(name);
+        return id < 0 ? Crops.COUNT : id;
+    }
+
+    static int monthIndex(int year, int month) {
+        return Math.max(0, Math.min(MONTHS - 1, (year - BASE_YEAR) * 12 + month - 1));
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // Streams a query on its own connection. Text columns come first in the
+    // select list, then int columns.
+    static RowSource jdbc(String sql, int textColumns, int numberColumns) {
+        return new RowSource() {
+            public int textColumns() {
+                return textColumns;
+            }
+
+            public int numberColumns() {
+                return numberColumns;
+            }
+
+            public void read(BlockingQueue<Batch> pool, BlockingQueue<Batch> out) throws Exception {
+                try (Connection conn = DatabaseConnection.getConnection();
+                     PreparedStatement ps = conn.prepareStatement(sql,
+                         ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    ps.setFetchSize(FETCH_SIZE);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        Batch batch = pool.take();
+                        batch.size = 0;
+                        while (rs.next()) {
+                            int row = batch.size++;
+                            for (int c = 0; c < textColumns; c++) {
+                                batch.text[c][row] = rs.getString(c + 1);
+                            }
+                            for (int c = 0; c < numberColumns; c++) {
+                                batch.numbers[c][row] = rs.getInt(textColumns + c + 1);
+                            }
+                            if (batch.size == BATCH_SIZE) {
+                                out.put(batch);
+                                batch = pool.take();
+                                batch.size = 0;
+                            }
+                        }
+                        out.put(batch);
+                    }
+                }
+            }
+        };
+    }
+
+    // Streams sql(d) for every district id d in parallel, each on its own
+    // connection and thread, into the same batches. The query should pin
+    // district_id so MySQL prunes it to one partition.
+    static RowSource partitioned(IntFunction<String> sql, int textColumns, int numberColumns) {
+        List<RowSource> sources = new ArrayList<>(Districts.COUNT);
+        for (int d = 0; d < Districts.COUNT; d++) {
+            sources.add(jdbc(sql.apply(d), textColumns, numberColumns));
+        }
+        return parallel(sources, textColumns, numberColumns);
+    }
+
+    // Reads all sources at once. Each holds at most one batch while filling
+    // it, so they take turns when the pool is smaller than the source count.
+    static RowSource parallel(List<RowSource> sources, int textColumns, int numberColumns) {
+        return new RowSource() {
+            public int textColumns() {
+                return textColumns;
+            }
+
+            public int numberColumns() {
+                return numberColumns;
+            }
+
+            public void read(BlockingQueue<Batch> pool, BlockingQueue<Batch> out) throws Exception {
+                ExecutorService readers = Executors.newFixedThreadPool(sources.size(), r -> {
+                    Thread t = new Thread(r, "report-reader");
+                    t.setDaemon(true);
+                    return t;
+                });
+                CompletionService<Void> reads = new ExecutorCompletionService<>(readers);
+                try {
+                    for (RowSource source : sources) {
+                        reads.submit(() -> {
+                            source.read(pool, out);
+                            return null;
+                        });
+                    }
+                    // A failed reader keeps the batch it was filling, so the
+                    // rest are interrupted rather than left waiting for one.
+                    // All are waited for, so none is still writing batches
+                    // when the workers stop.
+                    Exception failure = null;
+                    for (int i = 0; i < sources.size(); i++) {
+                        try {
+                            reads.take().get();
+                        } catch (ExecutionException e) {
+                            if (failure == null) {
+                                failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                                readers.shutdownNow();
+                            }
+                        }
+                    }
+                    if (failure != null) {
+                        throw failure;
+                    }
+                } finally {
+                    readers.shutdown();
+                }
+            }
+        };
+    }
+
+    // Streams named columns of a CSV file with a header row, parsing the
+    // number columns with the given functions.
+    static RowSource csvFile(Path file, String[] textColumns, String[] numberColumns,
+                             List<ToIntFunction<String>> parsers) {
+        return new RowSource() {
+            public int textColumns() {
+                return textColumns.length;
+            }
+
+            public int numberColumns() {
+                return numberColumns.length;
+            }
+
+            public void read(BlockingQueue<Batch> pool, BlockingQueue<Batch> out) throws Exception {
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    List<String> header = Arrays.asList(reader.readLine().split(","));
+                    int[] text = new int[textColumns.length];
+                    int[] numbers = new int[numberColumns.length];
+                    for (int c = 0; c < text.length; c++) {
+                        text[c] = header.indexOf(textColumns[c]);
+                    }
+                    for (int c = 0; c < numbers.length; c++) {
+                        numbers[c] = header.indexOf(numberColumns[c]);
+                    }
+
+                    Batch batch = pool.take();
+                    batch.size = 0;
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        List<String> fields = Gazetteer.splitCsv(line);
+                        int row = batch.size++;
+                        for (int c = 0; c < text.length; c++) {
+                            batch.text[c][row] = fields.get(text[c]);
+                        }
+                        for (int c = 0; c < numbers.length; c++) {
+                            batch.numbers[c][row] = parsers.get(c).applyAsInt(fields.get(numbers[c]));
+                        }
+                        if (batch.size == BATCH_SIZE) {
+                            out.put(batch);
+                            batch = pool.take();
+                            batch.size = 0;
+                        }
+                    }
+                    out.put(batch);
+                }
+            }
+        };
+    }
+
+    static ExpertNames jdbcExpertNames() {
+        return ids -> {
+            Map<Integer, String> names = new HashMap<>();
+            if (ids.isEmpty()) {
+                return names;
+            }
+            StringBuilder sql = new StringBuilder("SELECT id, name FROM experts WHERE id IN (");
+            for (int i = 0; i < ids.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(")");
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                int p = 1;
+                for (int id : ids) {
+                    ps.setInt(p++, id);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        names.put(rs.getInt(1), rs.getString(2));
+                    }
+                }
+            }
+            return names;
+        };
+    }
+
+    static ExpertNames csvExpertNames(Path file) {
+        return ids -> {
+            Map<Integer, String> names = new HashMap<>();
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                reader.readLine();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    List<String> fields = Gazetteer.splitCsv(line);
+                    int id = Integer.parseInt(fields.get(0));
+                    if (ids.contains(id)) {
+                        names.put(id, fields.get(1));
+                    }
+                }
+            }
+            return names;
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path out = Paths.get("reports");
+        Path csvDir = null;
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int top = 20;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out": out = Paths.get(args[++i]); break;
+                case "--from-csv": csvDir = Paths.get(args[++i]); break;
+                case "--workers": workers = Integer.parseInt(args[++i]); break;
+                case "--top": top = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    return;
+            }
+        }
+        Files.createDirectories(out);
+
+        RowSource farmers;
+        RowSource advice;
+        RowSource adviceByExpert;
+        ExpertNames names;
+        if (csvDir != null) {
+            // regdate is "yyyy-MM-dd HH:mm:ss".
+            ToIntFunction<String> month = s -> monthIndex(
+                Integer.parseInt(s.substring(0, 4)), Integer.parseInt(s.substring(5, 7)));
+            farmers = csvFile(csvDir.resolve("farmers.csv"), new String[] {"district"}, new String[] {"regdate"},
+                Collections.singletonList(month));
+            advice = csvFile(csvDir.resolve("advice.csv"), new String[] {"district", "crop"}, new String[0],
+                Collections.emptyList());
+            adviceByExpert = csvFile(csvDir.resolve("advice.csv"), new String[0], new String[] {"expert_id"},
+                Collections.singletonList(Integer::parseInt));
+            names = csvExpertNames(csvDir.resolve("experts.csv"));
+        } else {
+            String month = "GREATEST(0, LEAST(" + (MONTHS - 1) + ", (YEAR(regdate) - " + BASE_YEAR
+                + ") * 12 + MONTH(regdate) - 1))";
+            if (Boolean.getBoolean("cropadvisor.partitioned")) {
+                // Partitioned tables hold district ids; names come from the districts table.
+                farmers = partitioned(d -> "SELECT d.name, " + month + " FROM farmers_by_district f "
+                    + "JOIN districts d ON d.id = f.district_id WHERE f.district_id = " + d, 1, 1);
+                advice = partitioned(d -> "SELECT d.name, a.crop FROM advice_by_district a "
+                    + "JOIN districts d ON d.id = a.district_id WHERE a.district_id = " + d, 2, 0);
+                adviceByExpert = partitioned(d -> "SELECT expert_id FROM advice_by_district "
+                    + "WHERE district_id = " + d, 0, 1);
+            } else {
+                farmers = jdbc("SELECT district, " + month + " FROM farmers", 1, 1);
+                advice = jdbc("SELECT district, crop FROM advice", 2, 0);
+                adviceByExpert = jdbc("SELECT expert_id FROM advice", 0, 1);
+            }
+            names = jdbcExpertNames();
+        }
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        long startNanos = System.nanoTime();
+
+        Reports reports = new Reports(workers);
+        Path dir = out;
+        int topCount = top;
+        ExecutorService runner = Executors.newFixedThreadPool(3);
+        List<Future<Void>> runs = new ArrayList<>();
+        runs.add(runner.submit(() -> {
+            reports.farmersByDistrictMonth(farmers, dir.resolve("farmers-by-district-month.csv"));
+            return null;
+        }));
+        runs.add(runner.submit(() -> {
+            reports.adviceCoverage(advice, dir.resolve("advice-coverage.csv"));
+            return null;
+        }));
+        runs.add(runner.submit(() -> {
+            reports.topExperts(adviceByExpert, names, topCount, dir.resolve("top-experts.csv"));
+            return null;
+        }));
+        try {
+            for (Future<Void> run : runs) {
+                run.get();
+            }
+        } finally {
+            runner.shutdown();
+        }
+
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        long rows = Metrics.counter("report.rows").sum();
+        System.out.printf("%,d rows in %.2f s (%,.0f rows/s), %d workers per report, peak heap %.1f MB%n",
+            rows, seconds, rows / seconds, workers, peakHeap / (1024.0 * 1024));
+    }
+}
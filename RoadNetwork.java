@@ -0,0 +1,192 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Builds the road graph the nearest-centre search runs on: either the
+// synthesized network of district headquarters and their five government
+// centres, or the villages, centres and roads written by DataGenerator.
+final class RoadNetwork {
+
+    private RoadNetwork() {
+    }
+
+    static Graph synthesized(String[] districts) {
+        Graph roadNetwork = new Graph();
+        Map<String, Location> districtLocations = new HashMap<>();
+
+        // Initialize all district locations with actual coordinates
+        for (int i = 0; i < Districts.COUNT; i++) {
+            districtLocations.put(Districts.NAMES[i], new Location(Districts.NAMES[i],
+                Districts.LATITUDES[i], Districts.LONGITUDES[i], "DISTRICT", Districts.HEADQUARTERS[i], "", "",
+                Districts.ELEVATIONS[i]));
+        }
+
+        // Add district locations to graph
+        for (Location loc : districtLocations.values()) {
+            roadNetwork.addLocation(loc);
+        }
+
+        // Initialize government centers for each district
+        for (String district : districts) {
+            Location districtLoc = districtLocations.get(district);
+            if (districtLoc != null) {
+                // Add KVK
+                Location kvk = new Location(
+                    "Krishi Vigyan Kendra - " + district,
+                    districtLoc.latitude + 0.01,
+                    districtLoc.longitude + 0.01,
+                    "GOVT_CENTER",
+                    "Main Road, " + district,
+                    "1800-XXX-XXXX",
+                    "Crop Research, Training, Soil Testing",
+                    districtLoc.elevation
+                );
+                roadNetwork.addLocation(kvk);
+                roadNetwork.addRoad(districtLoc, kvk);
+
+                // Add Agriculture Department
+                Location agriDept = new Location(
+                    "Agriculture Department - " + district,
+                    districtLoc.latitude - 0.01,
+                    districtLoc.longitude - 0.01,
+                    "GOVT_CENTER",
+                    "Government Complex, " + district,
+                    "1800-XXX-XXXX",
+                    "Subsidies, Schemes, Technical Support",
+                    districtLoc.elevation
+                );
+                roadNetwork.addLocation(agriDept);
+                roadNetwork.addRoad(districtLoc, agriDept);
+
+                // Add Soil Testing Lab
+                Location soilLab = new Location(
+                    "Soil Testing Lab - " + district,
+                    districtLoc.latitude + 0.02,
+                    districtLoc.longitude - 0.02,
+                    "GOVT_CENTER",
+                    "Research Complex, " + district,
+                    "1800-XXX-XXXX",
+                    "Soil Analysis, Fertilizer Recommendations",
+                    districtLoc.elevation
+                );
+                roadNetwork.addLocation(soilLab);
+                roadNetwork.addRoad(districtLoc, soilLab);
+
+                // Add Horticulture Department
+                Location hortDept = new Location(
+                    "Horticulture Department - " + district,
+                    districtLoc.latitude - 0.02,
+                    districtLoc.longitude + 0.02,
+                    "GOVT_CENTER",
+                    "Horticulture Complex, " + district,
+                    "1800-XXX-XXXX",
+                    "Fruit/Vegetable Cultivation, Plant Protection",
+                    districtLoc.elevation
+                );
+                roadNetwork.addLocation(hortDept);
+                roadNetwork.addRoad(districtLoc, hortDept);
+
+                // Add Seed Testing Lab
+                Location seedLab = new Location(
+                    "Seed Testing Lab - " + district,
+                    districtLoc.latitude + 0.03,
+                    districtLoc.longitude + 0.01,
+                    "GOVT_CENTER",
+                    "Seed Research Center, " + district,
+                    "1800-XXX-XXXX",
+                    "Seed Quality Testing, Certification",
+                    districtLoc.elevation
+                );
+                roadNetwork.addLocation(seedLab);
+                roadNetwork.addRoad(districtLoc, seedLab);
+            }
+        }
+
+        // Add inter-district connections (simplified road network)
+        for (int i = 0; i < districts.length; i++) {
+            for (int j = i + 1; j < districts.length; j++) {
+                Location loc1 = districtLocations.get(districts[i]);
+                Location loc2 = districtLocations.get(districts[j]);
+                if (loc1 != null && loc2 != null) {
+                    double distance = Graph.calculateDistance(
+                        loc1.latitude, loc1.longitude,
+                        loc2.latitude, loc2.longitude
+                    );
+                    if (distance < 100) { // Only connect nearby districts
+                        roadNetwork.addRoad(loc1, loc2);
+                    }
+                }
+            }
+        }
+        return roadNetwork;
+    }
+
+    // Reads villages.csv, centres.csv and roads.csv from dir. Road endpoints
+    // are "D<district index>", "V<village id>" or "C<centre id>"; roads to
+    // unknown ids are skipped. Optional columns: "elevation" (metres) for
+    // villages and centres, and "class" (nh, sh, district, village) for
+    // roads, which is otherwise inferred from the endpoints.
+    static Graph fromCsv(Path dir) throws IOException {
+        Graph graph = new Graph();
+        Map<String, Location> nodes = new HashMap<>();
+        for (int d = 0; d < Districts.COUNT; d++) {
+            nodes.put("D" + d, new Location(Districts.NAMES[d], Districts.LATITUDES[d], Districts.LONGITUDES[d],
+                "DISTRICT", Districts.HEADQUARTERS[d], "", "", Districts.ELEVATIONS[d]));
+        }
+        forEachRow(dir.resolve("villages.csv"), row -> {
+            String name = row.get("name");
+            nodes.put("V" + row.get("id"), new Location(name, Double.parseDouble(row.get("latitude")),
+                Double.parseDouble(row.get("longitude")), "VILLAGE", name + ", " + row.get("district"), "", "",
+                elevation(row)));
+        });
+        forEachRow(dir.resolve("centres.csv"), row ->
+            nodes.put(row.get("id"), new Location(row.get("name"), Double.parseDouble(row.get("latitude")),
+                Double.parseDouble(row.get("longitude")), row.get("type"), row.get("address"),
+                row.get("contact"), row.get("services"), elevation(row))));
+        for (Location loc : nodes.values()) {
+            graph.addLocation(loc);
+        }
+        forEachRow(dir.resolve("roads.csv"), row -> {
+            Location from = nodes.get(row.get("from"));
+            Location to = nodes.get(row.get("to"));
+            if (from != null && to != null) {
+                TravelTime.RoadClass roadClass = TravelTime.RoadClass.parse(row.getOrDefault("class", ""));
+                graph.addRoad(from, to, roadClass != null ? roadClass : TravelTime.classify(from, to));
+            }
+        });
+        return graph;
+    }
+
+    private static double elevation(Map<String, String> row) {
+        String elevation = row.getOrDefault("elevation", "").trim();
+        return elevation.isEmpty() ? Double.NaN : Double.parseDouble(elevation);
+    }
+
+    // Streams the rows of a CSV file, each keyed by the header's column
+    // names; missing fields read as "".
+    static void forEachRow(Path file, Consumer<Map<String, String>> action) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return;
+            }
+            List<String> columns = Gazetteer.splitCsv(header.toLowerCase(Locale.ROOT));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                List<String> fields = Gazetteer.splitCsv(line);
+                Map<String, String> row = new HashMap<>();
+                for (int c = 0; c < columns.size(); c++) {
+                    row.put(columns.get(c).trim(), c < fields.size() ? fields.get(c) : "");
+                }
+                action.accept(row);
+            }
+        }
+    }
+}
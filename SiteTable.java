@@ -0,0 +1,217 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.List;
+
+// Agro-climatic attributes of every location the suitability engine scores,
+// kept as one primitive array per attribute (struct-of-arrays) so a scoring
+// pass streams through contiguous memory. Site i is the i-th entry of every
+// array. The 13 district headquarters always come first, so a district with
+// no village data still has a site.
+final class SiteTable {
+
+    static final byte SOIL_ALLUVIAL = 0;
+    static final byte SOIL_LOAM = 1;
+    static final byte SOIL_CLAY = 2;
+    static final byte SOIL_SANDY = 3;
+    static final byte SOIL_MOUNTAIN = 4;
+    static final String[] SOIL_NAMES = {"alluvial", "loam", "clay", "sandy", "mountain"};
+
+    // Normal annual rainfall (mm) and dominant soil per district, in
+    // Districts.NAMES order. Used when the village list has no such column.
+    static final int[] DISTRICT_RAINFALL = {
+        1050, 1230, 1450, 1600, 2070, 1150, 2000, 1380, 1850, 1700, 1350, 1450, 1500
+    };
+    static final byte[] DISTRICT_SOIL = {
+        SOIL_MOUNTAIN, SOIL_MOUNTAIN, SOIL_MOUNTAIN, SOIL_MOUNTAIN, SOIL_LOAM,
+        SOIL_ALLUVIAL, SOIL_LOAM, SOIL_MOUNTAIN, SOIL_MOUNTAIN,
+        SOIL_MOUNTAIN, SOIL_MOUNTAIN, SOIL_ALLUVIAL, SOIL_MOUNTAIN
+    };
+
+    // Mean annual temperature at sea level for the state, and the standard
+    // lapse rate used to estimate a site's temperature from its elevation.
+    private static final float SEA_LEVEL_TEMPERATURE = 26.5f;
+    private static final float LAPSE_RATE_PER_METRE = 0.0065f;
+
+    final int size;
+    final String[] names;
+    final int[] district;
+    final float[] latitude;
+    final float[] longitude;
+    final float[] elevation;
+    final float[] rainfall;
+    final float[] temperature;
+    final byte[] soil;
+
+    private final Map<String, Integer> index;
+
+    private SiteTable(int size, String[] names, int[] district, float[] latitude, float[] longitude,
+                      float[] elevation, float[] rainfall, float[] temperature, byte[] soil) {
+        this.size = size;
+        this.names = names;
+        this.district = district;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.elevation = elevation;
+        this.rainfall = rainfall;
+        this.temperature = temperature;
+        this.soil = soil;
+        this.index = new HashMap<>(size * 2);
+        for (int i = size - 1; i >= 0; i--) {
+            index.put(key(district[i], names[i]), i);
+        }
+    }
+
+    // The site for a village in a district, or -1.
+    int indexOf(int districtId, String name) {
+        Integer i = index.get(key(districtId, name));
+        return i == null ? -1 : i;
+    }
+
+    // The headquarters site of a district.
+    static int headquarters(int districtId) {
+        return districtId;
+    }
+
+    private static String key(int districtId, String name) {
+        return districtId + "/" + name.toLowerCase(Locale.ROOT);
+    }
+
+    static float temperatureAt(float elevation) {
+        return SEA_LEVEL_TEMPERATURE - LAPSE_RATE_PER_METRE * elevation;
+    }
+
+    static byte soil(String name) {
+        for (byte s = 0; s < SOIL_NAMES.length; s++) {
+            if (SOIL_NAMES[s].equalsIgnoreCase(name)) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    static class Builder {
+        private int size;
+        private String[] names = new String[256];
+        private int[] district = new int[256];
+        private float[] latitude = new float[256];
+        private float[] longitude = new float[256];
+        private float[] elevation = new float[256];
+        private float[] rainfall = new float[256];
+        private float[] temperature = new float[256];
+        private byte[] soil = new byte[256];
+
+        Builder() {
+            for (int d = 0; d < Districts.COUNT; d++) {
+                add(Districts.NAMES[d], d, (float) Districts.LATITUDES[d], (float) Districts.LONGITUDES[d],
+                    Districts.ELEVATIONS[d], DISTRICT_RAINFALL[d],
+                    temperatureAt(Districts.ELEVATIONS[d]), DISTRICT_SOIL[d]);
+            }
+        }
+
+        Builder add(String name, int districtId, float lat, float lon, float elevationMetres, float rainfallMm,
+                    float meanTemperature, byte soilType) {
+            if (size == names.length) {
+                int capacity = size * 2;
+                names = Arrays.copyOf(names, capacity);
+                district = Arrays.copyOf(district, capacity);
+                latitude = Arrays.copyOf(latitude, capacity);
+                longitude = Arrays.copyOf(longitude, capacity);
+                elevation = Arrays.copyOf(elevation, capacity);
+                rainfall = Arrays.copyOf(rainfall, capacity);
+                temperature = Arrays.copyOf(temperature, capacity);
+                soil = Arrays.copyOf(soil, capacity);
+            }
+            names[size] = name;
+            district[size] = districtId;
+            latitude[size] = lat;
+            longitude[size] = lon;
+            elevation[size] = elevationMetres;
+            rainfall[size] = rainfallMm;
+            temperature[size] = meanTemperature;
+            soil[size] = soilType;
+            size++;
+            return this;
+        }
+
+        SiteTable build() {
+            return new SiteTable(size, Arrays.copyOf(names, size), Arrays.copyOf(district, size),
+                Arrays.copyOf(latitude, size), Arrays.copyOf(longitude, size), Arrays.copyOf(elevation, size),
+                Arrays.copyOf(rainfall, size), Arrays.copyOf(temperature, size), Arrays.copyOf(soil, size));
+        }
+    }
+
+    // Reads a village list with "district", "name" and "elevation" columns.
+    // "latitude", "longitude", "rainfall" (mm/year), "temperature" (mean
+    // annual °C) and "soil" are optional; missing values come from the
+    // district headquarters, the district normals and the lapse rate. Rows
+    // for unknown districts are skipped.
+    static SiteTable loadVillages(Path file) throws IOException {
+        Builder builder = new Builder();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return builder.build();
+            }
+            List<String> columns = Arrays.asList(header.toLowerCase(Locale.ROOT).split(","));
+            int districtColumn = columns.indexOf("district");
+            int nameColumn = columns.indexOf("name");
+            int elevationColumn = columns.indexOf("elevation");
+            int latitudeColumn = columns.indexOf("latitude");
+            int longitudeColumn = columns.indexOf("longitude");
+            int rainfallColumn = columns.indexOf("rainfall");
+            int temperatureColumn = columns.indexOf("temperature");
+            int soilColumn = columns.indexOf("soil");
+            if (districtColumn < 0 || nameColumn < 0 || elevationColumn < 0) {
+                throw new IOException(file + ": expected district, name and elevation columns");
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> fields = Gazetteer.splitCsv(line);
+                if (fields.size() <= Math.max(districtColumn, Math.max(nameColumn, elevationColumn))) {
+                    continue;
+                }
+                int d = Districts.id(fields.get(districtColumn));
+                if (d < 0) {
+                    continue;
+                }
+                float elevation = Float.parseFloat(fields.get(elevationColumn));
+                String lat = field(fields, latitudeColumn);
+                String lon = field(fields, longitudeColumn);
+                String rain = field(fields, rainfallColumn);
+                String temp = field(fields, temperatureColumn);
+                byte soil = soil(field(fields, soilColumn));
+                builder.add(fields.get(nameColumn), d,
+                    lat.isEmpty() ? (float) Districts.LATITUDES[d] : Float.parseFloat(lat),
+                    lon.isEmpty() ? (float) Districts.LONGITUDES[d] : Float.parseFloat(lon),
+                    elevation,
+                    rain.isEmpty() ? DISTRICT_RAINFALL[d] : Float.parseFloat(rain),
+                    temp.isEmpty() ? temperatureAt(elevation) : Float.parseFloat(temp),
+                    soil < 0 ? DISTRICT_SOIL[d] : soil);
+            }
+        }
+        return builder.build();
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column >= 0 && column < fields.size() ? fields.get(column).trim() : "";
+    }
+
+    // Random sites spread over the districts, for benchmarks and sizing runs.
+    static SiteTable synthetic(int villages, long seed) {
+        Random random = new Random(seed);
+        Builder builder = new Builder();
+        for (int i = 0; i < villages; i++) {
+            int d = random.nextInt(Districts.COUNT);
+            float elevation = (float) Math.max(150, Districts.ELEVATIONS[d] + random.nextGaussian() * 400);
+            float rainfall = (float) Math.max(300, DISTRICT_RAINFALL[d] + random.nextGaussian() * 200);
+            byte soil = random.nextInt(3) == 0 ? (byte) random.nextInt(SOIL_NAMES.length) : DISTRICT_SOIL[d];
+            float lat = (float) (Districts.LATITUDES[d] + random.nextGaussian() * 0.11);
+            float lon = (float) (Districts.LONGITUDES[d] + random.nextGaussian() * 0.11);
+            builder.add("Site " + i, d, lat, lon, elevation, rainfall, temperatureAt(elevation), soil);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,53 @@
+final class Sorting {
+
+    private Sorting() {
+    }
+
+    // Recurses into the smaller side and loops on the larger, so the stack
+    // stays O(log n) deep even on unlucky input.
+    static void quickSort(String[] arr, int low, int high) {
+        while (low < high) {
+            int pi = partition(arr, low, high);
+            if (pi - low < high - pi) {
+                quickSort(arr, low, pi - 1);
+                low = pi + 1;
+            } else {
+                quickSort(arr, pi + 1, high);
+                high = pi - 1;
+            }
+        }
+    }
+
+    // Lomuto partition around the median of the first, middle and last
+    // elements. A plain last-element pivot degrades to O(n^2) on input that
+    // is already sorted, which the district and crop lists usually are.
+    static int partition(String[] arr, int low, int high) {
+        int mid = low + (high - low) / 2;
+        if (arr[mid].compareToIgnoreCase(arr[low]) < 0) {
+            swap(arr, low, mid);
+        }
+        if (arr[high].compareToIgnoreCase(arr[low]) < 0) {
+            swap(arr, low, high);
+        }
+        if (arr[mid].compareToIgnoreCase(arr[high]) < 0) {
+            swap(arr, mid, high);
+        }
+
+        String pivot = arr[high];
+        int i = low - 1;
+        for (int j = low; j < high; j++) {
+            if (arr[j].compareToIgnoreCase(pivot) < 0) {
+                i++;
+                swap(arr, i, j);
+            }
+        }
+        swap(arr, i + 1, high);
+        return i + 1;
+    }
+
+    private static void swap(String[] arr, int i, int j) {
+        String temp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = temp;
+    }
+}
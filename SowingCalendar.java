@@ -0,0 +1,243 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.List;
+
+// Sowing windows per district, crop and elevation band, each stored as a
+// 366-bit day-of-year set in six longs. Day i is the i-th day of a leap year,
+// so a month-day maps to the same bit every year. Range queries build one
+// six-word mask and AND it against each crop; "days until" scans for the next
+// set bit a word at a time.
+final class SowingCalendar {
+
+    static final String[] BAND_NAMES = {"plains", "mid", "high"};
+    // Upper elevation (m) of each band but the last.
+    private static final int[] BAND_LIMITS = {1000, 2000};
+
+    private static final int DAYS = 366;
+    private static final int WORDS = (DAYS + 63) / 64;
+    private static final long LAST_WORD = -1L >>> (WORDS * 64 - DAYS);
+    private static final int FEB_29 = 31 + 28;
+    private static final DateTimeFormatter MONTH_DAY = DateTimeFormatter.ofPattern("MM-dd");
+
+    private final String[] crops;
+    private final long[] bits;
+
+    private SowingCalendar(String[] crops, long[] bits) {
+        this.crops = crops;
+        this.bits = bits;
+    }
+
+    static int band(double elevation) {
+        int band = 0;
+        while (band < BAND_LIMITS.length && elevation >= BAND_LIMITS[band]) {
+            band++;
+        }
+        return band;
+    }
+
+    static int dayIndex(MonthDay day) {
+        return day.atYear(2000).getDayOfYear() - 1;
+    }
+
+    String[] crops() {
+        return crops.clone();
+    }
+
+    int crop(String name) {
+        for (int c = 0; c < crops.length; c++) {
+            if (crops[c].equalsIgnoreCase(name)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private int offset(int district, int crop, int band) {
+        return ((district * crops.length + crop) * BAND_NAMES.length + band) * WORDS;
+    }
+
+    // Crops whose window is open on at least one of the given days. The mask
+    // follows the real calendar from the given date, so Feb 29 is counted
+    // only in a leap year.
+    List<String> sowableWithin(int district, int band, LocalDate from, int days) {
+        long[] mask = new long[WORDS];
+        int year = from.getYear();
+        int day = dayIndex(MonthDay.from(from));
+        for (int i = Math.min(days, DAYS); i > 0; i--) {
+            mask[day >>> 6] |= 1L << day;
+            if (++day == DAYS) {
+                day = 0;
+                year++;
+            }
+            if (day == FEB_29 && !Year.isLeap(year)) {
+                day++;
+            }
+        }
+        List<String> sowable = new ArrayList<>();
+        for (int c = 0; c < crops.length; c++) {
+            int base = offset(district, c, band);
+            long any = 0;
+            for (int w = 0; w < WORDS; w++) {
+                any |= bits[base + w] & mask[w];
+            }
+            if (any != 0) {
+                sowable.add(crops[c]);
+            }
+        }
+        return sowable;
+    }
+
+    // 0 if the window is open on date, -1 if the crop has no window here.
+    int daysUntilOpen(int district, int crop, int band, LocalDate date) {
+        int day = dayIndex(MonthDay.from(date));
+        int next = next(offset(district, crop, band), day, true, hasFeb29Ahead(date, day));
+        return next < 0 ? -1 : daysUntil(date, next);
+    }
+
+    // The last day of the window open on date, or null if none is open.
+    LocalDate windowEnd(int district, int crop, int band, LocalDate date) {
+        int base = offset(district, crop, band);
+        int day = dayIndex(MonthDay.from(date));
+        if ((bits[base + (day >>> 6)] & (1L << day)) == 0) {
+            return null;
+        }
+        int closed = next(base, day, false, hasFeb29Ahead(date, day));
+        // A window covering the whole year never closes.
+        return closed < 0 ? null : date.plusDays(daysUntil(date, closed) - 1);
+    }
+
+    private static int daysUntil(LocalDate date, int day) {
+        MonthDay target = MonthDay.from(LocalDate.ofYearDay(2000, day + 1));
+        LocalDate next = target.atYear(date.getYear());
+        if (next.isBefore(date)) {
+            next = target.atYear(date.getYear() + 1);
+        }
+        return (int) (next.toEpochDay() - date.toEpochDay());
+    }
+
+    // Whether the next Feb 29 reached from date, within a year, exists: the
+    // one in date's year before March, otherwise the one in the next year.
+    private static boolean hasFeb29Ahead(LocalDate date, int day) {
+        return Year.isLeap(day <= FEB_29 ? date.getYear() : date.getYear() + 1);
+    }
+
+    // First day at or after from (wrapping past the year end) whose bit is
+    // set, or clear when set is false; -1 if there is none. Without feb29
+    // the Feb 29 bit is neither, so the scan steps over it.
+    private int next(int base, int from, boolean set, boolean feb29) {
+        int first = from >>> 6;
+        for (int step = 0; step <= WORDS; step++) {
+            int w = (first + step) % WORDS;
+            long word = set ? bits[base + w] : ~bits[base + w];
+            if (w == WORDS - 1) {
+                word &= LAST_WORD;
+            }
+            if (!feb29 && w == FEB_29 >>> 6) {
+                word &= ~(1L << FEB_29);
+            }
+            if (step == 0) {
+                word &= -1L << from;
+            } else if (step == WORDS) {
+                word &= ~(-1L << from);
+            }
+            if (word != 0) {
+                return w * 64 + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return -1;
+    }
+
+    // Sets days consecutive bits starting at day, wrapping past the year end.
+    private static void setRange(long[] words, int base, int day, int days) {
+        if (days >= DAYS) {
+            for (int w = 0; w < WORDS; w++) {
+                words[base + w] = w == WORDS - 1 ? LAST_WORD : -1L;
+            }
+            return;
+        }
+        int end = day + days;
+        if (end > DAYS) {
+            setRange(words, base, 0, end - DAYS);
+            end = DAYS;
+        }
+        for (int i = day; i < end; ) {
+            int w = i >>> 6;
+            int upto = Math.min(end, (w + 1) << 6);
+            long span = upto - i == 64 ? -1L : ((1L << (upto - i)) - 1) << i;
+            words[base + w] |= span;
+            i = upto;
+        }
+    }
+
+    // Reads "district,crop,band,from,to" rows with MM-DD dates; "*" in the
+    // district or band column matches all of them. Lines starting with # are
+    // comments. Crops are numbered in order of first appearance.
+    static SowingCalendar load(Path file) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        List<String> crops = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            boolean header = true;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (header) {
+                    header = false;
+                    continue;
+                }
+                List<String> fields = Gazetteer.splitCsv(line);
+                if (fields.size() < 5) {
+                    throw new IOException(file + ":" + lineNumber + ": expected district,crop,band,from,to");
+                }
+                String[] row = new String[5];
+                for (int i = 0; i < 5; i++) {
+                    row[i] = fields.get(i).trim();
+                }
+                if (!row[0].equals("*") && Districts.id(row[0]) < 0) {
+                    throw new IOException(file + ":" + lineNumber + ": unknown district " + row[0]);
+                }
+                if (!row[2].equals("*") && !Arrays.asList(BAND_NAMES).contains(row[2])) {
+                    throw new IOException(file + ":" + lineNumber + ": unknown band " + row[2]);
+                }
+                if (!crops.contains(row[1])) {
+                    crops.add(row[1]);
+                }
+                rows.add(row);
+            }
+        }
+
+        SowingCalendar calendar = new SowingCalendar(crops.toArray(new String[0]),
+            new long[Districts.COUNT * crops.size() * BAND_NAMES.length * WORDS]);
+        for (String[] row : rows) {
+            int crop = crops.indexOf(row[1]);
+            int from = dayIndex(MonthDay.parse(row[3], MONTH_DAY));
+            int to = dayIndex(MonthDay.parse(row[4], MONTH_DAY));
+            int days = (to - from + DAYS) % DAYS + 1;
+            for (int d = 0; d < Districts.COUNT; d++) {
+                if (!row[0].equals("*") && d != Districts.id(row[0])) {
+                    continue;
+                }
+                for (int b = 0; b < BAND_NAMES.length; b++) {
+                    if (row[2].equals("*") || row[2].equals(BAND_NAMES[b])) {
+                        setRange(calendar.bits, calendar.offset(d, crop, b), from, days);
+                    }
+                }
+            }
+        }
+        return calendar;
+    }
+
+    static SowingCalendar empty() {
+        return new SowingCalendar(new String[0], new long[0]);
+    }
+}
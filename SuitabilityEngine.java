@@ -0,0 +1,168 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Scores every crop at every site from its agro-climatic attributes and keeps
+// the best N crops per site. Each attribute is rated against a crop's
+// trapezoidal tolerance range (0 outside [min, max], 1 inside the optimal
+// [low, high], linear between); the score is the product of the ratings and
+// the crop's soil preference, scaled to 0-100.
+//
+// Sites are scored in fixed-size blocks in parallel across the common
+// fork/join pool. Within a block, each crop is a straight, branch-free loop
+// over the SiteTable arrays, and the top-N merge runs while the block is
+// still in cache.
+//
+//   java -cp bin SuitabilityEngine [--villages data/generated/villages.csv | --sites 1000000] [--top 3]
+public class SuitabilityEngine {
+
+    private static final LatencyHistogram RECOMPUTE = Metrics.histogram("op.suitability.recompute");
+
+    private static final int BLOCK = 4096;
+
+    // Tolerance ranges per crop, in Crops.NAMES order: {min, low, high, max}.
+    private static final float[][] ELEVATION = {
+        {0, 0, 1800, 2700}, {0, 0, 1200, 2000}, {0, 0, 700, 1200}, {0, 200, 2000, 2600}, {0, 0, 2200, 2900}
+    };
+    private static final float[][] RAINFALL = {
+        {400, 650, 1500, 2200}, {900, 1400, 3000, 4000}, {700, 1100, 2500, 3200},
+        {400, 600, 1500, 2200}, {500, 750, 2000, 2800}
+    };
+    private static final float[][] TEMPERATURE = {
+        {8, 14, 24, 30}, {16, 22, 32, 36}, {18, 22, 30, 35}, {10, 15, 26, 32}, {12, 18, 30, 35}
+    };
+    // Preference per soil type, in SiteTable.SOIL_NAMES order.
+    private static final float[][] SOIL = {
+        {1.0f, 1.0f, 0.8f, 0.6f, 0.7f},
+        {1.0f, 0.8f, 1.0f, 0.3f, 0.5f},
+        {1.0f, 0.9f, 0.7f, 0.5f, 0.3f},
+        {0.8f, 1.0f, 0.5f, 0.8f, 0.7f},
+        {0.9f, 1.0f, 0.6f, 0.7f, 0.8f}
+    };
+
+    // Best crops for every site: the crop index and score for rank r of site
+    // i are at [i * topN + r].
+    static final class Ranking {
+        final SiteTable sites;
+        final int topN;
+        final byte[] crops;
+        final float[] scores;
+        final long computeNanos;
+
+        Ranking(SiteTable sites, int topN, byte[] crops, float[] scores, long computeNanos) {
+            this.sites = sites;
+            this.topN = topN;
+            this.crops = crops;
+            this.scores = scores;
+            this.computeNanos = computeNanos;
+        }
+
+        String cropAt(int site, int rank) {
+            return Crops.NAMES[crops[site * topN + rank]];
+        }
+
+        float scoreAt(int site, int rank) {
+            return scores[site * topN + rank];
+        }
+    }
+
+    private SuitabilityEngine() {
+    }
+
+    static Ranking rank(SiteTable sites, int topN) {
+        int n = Math.min(topN, Crops.COUNT);
+        byte[] topCrops = new byte[sites.size * n];
+        float[] topScores = new float[sites.size * n];
+        long startNanos = System.nanoTime();
+        int blocks = (sites.size + BLOCK - 1) / BLOCK;
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int from = b * BLOCK;
+            int to = Math.min(sites.size, from + BLOCK);
+            float[][] block = new float[Crops.COUNT][to - from];
+            for (int c = 0; c < Crops.COUNT; c++) {
+                scoreBlock(sites, c, from, to, block[c]);
+            }
+            selectTop(block, from, to - from, n, topCrops, topScores);
+        });
+        long elapsed = System.nanoTime() - startNanos;
+        RECOMPUTE.record(elapsed);
+        return new Ranking(sites, n, topCrops, topScores, elapsed);
+    }
+
+    private static void scoreBlock(SiteTable sites, int crop, int from, int to, float[] out) {
+        float[] e = ELEVATION[crop], r = RAINFALL[crop], t = TEMPERATURE[crop], soil = SOIL[crop];
+        float[] elevation = sites.elevation, rainfall = sites.rainfall, temperature = sites.temperature;
+        byte[] soils = sites.soil;
+        for (int i = from; i < to; i++) {
+            out[i - from] = 100f
+                * tolerance(elevation[i], e[0], e[1], e[2], e[3])
+                * tolerance(rainfall[i], r[0], r[1], r[2], r[3])
+                * tolerance(temperature[i], t[0], t[1], t[2], t[3])
+                * soil[soils[i]];
+        }
+    }
+
+    private static float tolerance(float x, float min, float low, float high, float max) {
+        float rising = low > min ? (x - min) / (low - min) : (x >= min ? 1f : 0f);
+        float falling = max > high ? (max - x) / (max - high) : (x <= max ? 1f : 0f);
+        return Math.max(0f, Math.min(1f, Math.min(rising, falling)));
+    }
+
+    // Insertion into a small sorted window; n is at most the crop count.
+    private static void selectTop(float[][] block, int offset, int count, int n,
+                                  byte[] topCrops, float[] topScores) {
+        for (int i = 0; i < count; i++) {
+            int base = (offset + i) * n;
+            int filled = 0;
+            for (int c = 0; c < block.length; c++) {
+                float score = block[c][i];
+                int pos = filled;
+                while (pos > 0 && topScores[base + pos - 1] < score) {
+                    if (pos < n) {
+                        topScores[base + pos] = topScores[base + pos - 1];
+                        topCrops[base + pos] = topCrops[base + pos - 1];
+                    }
+                    pos--;
+                }
+                if (pos < n) {
+                    topScores[base + pos] = score;
+                    topCrops[base + pos] = (byte) c;
+                }
+                filled = Math.min(n, filled + 1);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        SiteTable sites = null;
+        int topN = 3;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--villages": sites = SiteTable.loadVillages(java.nio.file.Paths.get(args[++i])); break;
+                case "--sites": sites = SiteTable.synthetic(Integer.parseInt(args[++i]), 42); break;
+                case "--top": topN = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    return;
+            }
+        }
+        if (sites == null) {
+            sites = SiteTable.synthetic(Districts.COUNT * 1230, 42);
+        }
+
+        // The first passes include JIT compilation; report the steady state too.
+        Ranking ranking = null;
+        for (int run = 0; run < 5; run++) {
+            ranking = rank(sites, topN);
+            System.out.printf("Run %d: %,d sites x %d crops in %.1f ms%n",
+                run + 1, sites.size, Crops.COUNT, ranking.computeNanos / 1e6);
+        }
+        for (int d = 0; d < Districts.COUNT; d++) {
+            StringBuilder line = new StringBuilder(String.format("%-18s", Districts.NAMES[d]));
+            for (int r = 0; r < ranking.topN; r++) {
+                line.append(String.format(Locale.ROOT, "  %-9s %5.1f",
+                    ranking.cropAt(SiteTable.headquarters(d), r), ranking.scoreAt(SiteTable.headquarters(d), r)));
+            }
+            System.out.println(line);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.List;
+import java.util.function.Function;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+
+// As-you-type suggestions for an editable combo box. Each edit asks the
+// suggester for matches and swaps them into the drop-down, keeping the text
+// and caret the user is typing.
+final class TypeAhead {
+
+    private TypeAhead() {
+    }
+
+    static void install(JComboBox<String> box, Function<String, List<String>> suggester) {
+        box.setEditable(true);
+        JTextComponent editor = (JTextComponent) box.getEditor().getEditorComponent();
+        boolean[] updating = {false};
+
+        editor.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                schedule();
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                schedule();
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+            }
+
+            private void schedule() {
+                if (!updating[0]) {
+                    SwingUtilities.invokeLater(this::refresh);
+                }
+            }
+
+            private void refresh() {
+                // Only react to typing, not to the box filling in a choice.
+                if (!editor.isFocusOwner()) {
+                    return;
+                }
+                String text = editor.getText();
+                ComboBoxModel<String> current = box.getModel();
+                for (int i = 0; i < current.getSize(); i++) {
+                    if (text.equals(current.getElementAt(i))) {
+                        return;
+                    }
+                }
+
+                List<String> items = suggester.apply(text);
+                int caret = editor.getCaretPosition();
+                updating[0] = true;
+                try {
+                    DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>(items.toArray(new String[0]));
+                    model.setSelectedItem(text);
+                    box.setModel(model);
+                    editor.setText(text);
+                    editor.setCaretPosition(Math.min(caret, text.length()));
+                } finally {
+                    updating[0] = false;
+                }
+                if (items.isEmpty()) {
+                    box.hidePopup();
+                } else if (box.isShowing()) {
+                    box.hidePopup();
+                    box.showPopup();
+                }
+            }
+        });
+    }
+
+    // Puts the full list back and selects the first item.
+    static void reset(JComboBox<String> box, String[] items) {
+        box.setModel(new DefaultComboBoxModel<>(items));
+        if (items.length > 0) {
+            box.setSelectedIndex(0);
+        }
+    }
+
+    static String text(JComboBox<String> box) {
+        Object item = box.isEditable() ? box.getEditor().getItem() : box.getSelectedItem();
+        return item == null ? "" : item.toString().trim();
+    }
+}
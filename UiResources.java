@@ -0,0 +1,64 @@
+import java.awt.*;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import javax.swing.*;
+import javax.swing.border.*;
+
+// Fonts, colours, borders and icons shared by every screen. Swing objects
+// are only touched on the EDT, so the caches need no locking.
+final class UiResources {
+
+    static final Font TITLE_FONT = new Font("Segoe UI", Font.BOLD, 36);
+    static final Font HEADING_FONT = new Font("Segoe UI", Font.BOLD, 24);
+    static final Font BUTTON_FONT = new Font("Segoe UI", Font.BOLD, 18);
+    static final Font SUBTITLE_FONT = new Font("Segoe UI", Font.PLAIN, 16);
+    static final Font SECTION_FONT = new Font("Segoe UI", Font.BOLD, 16);
+    static final Font LABEL_BOLD_FONT = new Font("Segoe UI", Font.BOLD, 14);
+    static final Font LABEL_FONT = new Font("Segoe UI", Font.PLAIN, 14);
+
+    static final Color BACKGROUND = new Color(240, 240, 240);
+    static final Color BRAND_GREEN = new Color(34, 139, 34);
+    static final Color MUTED_TEXT = new Color(100, 100, 100);
+    static final Color BUTTON_TEXT = new Color(0, 0, 0);
+    static final Color PRIMARY_BUTTON = new Color(60, 179, 113);
+    static final Color EXPERT_BUTTON = new Color(70, 130, 180);
+    static final Color CANCEL_BUTTON = new Color(220, 53, 69);
+    static final Color NEUTRAL_BUTTON = new Color(100, 100, 100);
+
+    static final Cursor HAND_CURSOR = Cursor.getPredefinedCursor(Cursor.HAND_CURSOR);
+
+    private static final Map<Color, Border> buttonBorders = new HashMap<>();
+    private static final Map<Color, Color> hoverColors = new HashMap<>();
+    private static final Map<String, ImageIcon> icons = new HashMap<>();
+
+    private UiResources() {
+    }
+
+    static Border buttonBorder(Color color) {
+        return buttonBorders.computeIfAbsent(color, c -> BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(c.darker(), 2),
+            new EmptyBorder(12, 25, 12, 25)
+        ));
+    }
+
+    static Color hoverColor(Color color) {
+        return hoverColors.computeIfAbsent(color, Color::brighter);
+    }
+
+    // Loads and scales a classpath icon once; returns null if it is missing.
+    static ImageIcon icon(String path, int size) {
+        String key = path + "@" + size;
+        if (icons.containsKey(key)) {
+            return icons.get(key);
+        }
+        ImageIcon icon = null;
+        URL url = UiResources.class.getResource(path);
+        if (url != null) {
+            Image scaled = new ImageIcon(url).getImage().getScaledInstance(size, size, Image.SCALE_SMOOTH);
+            icon = new ImageIcon(scaled);
+        }
+        icons.put(key, icon);
+        return icon;
+    }
+}
@@ -0,0 +1,225 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+// A gridded daily forecast, memory-mapped read-only. Point lookups read the
+// four surrounding cells straight from the mapping and interpolate
+// bilinearly, so they parse nothing and allocate nothing.
+//
+// File layout (little-endian):
+//
+//   offset  size  field
+//        0     4  magic "CAWX"
+//        4     4  version, int (1)
+//        8     8  issued, long (epoch seconds; day 0 is the issue date in IST)
+//       16     4  rows, int (latitudes, >= 2)
+//       20     4  cols, int (longitudes, >= 2)
+//       24     4  days, int
+//       28     4  variables, int (>= 3: RAINFALL, TMIN, TMAX)
+//       32     8  lat0, double (latitude of row 0, the southern edge)
+//       40     8  lon0, double (longitude of column 0, the western edge)
+//       48     8  dLat, double (degrees between rows)
+//       56     8  dLon, double (degrees between columns)
+//       64        float32 values: [day][variable][row][col]
+//
+//   java -cp bin WeatherGrid --synthetic data/forecast/forecast.cawx [--days 10] [--seed 42]
+//   java -cp bin WeatherGrid --point <file> <lat> <lon>
+final class WeatherGrid {
+
+    static final int RAINFALL = 0;  // mm/day
+    static final int TMIN = 1;      // °C
+    static final int TMAX = 2;      // °C
+
+    static final ZoneId ZONE = ZoneId.of("Asia/Kolkata");
+
+    private static final int MAGIC = 0x58574143;  // "CAWX" read little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+
+    final Path file;
+    final long issued;
+    final int rows;
+    final int cols;
+    final int days;
+    final int variables;
+    final double lat0;
+    final double lon0;
+    final double dLat;
+    final double dLon;
+    private final ByteBuffer data;
+
+    private WeatherGrid(Path file, ByteBuffer data) throws IOException {
+        this.file = file;
+        this.data = data;
+        if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException(file + ": not a version " + VERSION + " forecast grid");
+        }
+        issued = data.getLong(8);
+        rows = data.getInt(16);
+        cols = data.getInt(20);
+        days = data.getInt(24);
+        variables = data.getInt(28);
+        lat0 = data.getDouble(32);
+        lon0 = data.getDouble(40);
+        dLat = data.getDouble(48);
+        dLon = data.getDouble(56);
+        if (rows < 2 || cols < 2 || days < 1 || variables < 3 || !(dLat > 0) || !(dLon > 0)) {
+            throw new IOException(file + ": bad grid header");
+        }
+        long expected = HEADER_BYTES + 4L * days * variables * rows * cols;
+        if (data.capacity() != expected) {
+            throw new IOException(file + ": expected " + expected + " bytes, found " + data.capacity());
+        }
+    }
+
+    static WeatherGrid open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + ": unexpected size " + channel.size());
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            // The mapping stays valid after the channel is closed.
+            return new WeatherGrid(file, mapped.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    LocalDate issueDate() {
+        return Instant.ofEpochSecond(issued).atZone(ZONE).toLocalDate();
+    }
+
+    // Bilinear interpolation between the four surrounding grid points; NaN
+    // outside the grid.
+    float value(int day, int variable, double lat, double lon) {
+        double y = (lat - lat0) / dLat;
+        double x = (lon - lon0) / dLon;
+        if (!(y >= 0 && y <= rows - 1 && x >= 0 && x <= cols - 1)) {
+            return Float.NaN;
+        }
+        int r = Math.min((int) y, rows - 2);
+        int c = Math.min((int) x, cols - 2);
+        float fy = (float) (y - r);
+        float fx = (float) (x - c);
+        int base = HEADER_BYTES + ((((day * variables + variable) * rows + r) * cols + c) << 2);
+        int above = base + (cols << 2);
+        float v00 = data.getFloat(base);
+        float v01 = data.getFloat(base + 4);
+        float v10 = data.getFloat(above);
+        float v11 = data.getFloat(above + 4);
+        float south = v00 + fx * (v01 - v00);
+        float north = v10 + fx * (v11 - v10);
+        return south + fy * (north - south);
+    }
+
+    float total(int fromDay, int dayCount, int variable, double lat, double lon) {
+        float sum = 0;
+        for (int d = fromDay; d < Math.min(days, fromDay + dayCount); d++) {
+            sum += value(d, variable, lat, lon);
+        }
+        return sum;
+    }
+
+    // One variable for one day at every site, in parallel blocks.
+    void evaluate(SiteTable sites, int day, int variable, float[] out) {
+        int block = 4096;
+        IntStream.range(0, (sites.size + block - 1) / block).parallel().forEach(b -> {
+            for (int i = b * block; i < Math.min(sites.size, (b + 1) * block); i++) {
+                out[i] = value(day, variable, sites.latitude[i], sites.longitude[i]);
+            }
+        });
+    }
+
+    // Writes a grid in the layout above; values are in [day][variable][row][col] order.
+    static void write(Path file, long issued, double lat0, double lon0, double dLat, double dLon,
+                      int rows, int cols, int days, int variables, float[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 4 * values.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(issued)
+            .putInt(rows).putInt(cols).putInt(days).putInt(variables)
+            .putDouble(lat0).putDouble(lon0).putDouble(dLat).putDouble(dLon);
+        buffer.asFloatBuffer().put(values);
+        buffer.rewind();
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        // Written under a temporary name and moved into place, so a watcher
+        // never maps a half-written file.
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // A plausible forecast over Uttarakhand at 0.05 degrees: rain cells
+    // drifting east, temperatures falling towards the northern ranges.
+    static void writeSynthetic(Path file, int days, long seed) throws IOException {
+        double lat0 = 28.6, lon0 = 77.5, step = 0.05;
+        int rows = 60, cols = 75, variables = 3;
+        Random random = new Random(seed);
+        double[] cellLat = new double[4], cellLon = new double[4], cellRain = new double[4];
+        for (int k = 0; k < cellLat.length; k++) {
+            cellLat[k] = lat0 + random.nextDouble() * rows * step;
+            cellLon[k] = lon0 + random.nextDouble() * cols * step;
+            cellRain[k] = 10 + random.nextDouble() * 50;
+        }
+        float[] values = new float[days * variables * rows * cols];
+        for (int d = 0; d < days; d++) {
+            for (int r = 0; r < rows; r++) {
+                double lat = lat0 + r * step;
+                for (int c = 0; c < cols; c++) {
+                    double lon = lon0 + c * step;
+                    double rain = 0;
+                    for (int k = 0; k < cellLat.length; k++) {
+                        double dy = lat - cellLat[k], dx = lon - (cellLon[k] + 0.15 * d);
+                        rain += cellRain[k] * Math.exp(-(dx * dx + dy * dy) / 0.08);
+                    }
+                    double tmax = 33 - (lat - 28.6) * 6 + Math.sin(d * 0.7) * 1.5;
+                    int cell = r * cols + c;
+                    values[((d * variables + RAINFALL) * rows) * cols + cell] = (float) rain;
+                    values[((d * variables + TMIN) * rows) * cols + cell] = (float) (tmax - 11);
+                    values[((d * variables + TMAX) * rows) * cols + cell] = (float) tmax;
+                }
+            }
+        }
+        long issued = LocalDate.now(ZONE).atStartOfDay(ZONE).toEpochSecond();
+        write(file, issued, lat0, lon0, step, step, rows, cols, days, variables, values);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && args[0].equals("--synthetic")) {
+            int days = 10;
+            long seed = 42;
+            for (int i = 2; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--days": days = Integer.parseInt(args[++i]); break;
+                    case "--seed": seed = Long.parseLong(args[++i]); break;
+                    default:
+                        System.err.println("Unknown argument: " + args[i]);
+                        return;
+                }
+            }
+            writeSynthetic(Paths.get(args[1]), days, seed);
+            System.out.println("Wrote " + args[1]);
+        } else if (args.length == 4 && args[0].equals("--point")) {
+            WeatherGrid grid = open(Paths.get(args[1]));
+            double lat = Double.parseDouble(args[2]);
+            double lon = Double.parseDouble(args[3]);
+            for (int d = 0; d < grid.days; d++) {
+                System.out.printf("%s  rain %6.1f mm  min %5.1f °C  max %5.1f °C%n", grid.issueDate().plusDays(d),
+                    grid.value(d, RAINFALL, lat, lon), grid.value(d, TMIN, lat, lon), grid.value(d, TMAX, lat, lon));
+            }
+        } else {
+            System.err.println("Usage: WeatherGrid --synthetic <file> [--days 10] [--seed 42] | --point <file> <lat> <lon>");
+        }
+    }
+}
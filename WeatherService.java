@@ -0,0 +1,93 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.stream.Stream;
+
+// Serves the newest forecast in a directory of *.cawx grids and swaps in a
+// newer one as soon as it lands. Each forecast is delivered under a new file
+// name rather than over the old one, because Windows refuses to replace a
+// file that is memory-mapped. Readers take the current grid once per
+// request; a grid they already hold stays valid after a swap.
+final class WeatherService {
+    private static final LatencyHistogram LOAD = Metrics.histogram("startup.weather.load");
+
+    private final Path directory;
+    private volatile WeatherGrid current;
+
+    WeatherService(Path directory) {
+        this.directory = directory;
+    }
+
+    // Null until a forecast has been loaded.
+    WeatherGrid current() {
+        return current;
+    }
+
+    // Loads the newest forecast present, then watches the directory on a
+    // daemon thread for new ones.
+    void start() {
+        if (!Files.isDirectory(directory)) {
+            System.out.println("No forecast directory at " + directory + "; weather is unavailable.");
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(WeatherService::isForecast).forEach(this::offer);
+        } catch (IOException e) {
+            System.out.println("Forecast directory could not be read: " + e.getMessage());
+        }
+
+        Thread watcher = new Thread(this::watch, "weather-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    // Publishes the forecast in file if it is valid and newer than the one
+    // being served; otherwise keeps the current one.
+    boolean offer(Path file) {
+        long startNanos = System.nanoTime();
+        try {
+            WeatherGrid grid = WeatherGrid.open(file);
+            synchronized (this) {
+                if (current != null && current.issued >= grid.issued) {
+                    return false;
+                }
+                current = grid;
+            }
+            Metrics.increment("weather.swaps");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Metrics.increment("weather.rejected");
+            System.out.println("Forecast " + file + " rejected: " + e.getMessage());
+            return false;
+        } finally {
+            LOAD.recordSince(startNanos);
+        }
+    }
+
+    private void watch() {
+        try (WatchService watcher = directory.getFileSystem().newWatchService()) {
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            while (true) {
+                WatchKey key = watcher.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path) {
+                        Path file = directory.resolve((Path) event.context());
+                        if (isForecast(file)) {
+                            offer(file);
+                        }
+                    }
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Forecast watcher stopped: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean isForecast(Path file) {
+        return file.getFileName().toString().endsWith(".cawx");
+    }
+}
@@ -0,0 +1,17 @@
+@echo off
+rem Kiosk launcher. Uses an AppCDS archive (JDK 13+); see kiosk.sh.
+
+set CP=bin;lib\mysql-connector-j-9.2.0.jar
+set ARCHIVE=cropadvisor.jsa
+set JVM_OPTS=-XX:+UseSerialGC -Dcropadvisor.prewarm=true
+
+if "%1"=="--train" goto train
+if not exist %ARCHIVE% goto train
+goto run
+
+:train
+echo Recording class-data-sharing archive %ARCHIVE% ...
+java -XX:ArchiveClassesAtExit=%ARCHIVE% %JVM_OPTS% -Dcropadvisor.exitAfterStartup=true -cp "%CP%" MainApplication
+
+:run
+java -XX:SharedArchiveFile=%ARCHIVE% -Xshare:auto %JVM_OPTS% -cp "%CP%" MainApplication
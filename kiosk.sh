@@ -0,0 +1,16 @@
+#!/bin/sh
+# Kiosk launcher. Uses an AppCDS archive (JDK 13+) so cold start skips class
+# parsing and verification. The archive is recorded on first run, or again
+# with --train after the classes in bin/ have been rebuilt.
+
+CP="bin:lib/mysql-connector-j-9.2.0.jar"
+ARCHIVE="cropadvisor.jsa"
+JVM_OPTS="-XX:+UseSerialGC -Dcropadvisor.prewarm=true"
+
+if [ "$1" = "--train" ] || [ ! -f "$ARCHIVE" ]; then
+    echo "Recording class-data-sharing archive $ARCHIVE ..."
+    java -XX:ArchiveClassesAtExit="$ARCHIVE" $JVM_OPTS \
+        -Dcropadvisor.exitAfterStartup=true -cp "$CP" MainApplication
+fi
+
+exec java -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto $JVM_OPTS -cp "$CP" MainApplication